@@ -25,7 +25,6 @@ import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
-import net.digitalid.utility.logging.Caller;
 import net.digitalid.utility.logging.Log;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
@@ -37,6 +36,7 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.database.android.encoder.AndroidDeleteEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidInsertEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidSelectEncoderBuilder;
+import net.digitalid.database.android.encoder.AndroidStatementEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidUpdateEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidWhereClauseEncoder;
 import net.digitalid.database.android.encoder.AndroidWhereClauseEncoderBuilder;
@@ -55,6 +55,7 @@ import net.digitalid.database.dialect.statement.table.drop.SQLDropTableStatement
 import net.digitalid.database.dialect.statement.update.SQLUpdateStatement;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.Transaction;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
 
@@ -102,7 +103,7 @@ public class AndroidDatabase extends Database {
     /* -------------------------------------------------- Transactions -------------------------------------------------- */
     
     /**
-     * Begins a new transaction.
+     * Begins a new transaction if necessary and traces the statement that is about to be executed.
      */
     @Impure
     @NonCommitting
@@ -110,6 +111,13 @@ public class AndroidDatabase extends Database {
         if (!helper.getWritableDatabase().inTransaction()) {
             helper.getWritableDatabase().beginTransaction();
         }
+        traceStatement();
+    }
+    
+    @Pure
+    @Override
+    protected boolean hasPendingStatements(@Nonnull Transaction transaction) {
+        return helper.getWritableDatabase().inTransaction();
     }
     
     @Impure
@@ -117,7 +125,6 @@ public class AndroidDatabase extends Database {
     protected void commitTransaction() {
         helper.getWritableDatabase().setTransactionSuccessful();
         helper.getWritableDatabase().endTransaction();
-        Log.debugging("Committed the database transaction from $ through $.", Caller.get(6).replace("net.digitalid.", ""), Caller.get(5).replace("net.digitalid.", ""));
         runRunnablesAfterCommit();
     }
     
@@ -125,7 +132,6 @@ public class AndroidDatabase extends Database {
     @Override
     protected void rollbackTransaction() {
         helper.getWritableDatabase().endTransaction();
-        Log.debugging("Rolled back the database transaction from $ through $.", Caller.get(6).replace("net.digitalid.", ""), Caller.get(5).replace("net.digitalid.", ""));
         runRunnablesAfterRollback();
     }
     
@@ -229,6 +235,22 @@ public class AndroidDatabase extends Database {
         return AndroidSelectEncoderBuilder.withSqliteDatabase(helper.getWritableDatabase()).withQuery(stringBuilder.toString()).withSizeWhereArgs(sizeWhereArgs).build();
     }
     
+    /* -------------------------------------------------- Templates -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull SQLActionEncoder getActionEncoder(@Nonnull @SQLStatement String statement, @NonNegative int parameterCount, @Nonnull Unit unit) throws DatabaseException {
+        begin();
+        return AndroidStatementEncoderBuilder.withSqliteDatabase(helper.getWritableDatabase()).withStatement(statement).build();
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull SQLQueryEncoder getQueryEncoder(@Nonnull @SQLStatement String query, @NonNegative int parameterCount, @Nonnull Unit unit) throws DatabaseException {
+        begin();
+        return AndroidSelectEncoderBuilder.withSqliteDatabase(helper.getWritableDatabase()).withQuery(query).withSizeWhereArgs(parameterCount).build();
+    }
+    
     /* -------------------------------------------------- Testing -------------------------------------------------- */
     
     @Override
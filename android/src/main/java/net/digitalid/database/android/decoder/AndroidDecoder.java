@@ -22,6 +22,7 @@ import java.math.BigInteger;
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.contracts.Ensure;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
@@ -57,12 +58,15 @@ public abstract class AndroidDecoder extends SQLDecoder {
     public boolean moveToNextRow() throws DatabaseException {
         final boolean hasNextRow = cursor.moveToNext();
         columnIndex = 0;
+        clearNullBitmap();
         return hasNextRow;
     }
     
     @Impure
     @Override
     public boolean moveToFirstRow() throws DatabaseException {
+        columnIndex = 0;
+        clearNullBitmap();
         return cursor.moveToFirst();
     }
     
@@ -82,6 +86,24 @@ public abstract class AndroidDecoder extends SQLDecoder {
         return cursor.isNull(columnIndex - 1);
     }
     
+    @Pure
+    @Override
+    protected int getColumnIndex() {
+        return columnIndex;
+    }
+    
+    @Impure
+    @Override
+    protected void skipColumns(int count) {
+        this.columnIndex += count;
+    }
+    
+    @Pure
+    @Override
+    protected boolean probeNull(int columnIndex) throws DatabaseException {
+        return cursor.isNull(columnIndex);
+    }
+    
     /* -------------------------------------------------- Decoding -------------------------------------------------- */
     
     @Impure
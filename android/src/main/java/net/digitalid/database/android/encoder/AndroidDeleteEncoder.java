@@ -18,6 +18,7 @@ package net.digitalid.database.android.encoder;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
@@ -46,5 +47,18 @@ public abstract class AndroidDeleteEncoder extends AndroidWhereClauseEncoder imp
     public void execute() throws DatabaseException {
         sqliteDatabase.delete(tableName, whereClause, whereArgs);
     }
-       
+    
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void addBatch() throws DatabaseException {
+        execute();
+        parameterIndex = 0;
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public void executeBatch() throws DatabaseException {}
+    
 }
@@ -55,7 +55,8 @@ public abstract class AndroidEncoder extends SQLEncoderImplementation {
     @Impure
     @Override
     public void close() throws DatabaseException {
-        sqliteDatabase.close();
+        // The SQLite database is shared by all encoders and owned by the open helper of the Android database, which closes it.
+        this.parameterIndex = 0;
     }
     
 }
@@ -17,6 +17,7 @@ package net.digitalid.database.android.encoder;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
@@ -43,4 +44,21 @@ public abstract class AndroidInsertEncoder extends AndroidInsertUpdateEncoder im
         sqliteDatabase.insert(tableName, null, contentValues);
     }
     
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Executes the encoded row immediately as the Android database does not support batching and resets the encoder for the next row.
+     */
+    @Impure
+    @Override
+    public void addBatch() throws DatabaseException {
+        execute();
+        contentValues.clear();
+        parameterIndex = 0;
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public void executeBatch() throws DatabaseException {}
+    
 }
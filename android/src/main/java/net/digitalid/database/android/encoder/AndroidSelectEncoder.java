@@ -17,9 +17,11 @@ package net.digitalid.database.android.encoder;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 
 import net.digitalid.database.android.decoder.AndroidDecoderBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
@@ -49,5 +51,9 @@ public abstract class AndroidSelectEncoder extends AndroidWhereClauseEncoder imp
         final @Nonnull Cursor cursor = sqliteDatabase.rawQuery(query, whereArgs);
         return AndroidDecoderBuilder.withCursor(cursor).build();
     }
-       
+    
+    @Impure
+    @Override
+    public void setFetchSize(@NonNegative int fetchSize) throws DatabaseException {}
+    
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.android.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.size.Size;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * The Android statement encoder binds the values of an unparsed insert, update or delete statement to a compiled SQLite statement.
+ */
+@GenerateBuilder
+@GenerateSubclass
+public abstract class AndroidStatementEncoder extends AndroidEncoder implements SQLActionEncoder {
+    
+    /* -------------------------------------------------- Statement -------------------------------------------------- */
+    
+    /**
+     * The compiled statement to which the values are bound, where the index of the first parameter is 1.
+     */
+    private final @Nonnull SQLiteStatement compiledStatement;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected AndroidStatementEncoder(@Nonnull SQLiteDatabase sqliteDatabase, @Nonnull String statement) {
+        super(sqliteDatabase);
+        this.compiledStatement = sqliteDatabase.compileStatement(statement);
+    }
+    
+    /* -------------------------------------------------- SQL Encoder -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void close() throws DatabaseException {
+        compiledStatement.close();
+        super.close();
+    }
+    
+    @Impure
+    @Override
+    public void encodeNull(int typeCode) throws DatabaseException {
+        compiledStatement.bindNull(++parameterIndex);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBoolean(boolean value) throws DatabaseException {
+        compiledStatement.bindLong(++parameterIndex, value ? 1 : 0);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger08(byte value) throws DatabaseException {
+        compiledStatement.bindLong(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16(short value) throws DatabaseException {
+        compiledStatement.bindLong(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32(int value) throws DatabaseException {
+        compiledStatement.bindLong(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64(long value) throws DatabaseException {
+        compiledStatement.bindLong(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger(@Nonnull BigInteger value) throws DatabaseException {
+        compiledStatement.bindString(++parameterIndex, new String(value.toByteArray()));
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32(float value) throws DatabaseException {
+        compiledStatement.bindDouble(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64(double value) throws DatabaseException {
+        compiledStatement.bindDouble(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString01(char value) throws DatabaseException {
+        compiledStatement.bindString(++parameterIndex, String.valueOf(value));
+    }
+    
+    @Impure
+    @Override
+    public void encodeString64(@Nonnull @MaxSize(64) String value) throws DatabaseException {
+        compiledStatement.bindString(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString(@Nonnull String value) throws DatabaseException {
+        compiledStatement.bindString(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary128(@Nonnull @Size(16) byte[] value) throws DatabaseException {
+        compiledStatement.bindBlob(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary256(@Nonnull @Size(32) byte[] value) throws DatabaseException {
+        compiledStatement.bindBlob(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary(@Nonnull byte[] value) throws DatabaseException {
+        compiledStatement.bindBlob(++parameterIndex, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinaryStream(@Nonnull InputStream stream, int length) throws DatabaseException {
+        final @Nonnull ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            while (stream.available() > 0) {
+                bos.write(stream.read());
+            }
+        } catch (IOException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+        compiledStatement.bindBlob(++parameterIndex, bos.toByteArray());
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    @Override
+    @PureWithSideEffects
+    public void execute() throws DatabaseException {
+        compiledStatement.executeUpdateDelete();
+    }
+    
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Executes the encoded row immediately as the Android database does not support batching and resets the encoder for the next row.
+     */
+    @Impure
+    @Override
+    public void addBatch() throws DatabaseException {
+        execute();
+        compiledStatement.clearBindings();
+        parameterIndex = 0;
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public void executeBatch() throws DatabaseException {}
+    
+}
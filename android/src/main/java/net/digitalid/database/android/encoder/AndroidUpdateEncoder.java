@@ -215,4 +215,19 @@ public abstract class AndroidUpdateEncoder extends AndroidInsertUpdateEncoder im
         }
     }
     
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void addBatch() throws DatabaseException {
+        execute();
+        contentValues.clear();
+        parameterIndex = 0;
+        androidWhereClauseEncoder.parameterIndex = 0;
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public void executeBatch() throws DatabaseException {}
+    
 }
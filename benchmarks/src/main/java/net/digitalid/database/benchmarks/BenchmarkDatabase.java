@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.h2.H2Dialect;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.jdbc.JDBCDatabaseBuilder;
+import net.digitalid.database.sqlite.SQLiteDialect;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The benchmark database configures the library for an in-memory H2 database or a temporary SQLite database
+ * and creates the tables of the {@link BenchmarkEntry benchmark entries} and the {@link BenchmarkSubject benchmark subjects}.
+ */
+@Mutable
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    
+    /* -------------------------------------------------- Engine -------------------------------------------------- */
+    
+    /**
+     * Stores the URL of the in-memory H2 database.
+     */
+    public static final @Nonnull String H2_URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS " + Unit.DEFAULT.getName() + ";MODE=MySQL;";
+    
+    /**
+     * Stores the database engine on which the benchmarks are run.
+     */
+    @Param({"h2", "sqlite"})
+    public String engine;
+    
+    /**
+     * Stores the temporary database file of SQLite or null for H2.
+     */
+    private @Nullable File file;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Impure
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (engine.equals("sqlite")) {
+            file = File.createTempFile("benchmark", ".db");
+            file.deleteOnExit();
+            Database.instance.set(SQLiteBenchmarkDatabaseBuilder.withDriver(new org.sqlite.JDBC()).withURL(SQLiteBenchmarkDatabase.URL_PREFIX + file.getAbsolutePath()).build());
+        } else {
+            Database.instance.set(JDBCDatabaseBuilder.withDriver(new org.h2.Driver()).withURL(H2_URL).withUser("sa").withPassword("sa").build());
+        }
+        Configuration.initializeAllConfigurations();
+        // Several dialect modules register an initializer on the classpath of the benchmarks, which is why the dialect is set explicitly.
+        if (file != null) { SQLiteDialect.initializeDialect(); }
+        else { H2Dialect.initializeDialect(); }
+        
+        SQL.createTable(BenchmarkEntryConverter.INSTANCE, Unit.DEFAULT);
+        SQL.createTable(BenchmarkSubjectConverter.INSTANCE, Unit.DEFAULT);
+        BenchmarkSubjectSubclass.MODULE.accept(table -> SQL.createTable(table, Unit.DEFAULT));
+    }
+    
+    /**
+     * Opens a plain JDBC connection to the benchmark database for the benchmarks that bypass the connection pool.
+     */
+    @Impure
+    @NonCommitting
+    public @Nonnull Connection openConnection() throws SQLException {
+        if (file != null) { return SQLiteBenchmarkDatabase.attachDefaultUnit(DriverManager.getConnection(SQLiteBenchmarkDatabase.URL_PREFIX + file.getAbsolutePath()), file.getAbsolutePath()); }
+        else { return DriverManager.getConnection(H2_URL, "sa", "sa"); }
+    }
+    
+    /* -------------------------------------------------- Teardown -------------------------------------------------- */
+    
+    @Impure
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Database.instance.get().close();
+        if (file != null) { file.delete(); }
+    }
+    
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
+import net.digitalid.utility.validation.annotations.generation.Recover;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.constraints.PrimaryKey;
+
+/**
+ * A benchmark entry is a small row with a key, a string and an integer, which resembles the typical entries of the library.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateTableConverter
+public class BenchmarkEntry {
+    
+    @PrimaryKey
+    public final @Nonnull Long key;
+    
+    public final @Nonnull String name;
+    
+    public final @Nonnull Integer counter;
+    
+    protected BenchmarkEntry(@Nonnull Long key, @Nonnull String name, @Nonnull Integer counter) {
+        this.key = key;
+        this.name = name;
+        this.counter = counter;
+    }
+    
+    @Pure
+    @Recover
+    public static @Nonnull BenchmarkEntry get(@Nonnull Long key, @Nonnull String name, @Nonnull Integer counter) {
+        return new BenchmarkEntry(key, name, counter);
+    }
+    
+}
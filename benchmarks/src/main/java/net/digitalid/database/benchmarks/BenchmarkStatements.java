@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.functional.iterables.InfiniteIterable;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.conversion.SQLUtility;
+import net.digitalid.database.dialect.expression.SQLParameter;
+import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLExpressionsBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatementBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLRowsBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLAllColumnsBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSourceBuilder;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatementBuilder;
+
+/**
+ * This utility class builds the statements on the table of the {@link BenchmarkEntry benchmark entries} in the same way as the SQL facade does.
+ */
+@Utility
+public abstract class BenchmarkStatements {
+    
+    /* -------------------------------------------------- Table -------------------------------------------------- */
+    
+    /**
+     * Returns the qualified name of the benchmark table in the default unit.
+     */
+    @Pure
+    public static @Nonnull SQLQualifiedTable getQualifiedTable() {
+        return SQLUtility.getQualifiedTableName(BenchmarkEntryConverter.INSTANCE, Unit.DEFAULT);
+    }
+    
+    /**
+     * Returns the column names of the benchmark table.
+     */
+    @Pure
+    public static @Nonnull FreezableArrayList<@Nonnull SQLColumnName> getColumns() {
+        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
+        SQLUtility.fillColumnNames(BenchmarkEntryConverter.INSTANCE, columns, "");
+        return columns;
+    }
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    /**
+     * Returns the statement that creates the benchmark table.
+     */
+    @Pure
+    public static @Nonnull SQLCreateTableStatement getCreateTableStatement() {
+        return SQLCreateTableStatementBuilder.withTable(getQualifiedTable()).withColumnDeclarations(SQLUtility.getColumnDeclarations(BenchmarkEntryConverter.INSTANCE)).build();
+    }
+    
+    /**
+     * Returns the statement that inserts a benchmark entry with parameters for all its columns.
+     */
+    @Pure
+    public static @Nonnull SQLInsertStatement getInsertStatement() {
+        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = getColumns();
+        final @Nonnull ImmutableList<@Nonnull SQLParameter> row = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(columns.size()));
+        return SQLInsertStatementBuilder.withTable(getQualifiedTable()).withColumns(ImmutableList.withElementsOf(columns)).withValues(SQLRowsBuilder.withRows(ImmutableList.withElements(SQLExpressionsBuilder.withExpressions(row).build())).build()).withConflictClause(SQLConflictClause.ABORT).build();
+    }
+    
+    /**
+     * Returns the statement that selects all benchmark entries.
+     */
+    @Pure
+    public static @Nonnull SQLSimpleSelectStatement getSelectAllStatement() {
+        final @Nonnull SQLQualifiedTable qualifiedTable = getQualifiedTable();
+        return SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable))).withSources(ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build())).build();
+    }
+    
+    /**
+     * Returns the statement that selects the benchmark entries whose columns equal the parameters.
+     */
+    @Pure
+    public static @Nonnull SQLSimpleSelectStatement getSelectWhereStatement() {
+        final @Nonnull SQLQualifiedTable qualifiedTable = getQualifiedTable();
+        final @Nonnull SQLBooleanExpression whereClause = getColumns().map(column -> column.equal(SQLParameter.BOOLEAN)).reduce((left, right) -> left.and(right));
+        return SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable))).withSources(ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build())).withWhereClause(whereClause).build();
+    }
+    
+}
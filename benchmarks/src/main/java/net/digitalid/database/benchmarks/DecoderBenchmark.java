@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.SQLDecoder;
+import net.digitalid.database.jdbc.decoder.JDBCDecoder;
+import net.digitalid.database.jdbc.decoder.JDBCDecoderBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This benchmark measures how fast the {@link JDBCDecoder JDBC decoder} recovers the entries of a result set.
+ * Each operation executes the query once and recovers all of its rows, so the score has to be multiplied by the number of rows to get the rows per second.
+ */
+@Mutable
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DecoderBenchmark {
+    
+    /* -------------------------------------------------- Rows -------------------------------------------------- */
+    
+    /**
+     * Stores the number of rows that are recovered per operation.
+     */
+    @Param({"100"})
+    public int rows;
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private @Nonnull Connection connection;
+    
+    private @Nonnull String statement;
+    
+    private @Nonnull PreparedStatement preparedStatement;
+    
+    @Impure
+    @Setup(Level.Trial)
+    public void setUp(@Nonnull BenchmarkDatabase database) throws Exception {
+        final @Nonnull List<@Nonnull BenchmarkEntry> entries = new ArrayList<>(rows);
+        for (int index = 0; index < rows; index++) { entries.add(BenchmarkEntry.get((long) index, "entry " + index, index)); }
+        SQL.insertAll(BenchmarkEntryConverter.INSTANCE, entries, Unit.DEFAULT, SQLConflictClause.ABORT);
+        Database.commit();
+        
+        connection = database.openConnection();
+        statement = SQLDialect.unparse(BenchmarkStatements.getSelectAllStatement(), Unit.DEFAULT);
+        preparedStatement = connection.prepareStatement(statement);
+    }
+    
+    @Impure
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        preparedStatement.close();
+        connection.close();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Impure
+    @Benchmark
+    public void recoverEntries(@Nonnull Blackhole blackhole) throws Exception {
+        try (@Nonnull ResultSet resultSet = preparedStatement.executeQuery()) {
+            final @Nonnull SQLDecoder decoder = JDBCDecoderBuilder.withResultSet(resultSet).withStatement(statement).withUnit(Unit.DEFAULT).build();
+            while (decoder.moveToNextRow()) {
+                blackhole.consume(BenchmarkEntryConverter.INSTANCE.recover(decoder, null));
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.jdbc.JDBCSlowStatementLog;
+import net.digitalid.database.jdbc.encoder.JDBCActionEncoder;
+import net.digitalid.database.jdbc.encoder.JDBCActionEncoderBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures how fast the {@link JDBCActionEncoder JDBC encoder} binds the values of an entry to the parameters of a prepared statement.
+ * The statement is not executed so that only the binding is measured.
+ */
+@Mutable
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EncoderBenchmark {
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private final @Nonnull BenchmarkEntry entry = BenchmarkEntry.get(1L, "benchmark", 42);
+    
+    private @Nonnull Connection connection;
+    
+    private @Nonnull PreparedStatement preparedStatement;
+    
+    private @Nonnull JDBCActionEncoder encoder;
+    
+    @Impure
+    @Setup(Level.Trial)
+    public void setUp(@Nonnull BenchmarkDatabase database) throws Exception {
+        connection = database.openConnection();
+        final @Nonnull String statement = SQLDialect.unparse(BenchmarkStatements.getInsertStatement(), Unit.DEFAULT);
+        preparedStatement = connection.prepareStatement(statement);
+        // The encoder treats the statement as cached so that closing the encoder only clears the parameters.
+        encoder = JDBCActionEncoderBuilder.withPreparedStatement(preparedStatement).withCached(true).withStatement(statement).withUnit(Unit.DEFAULT).withSlowStatementLog(JDBCSlowStatementLog.DISABLED).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
+    }
+    
+    @Impure
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        preparedStatement.close();
+        connection.close();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Impure
+    @Benchmark
+    public void bindEntry() throws Exception {
+        encoder.encodeObject(BenchmarkEntryConverter.INSTANCE, entry);
+        encoder.close();
+    }
+    
+}
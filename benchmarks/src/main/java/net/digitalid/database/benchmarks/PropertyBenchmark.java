@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.interfaces.Database;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the paths of the persistent properties, which load their values lazily and commit every change.
+ */
+@Mutable
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PropertyBenchmark {
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private final @Nonnull BenchmarkSubject subject = BenchmarkSubjectBuilder.withKey(1).build();
+    
+    private int counter = 0;
+    
+    @Impure
+    @Setup(Level.Trial)
+    public void setUp(@Nonnull BenchmarkDatabase database) throws Exception {
+        SQL.insertOrAbort(BenchmarkSubjectConverter.INSTANCE, subject, Unit.DEFAULT);
+        Database.commit();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Impure
+    @Benchmark
+    public void set() throws Exception {
+        subject.counter().set(++counter);
+    }
+    
+    @Impure
+    @Benchmark
+    public void add() throws Exception {
+        subject.numbers().add(++counter);
+    }
+    
+    /**
+     * Returns the value of the property, which is loaded from the database only once.
+     */
+    @Impure
+    @Benchmark
+    public @Nonnull Integer get() throws Exception {
+        return subject.counter().get();
+    }
+    
+    /**
+     * Resets the property before returning its value so that the value is loaded from the database every time.
+     */
+    @Impure
+    @Benchmark
+    public @Nonnull Integer resetAndGet() throws Exception {
+        subject.counter().reset();
+        final @Nonnull Integer value = subject.counter().get();
+        Database.commit();
+        return value;
+    }
+    
+}
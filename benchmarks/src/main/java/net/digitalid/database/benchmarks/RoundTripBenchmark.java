@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.conversion.WhereConditionBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.interfaces.Database;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the round trips of the {@link SQL SQL facade} including the commit of the transaction.
+ * Each benchmark method runs in its own fork so that the inserted entries do not affect the other measurements.
+ */
+@Mutable
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RoundTripBenchmark {
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    /**
+     * Stores the number of entries in the table before the benchmarks are run.
+     */
+    private static final int ROWS = 100;
+    
+    private long nextKey = ROWS;
+    
+    private @Nonnull BenchmarkEntry current = BenchmarkEntry.get(0L, "entry 0", 0);
+    
+    @Impure
+    @Setup(Level.Trial)
+    public void setUp(@Nonnull BenchmarkDatabase database) throws Exception {
+        final @Nonnull List<@Nonnull BenchmarkEntry> entries = new ArrayList<>(ROWS);
+        for (int index = 0; index < ROWS; index++) { entries.add(BenchmarkEntry.get((long) index, "entry " + index, index)); }
+        SQL.insertAll(BenchmarkEntryConverter.INSTANCE, entries, Unit.DEFAULT, SQLConflictClause.ABORT);
+        Database.commit();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Impure
+    @Benchmark
+    public void insert() throws Exception {
+        SQL.insertOrAbort(BenchmarkEntryConverter.INSTANCE, BenchmarkEntry.get(nextKey++, "inserted", 0), Unit.DEFAULT);
+        Database.commit();
+    }
+    
+    @Impure
+    @Benchmark
+    public @Nonnull FreezableList<BenchmarkEntry> selectAll() throws Exception {
+        final @Nonnull FreezableList<BenchmarkEntry> entries = SQL.selectAll(BenchmarkEntryConverter.INSTANCE, null, Unit.DEFAULT);
+        Database.commit();
+        return entries;
+    }
+    
+    @Impure
+    @Benchmark
+    public void update() throws Exception {
+        final @Nonnull BenchmarkEntry updated = BenchmarkEntry.get(current.key, current.name, current.counter + 1);
+        SQL.update(BenchmarkEntryConverter.INSTANCE, updated, Unit.DEFAULT, WhereConditionBuilder.withConverter(BenchmarkEntryConverter.INSTANCE).withObject(current).build());
+        Database.commit();
+        current = updated;
+    }
+    
+    /**
+     * Deletes an entry and inserts it again in the same transaction so that the table does not run empty.
+     */
+    @Impure
+    @Benchmark
+    public void deleteAndInsert() throws Exception {
+        SQL.delete(BenchmarkEntryConverter.INSTANCE, Unit.DEFAULT, WhereConditionBuilder.withConverter(BenchmarkEntryConverter.INSTANCE).withObject(current).build());
+        SQL.insertOrAbort(BenchmarkEntryConverter.INSTANCE, current, Unit.DEFAULT);
+        Database.commit();
+    }
+    
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.jdbc.JDBCDatabase;
+
+/**
+ * This class attaches the database file under the name of the default unit to every connection,
+ * since SQLite has no schemas and the library qualifies all tables with the name of their unit.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public abstract class SQLiteBenchmarkDatabase extends JDBCDatabase {
+    
+    /* -------------------------------------------------- URL -------------------------------------------------- */
+    
+    /**
+     * Stores the prefix of all SQLite URLs, which is followed by the path of the database file.
+     */
+    public static final @Nonnull String URL_PREFIX = "jdbc:sqlite:";
+    
+    /* -------------------------------------------------- Attachment -------------------------------------------------- */
+    
+    /**
+     * Attaches the given database file under the name of the default unit to the given connection and returns the connection.
+     */
+    @Impure
+    @NonCommitting
+    public static @Nonnull Connection attachDefaultUnit(@Nonnull Connection connection, @Nonnull String path) throws SQLException {
+        final boolean autoCommit = connection.getAutoCommit();
+        // SQLite cannot attach a database within a transaction.
+        connection.setAutoCommit(true);
+        try (@Nonnull Statement statement = connection.createStatement()) {
+            statement.execute("ATTACH DATABASE '" + path + "' AS \"" + Unit.DEFAULT.getName() + "\"");
+        }
+        connection.setAutoCommit(autoCommit);
+        return connection;
+    }
+    
+    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    @NonCommitting
+    protected @Nonnull Connection openConnection() throws SQLException {
+        return attachDefaultUnit(super.openConnection(), getURL().substring(URL_PREFIX.length()));
+    }
+    
+}
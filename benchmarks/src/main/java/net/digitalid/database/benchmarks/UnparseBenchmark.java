@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
+import net.digitalid.database.h2.H2Dialect;
+import net.digitalid.database.mysql.MySQLDialect;
+import net.digitalid.database.postgres.PostgresDialect;
+import net.digitalid.database.sqlite.SQLiteDialect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures how fast the statements of the {@link net.digitalid.database.conversion.SQL SQL facade} are unparsed in each dialect.
+ */
+@Mutable
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UnparseBenchmark {
+    
+    /* -------------------------------------------------- Dialect -------------------------------------------------- */
+    
+    /**
+     * Stores the dialect in which the statements are unparsed.
+     */
+    @Param({"default", "h2", "mysql", "postgres", "sqlite"})
+    public String dialect;
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    private @Nonnull SQLCreateTableStatement createTableStatement;
+    
+    private @Nonnull SQLInsertStatement insertStatement;
+    
+    private @Nonnull SQLSimpleSelectStatement selectStatement;
+    
+    @Impure
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (dialect) {
+            case "h2": H2Dialect.initializeDialect(); break;
+            case "mysql": MySQLDialect.initializeDialect(); break;
+            case "postgres": PostgresDialect.initializeDialect(); break;
+            case "sqlite": SQLiteDialect.initializeDialect(); break;
+            default: break;
+        }
+        
+        createTableStatement = BenchmarkStatements.getCreateTableStatement();
+        insertStatement = BenchmarkStatements.getInsertStatement();
+        selectStatement = BenchmarkStatements.getSelectWhereStatement();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Pure
+    @Benchmark
+    public @Nonnull String unparseCreateTable() {
+        return SQLDialect.unparse(createTableStatement, Unit.DEFAULT);
+    }
+    
+    @Pure
+    @Benchmark
+    public @Nonnull String unparseInsert() {
+        return SQLDialect.unparse(insertStatement, Unit.DEFAULT);
+    }
+    
+    @Pure
+    @Benchmark
+    public @Nonnull String unparseSelect() {
+        return SQLDialect.unparse(selectStatement, Unit.DEFAULT);
+    }
+    
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.storage.Table;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.interfaces.AsyncDatabase;
+import net.digitalid.database.interfaces.DatabaseFuture;
+
+/**
+ * This class executes the statements of the {@link SQL} facade asynchronously on the executor of the {@link AsyncDatabase}.
+ * Each method performs its statement within its own transaction, which is committed once the statement succeeded.
+ * Several statements that have to be executed within the same transaction can be passed together to {@link AsyncDatabase#inTransaction(net.digitalid.database.interfaces.TransactionalWork)}.
+ */
+@Utility
+public abstract class AsyncSQL {
+    
+    /* -------------------------------------------------- Insert -------------------------------------------------- */
+    
+    /**
+     * Inserts the given object with the given conflict clause asynchronously into the given table in the given unit.
+     * 
+     * @see SQL#insert(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.dialect.statement.insert.SQLConflictClause)
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable TYPE> @Nonnull DatabaseFuture<Void> insert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) {
+        return AsyncDatabase.inTransaction(transaction -> {
+            SQL.insert(table, object, unit, conflictClause);
+            return null;
+        });
+    }
+    
+    /**
+     * Inserts the given objects with the given conflict clause asynchronously into the given table in the given unit.
+     * 
+     * @see SQL#insertAll(net.digitalid.utility.storage.Table, java.lang.Iterable, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.dialect.statement.insert.SQLConflictClause)
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable TYPE> @Nonnull DatabaseFuture<Void> insertAll(@Nonnull Table<TYPE, ?> table, @Nonnull @NonNullableElements Iterable<? extends TYPE> objects, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) {
+        return AsyncDatabase.inTransaction(transaction -> {
+            SQL.insertAll(table, objects, unit, conflictClause);
+            return null;
+        });
+    }
+    
+    /* -------------------------------------------------- Update -------------------------------------------------- */
+    
+    /**
+     * Updates the rows of the given table that match the given where conditions asynchronously with the given object in the given unit.
+     * 
+     * @see SQL#update(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.conversion.WhereCondition...)
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable UPDATE_TYPE> @Nonnull DatabaseFuture<Void> update(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull UPDATE_TYPE updateObject, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return AsyncDatabase.inTransaction(transaction -> {
+            SQL.update(updateTable, updateObject, unit, whereConditions);
+            return null;
+        });
+    }
+    
+    /* -------------------------------------------------- Delete -------------------------------------------------- */
+    
+    /**
+     * Deletes the rows of the given table that match the given where conditions asynchronously in the given unit.
+     * 
+     * @see SQL#delete(net.digitalid.utility.storage.Table, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.conversion.WhereCondition...)
+     */
+    @Impure
+    @Committing
+    public static @Nonnull DatabaseFuture<Void> delete(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return AsyncDatabase.inTransaction(transaction -> {
+            SQL.delete(deleteTable, unit, whereConditions);
+            return null;
+        });
+    }
+    
+    /* -------------------------------------------------- Select -------------------------------------------------- */
+    
+    /**
+     * Returns the entries of the given table that match the given where conditions in the given unit asynchronously.
+     * 
+     * @see SQL#selectAll(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.conversion.WhereCondition...)
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull DatabaseFuture<@Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE>> selectAll(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return AsyncDatabase.inReadOnlyTransaction(transaction -> SQL.selectAll(selectTable, provided, unit, whereConditions));
+    }
+    
+    /**
+     * Returns the first entry of the given table that matches the given where conditions in the given unit or null if there is no such entry asynchronously.
+     * 
+     * @see SQL#selectFirst(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.conversion.WhereCondition...)
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull DatabaseFuture<@Nullable SELECT_TYPE> selectFirst(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return AsyncDatabase.inReadOnlyTransaction(transaction -> SQL.selectFirst(selectTable, provided, unit, whereConditions));
+    }
+    
+    /**
+     * Returns the first entry of the given table that matches the given where conditions in the given unit asynchronously.
+     * The returned future fails with a recovery exception if there is no such entry.
+     * 
+     * @see SQL#selectOne(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.conversion.WhereCondition...)
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull DatabaseFuture<@Nonnull SELECT_TYPE> selectOne(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return AsyncDatabase.inReadOnlyTransaction(transaction -> SQL.selectOne(selectTable, provided, unit, whereConditions));
+    }
+    
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.model.CustomField;
+import net.digitalid.utility.conversion.model.CustomType;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.Table;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.dialect.expression.SQLParameter;
+import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.identifier.column.SQLColumnNameBuilder;
+import net.digitalid.database.dialect.statement.table.create.SQLColumnDeclaration;
+import net.digitalid.database.interfaces.ColumnPlan;
+
+/**
+ * A converter schema describes how the fields of a converter are flattened into the columns of a table when prefixed with a given string.
+ * The schema is derived only once per converter and prefix and then {@link #of(Converter, String) cached} so that
+ * the {@link SQL SQL facade} and the {@link SQLUtility SQL utility} no longer walk the fields of the converter for every statement.
+ * Only the column names depend on the prefix, the types and nullability of the columns are read from the {@link ColumnPlan column plan}
+ * that the encoders and decoders share.
+ */
+@Immutable
+public class ConverterSchema {
+    
+    /* -------------------------------------------------- Converter -------------------------------------------------- */
+    
+    private final @Nonnull Converter<?, ?> converter;
+    
+    /**
+     * Returns the converter whose fields are described by this schema.
+     */
+    @Pure
+    public @Nonnull Converter<?, ?> getConverter() {
+        return converter;
+    }
+    
+    /* -------------------------------------------------- Prefix -------------------------------------------------- */
+    
+    private final @Nonnull String prefix;
+    
+    /**
+     * Returns the prefix of the columns of this schema.
+     */
+    @Pure
+    public @Nonnull String getPrefix() {
+        return prefix;
+    }
+    
+    /* -------------------------------------------------- Columns -------------------------------------------------- */
+    
+    private final @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames;
+    
+    /**
+     * Returns the names of the flattened columns in the order in which the converter encodes them.
+     */
+    @Pure
+    public @Nonnull ImmutableList<@Nonnull SQLColumnName> getColumnNames() {
+        return columnNames;
+    }
+    
+    /**
+     * Returns the number of flattened columns.
+     */
+    @Pure
+    public @NonNegative int getColumnCount() {
+        return columnNames.size();
+    }
+    
+    private final @Nonnull ColumnPlan columnPlan;
+    
+    /**
+     * Returns the shared plan of the flattened columns, which provides their types and nullability independently of the prefix.
+     */
+    @Pure
+    public @Nonnull ColumnPlan getColumnPlan() {
+        return columnPlan;
+    }
+    
+    /**
+     * Returns the primitive custom type of the column at the given index.
+     */
+    @Pure
+    public @Nonnull CustomType getColumnType(@NonNegative int index) {
+        return columnPlan.getColumnType(index);
+    }
+    
+    /**
+     * Returns the SQL type as defined in {@link java.sql.Types} of the column at the given index.
+     */
+    @Pure
+    public int getSQLType(@NonNegative int index) {
+        return columnPlan.getSQLType(index);
+    }
+    
+    /**
+     * Returns whether the column at the given index can be null, either because its field is not annotated with {@link Nonnull} or because it belongs to a nullable object.
+     */
+    @Pure
+    public boolean isNullable(@NonNegative int index) {
+        return columnPlan.isNullable(index);
+    }
+    
+    /**
+     * Adds the names of the columns of the given converter with the given prefix to the given list in the order of the {@link ColumnPlan column plan}.
+     */
+    @Pure
+    private static void collectColumnNames(@Nonnull Converter<?, ?> converter, @Nonnull String prefix, @Nonnull @Modified FreezableArrayList<@Nonnull SQLColumnName> names) {
+        for (@Nonnull CustomField field : converter.getFields(Representation.INTERNAL)) {
+            final @Nonnull CustomType customType = field.getCustomType();
+            if (customType.isCompositeType()) { throw new UnsupportedOperationException("Composite types such as iterables or maps are currently not supported by the SQL encoders"); }
+            final @Nonnull String columnName;
+            if (converter.isPrimitiveConverter()) {
+                Require.that(!prefix.isEmpty()).orThrow("The primitive converter $ requires a prefix.", converter);
+                columnName = prefix;
+            } else {
+                columnName = prefix.isEmpty() ? field.getName() : prefix + "_" + field.getName();
+                if (customType.isObjectType()) {
+                    final @Nonnull Converter<?, ?> fieldConverter = ((CustomType.CustomConverterType) customType).getConverter();
+                    if (!fieldConverter.isPrimitiveConverter()) {
+                        collectColumnNames(fieldConverter, columnName, names);
+                        continue;
+                    }
+                }
+            }
+            names.add(SQLColumnNameBuilder.withString(columnName.toLowerCase()).build());
+        }
+    }
+    
+    /* -------------------------------------------------- Equality Condition -------------------------------------------------- */
+    
+    private volatile @Nullable SQLBooleanExpression equalityCondition;
+    
+    /**
+     * Returns the condition that each column of this schema equals a parameter, which is used for the where clauses of the SQL facade.
+     * As the condition is shared between all statements that use it, it is only built once per schema.
+     */
+    @Pure
+    public @Nonnull SQLBooleanExpression getEqualityCondition() {
+        @Nullable SQLBooleanExpression result = equalityCondition;
+        if (result == null) {
+            final @Nonnull FiniteIterable<@Nonnull SQLBooleanExpression> expressions = columnNames.map(column -> column.equal(SQLParameter.BOOLEAN));
+            result = expressions.reduce((left, right) -> left.and(right));
+            this.equalityCondition = result;
+        }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Column Declarations -------------------------------------------------- */
+    
+    private volatile @Nullable ImmutableList<@Nonnull SQLColumnDeclaration> columnDeclarations;
+    
+    /**
+     * Returns the column declarations of the converter, which are only derived on the first call as they are only needed to create tables.
+     */
+    @Pure
+    public @Nonnull ImmutableList<@Nonnull SQLColumnDeclaration> getColumnDeclarations() {
+        @Nullable ImmutableList<@Nonnull SQLColumnDeclaration> result = columnDeclarations;
+        if (result == null) {
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnDeclaration> declarations = FreezableArrayList.withNoElements();
+            SQLUtility.fillColumnDeclarations(converter, declarations, false, false, multiplePrimaryKeys, true, prefix);
+            result = ImmutableList.withElementsOf(declarations);
+            this.columnDeclarations = result;
+        }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Primary Key -------------------------------------------------- */
+    
+    private final boolean multiplePrimaryKeys;
+    
+    /**
+     * Returns whether the converter has several fields annotated with {@link net.digitalid.database.annotations.constraints.PrimaryKey} or a primary key that consists of several columns.
+     */
+    @Pure
+    public boolean hasMultiplePrimaryKeys() {
+        return multiplePrimaryKeys;
+    }
+    
+    private final boolean primaryKeySpecified;
+    
+    /**
+     * Returns whether at least one field of the converter is annotated with {@link net.digitalid.database.annotations.constraints.PrimaryKey}.
+     */
+    @Pure
+    public boolean isPrimaryKeySpecified() {
+        return primaryKeySpecified;
+    }
+    
+    /**
+     * Returns true if the given field translates to multiple columns.
+     */
+    @Pure
+    private static boolean consistsOfMultipleColumns(@Nonnull CustomField customField) {
+        final @Nonnull CustomType fieldType = customField.getCustomType();
+        if (fieldType.isObjectType()) {
+            final @Nonnull CustomType.CustomConverterType converterType = (CustomType.CustomConverterType) fieldType;
+            if (converterType.getConverter().getFields(Representation.INTERNAL).size() > 1) {
+                return true;
+            } else {
+                return consistsOfMultipleColumns(converterType.getConverter().getFields(Representation.INTERNAL).getFirst());
+            }
+        } else {
+            return false;
+        }
+    }
+    
+    /**
+     * Returns true if the given converter has multiple fields annotated with {@link net.digitalid.database.annotations.constraints.PrimaryKey}.
+     */
+    @Pure
+    private static boolean detectMultiplePrimaryKeys(@Nonnull Converter<?, ?> converter) {
+        boolean hasOne = false;
+        for (@Nonnull CustomField customField : converter.getFields(Representation.INTERNAL)) {
+            if (SQLUtility.isPrimaryKey(customField)) {
+                if (hasOne || consistsOfMultipleColumns(customField)) {
+                    return true;
+                }
+                hasOne = true;
+            }
+        }
+        return false;
+    }
+    
+    private volatile @Nullable ImmutableList<@Nonnull SQLColumnName> primaryKeyColumns;
+    
+    /**
+     * Returns the columns of the composite primary key if the converter {@link #hasMultiplePrimaryKeys() has multiple primary keys} and an empty list otherwise.
+     */
+    @Pure
+    public @Nonnull ImmutableList<@Nonnull SQLColumnName> getPrimaryKeyColumns() {
+        @Nullable ImmutableList<@Nonnull SQLColumnName> result = primaryKeyColumns;
+        if (result == null) {
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
+            if (multiplePrimaryKeys) {
+                for (@Nonnull CustomField customField : converter.getFields(Representation.INTERNAL)) {
+                    if (SQLUtility.isPrimaryKey(customField)) {
+                        final @Nonnull CustomType fieldType = customField.getCustomType();
+                        if (fieldType.isObjectType() && !((CustomType.CustomConverterType) fieldType).getConverter().isPrimitiveConverter()) {
+                            for (@Nonnull SQLColumnName column : of(((CustomType.CustomConverterType) fieldType).getConverter(), customField.getName().toLowerCase()).getColumnNames()) { columns.add(column); }
+                        } else {
+                            columns.add(SQLColumnNameBuilder.withString(customField.getName()).build());
+                        }
+                    }
+                }
+            }
+            result = ImmutableList.withElementsOf(columns);
+            this.primaryKeyColumns = result;
+        }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Foreign Keys -------------------------------------------------- */
+    
+    /**
+     * A foreign key consists of the columns of a field that references the entries of another table.
+     */
+    @Immutable
+    public static class ForeignKey {
+        
+        private final @Nonnull Table<?, ?> referencedTable;
+        
+        /**
+         * Returns the table that is referenced by this foreign key.
+         */
+        @Pure
+        public @Nonnull Table<?, ?> getReferencedTable() {
+            return referencedTable;
+        }
+        
+        private final @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames;
+        
+        /**
+         * Returns the columns of the referencing table that make up this foreign key.
+         */
+        @Pure
+        public @Nonnull ImmutableList<@Nonnull SQLColumnName> getColumnNames() {
+            return columnNames;
+        }
+        
+        protected ForeignKey(@Nonnull Table<?, ?> referencedTable, @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames) {
+            this.referencedTable = referencedTable;
+            this.columnNames = columnNames;
+        }
+        
+    }
+    
+    private volatile @Nullable ImmutableList<@Nonnull ForeignKey> foreignKeys;
+    
+    /**
+     * Returns the foreign keys of the fields of the converter that reference other tables.
+     * The foreign keys are only derived on the first call as they are only needed to create tables.
+     */
+    @Pure
+    public @Nonnull ImmutableList<@Nonnull ForeignKey> getForeignKeys() {
+        @Nullable ImmutableList<@Nonnull ForeignKey> result = foreignKeys;
+        if (result == null) {
+            final @Nonnull FreezableArrayList<@Nonnull ForeignKey> keys = FreezableArrayList.withNoElements();
+            for (@Nonnull CustomField customField : converter.getFields(Representation.INTERNAL)) {
+                final @Nonnull CustomType fieldType = customField.getCustomType();
+                if (fieldType.isObjectType()) {
+                    final @Nonnull Converter<?, ?> referenceConverter = ((CustomType.CustomConverterType) fieldType).getConverter();
+                    if (referenceConverter instanceof Table<?, ?>) {
+                        keys.add(new ForeignKey((Table<?, ?>) referenceConverter, of(referenceConverter, customField.getName().toLowerCase()).getColumnNames()));
+                    }
+                }
+            }
+            result = ImmutableList.withElementsOf(keys);
+            this.foreignKeys = result;
+        }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected ConverterSchema(@Nonnull Converter<?, ?> converter, @Nonnull String prefix) {
+        this.converter = converter;
+        this.prefix = prefix;
+        
+        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> names = FreezableArrayList.withNoElements();
+        collectColumnNames(converter, prefix, names);
+        this.columnNames = ImmutableList.withElementsOf(names);
+        this.columnPlan = ColumnPlan.of(converter);
+        Require.that(columnNames.size() == columnPlan.getColumnCount()).orThrow("The schema of the converter $ has to name each column of its plan.", converter);
+        
+        this.multiplePrimaryKeys = detectMultiplePrimaryKeys(converter);
+        boolean primaryKeySpecified = false;
+        for (@Nonnull CustomField customField : converter.getFields(Representation.INTERNAL)) {
+            if (SQLUtility.isPrimaryKey(customField)) { primaryKeySpecified = true; }
+        }
+        this.primaryKeySpecified = primaryKeySpecified;
+    }
+    
+    /* -------------------------------------------------- Cache -------------------------------------------------- */
+    
+    /**
+     * Caches the schemas by their converter and prefix.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull List<@Nonnull Object>, @Nonnull ConverterSchema> schemas = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the (cached) schema of the given converter with the given prefix.
+     */
+    @Pure
+    public static @Nonnull ConverterSchema of(@Nonnull Converter<?, ?> converter, @Nonnull String prefix) {
+        final @Nonnull List<@Nonnull Object> key = Arrays.<Object>asList(converter, prefix);
+        final @Nullable ConverterSchema cachedSchema = schemas.get(key);
+        if (cachedSchema != null) { return cachedSchema; }
+        
+        final @Nonnull ConverterSchema schema = new ConverterSchema(converter, prefix);
+        final @Nullable ConverterSchema previousSchema = schemas.putIfAbsent(key, schema);
+        return previousSchema != null ? previousSchema : schema;
+    }
+    
+    /**
+     * Returns the (cached) schema of the given converter without a prefix.
+     */
+    @Pure
+    public static @Nonnull ConverterSchema of(@Nonnull Converter<?, ?> converter) {
+        return of(converter, "");
+    }
+    
+    /**
+     * Clears the cached schemas and {@link ColumnPlan column plans}, which is only necessary if the structure of a converter changes at runtime.
+     */
+    @PureWithSideEffects
+    public static void clear() {
+        schemas.clear();
+        ColumnPlan.clear();
+    }
+    
+}
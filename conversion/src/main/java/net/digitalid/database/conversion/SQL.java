@@ -15,6 +15,11 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -23,26 +28,39 @@ import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.collections.list.FreezableArrayList;
 import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.conversion.exceptions.RecoveryExceptionBuilder;
 import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.functional.failable.FailableConsumer;
+import net.digitalid.utility.functional.interfaces.UnaryFunction;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.functional.iterables.InfiniteIterable;
 import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.storage.Table;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.type.Utility;
 
+import net.digitalid.database.annotations.sql.SQLStatement;
 import net.digitalid.database.annotations.transaction.Committing;
 import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.SQLParameter;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
 import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.identifier.column.SQLColumnNameBuilder;
 import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatementBuilder;
@@ -52,10 +70,14 @@ import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatementBuilder;
 import net.digitalid.database.dialect.statement.insert.SQLRows;
 import net.digitalid.database.dialect.statement.insert.SQLRowsBuilder;
+import net.digitalid.database.dialect.statement.select.ordered.SQLOrderedSelectStatement;
+import net.digitalid.database.dialect.statement.select.ordered.SQLOrderedSelectStatementBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
 import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLAllColumns;
 import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLAllColumnsBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLResultColumn;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLResultColumnBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSource;
 import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSourceBuilder;
 import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
@@ -70,6 +92,7 @@ import net.digitalid.database.dialect.statement.update.SQLUpdateStatementBuilder
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
 import net.digitalid.database.interfaces.SQLDecoder;
+import net.digitalid.database.interfaces.columns.ColumnBuffer;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
 
@@ -86,6 +109,146 @@ public abstract class SQL {
      */
     public static final @Nonnull Configuration<Boolean> configuration = Configuration.with(Boolean.TRUE).addDependency(Database.instance);
     
+    /**
+     * Stores the number of rows after which the batch of a bulk operation is executed.
+     */
+    public static final @Nonnull Configuration<@Nonnull @Positive Integer> batchSize = Configuration.with(1000);
+    
+    /**
+     * Stores the number of rows that are fetched at once when the entries of a table are selected with a cursor.
+     */
+    public static final @Nonnull Configuration<@Nonnull @NonNegative Integer> fetchSize = Configuration.with(100);
+    
+    /**
+     * Stores the maximum number of statement templates that are cached, after which the least recently used template is evicted.
+     */
+    public static final @Nonnull Configuration<@Nonnull @Positive Integer> templateCacheSize = Configuration.with(1000);
+    
+    /* -------------------------------------------------- Templates -------------------------------------------------- */
+    
+    /**
+     * A template stores a statement in its unparsed form together with the number of its parameters.
+     */
+    @Immutable
+    private static final class Template {
+        
+        private final @Nonnull @SQLStatement String statement;
+        
+        private final @NonNegative int parameterCount;
+        
+        private Template(@Nonnull @SQLStatement String statement, @NonNegative int parameterCount) {
+            this.statement = statement;
+            this.parameterCount = parameterCount;
+        }
+        
+        /**
+         * Returns the unparsed statement of this template.
+         */
+        @Pure
+        public @Nonnull @SQLStatement String getStatement() {
+            return statement;
+        }
+        
+        /**
+         * Returns the number of parameters in the statement of this template.
+         */
+        @Pure
+        public @NonNegative int getParameterCount() {
+            return parameterCount;
+        }
+        
+    }
+    
+    /**
+     * Caches the templates by their key in access order so that the least recently used template is evicted first once the configured {@link #templateCacheSize} is exceeded.
+     * As the templates only store strings, an evicted template does not keep any statement nodes, tables or units in memory.
+     */
+    private static final @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Template> templates = new LinkedHashMap<@Nonnull List<@Nonnull Object>, @Nonnull Template>(16, 0.75f, true) {
+        
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<@Nonnull List<@Nonnull Object>, @Nonnull Template> eldest) {
+            return size() > templateCacheSize.get();
+        }
+        
+    };
+    
+    /**
+     * Returns the key under which the template of the given kind for the given table, unit, conflict clause and where conditions is cached.
+     * Only the shape of the where conditions (i.e. their converters and prefixes) is part of the key as their objects are encoded as parameters.
+     * The configured dialect is part of the key as well since the template is unparsed in this dialect.
+     */
+    @Pure
+    private static @Nonnull List<@Nonnull Object> getTemplateKey(@Nonnull String kind, @Nonnull Table<?, ?> table, @Nonnull Unit unit, @Nullable SQLConflictClause conflictClause, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        final @Nonnull List<@Nonnull Object> key = new ArrayList<>(5 + 2 * whereConditions.length);
+        key.add(kind);
+        key.add(SQLDialect.instance.get());
+        key.add(table);
+        key.add(unit);
+        if (conflictClause != null) { key.add(conflictClause); }
+        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) {
+            key.add(whereCondition.getConverter());
+            key.add(whereCondition.getPrefix());
+        }
+        return key;
+    }
+    
+    /**
+     * Returns the template that is cached under the given key or null if there is no such template.
+     */
+    @Pure
+    private static @Nullable Template getCachedTemplate(@Nonnull List<@Nonnull Object> key) {
+        synchronized (templates) {
+            return templates.get(key);
+        }
+    }
+    
+    /**
+     * Returns the number of parameters in the where clause with the given where conditions, which is the number of columns of their shapes.
+     */
+    @Pure
+    private static @NonNegative int getParameterCount(@Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        int parameterCount = 0;
+        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) {
+            parameterCount += ConverterSchema.of(whereCondition.getConverter(), whereCondition.getPrefix()).getColumnCount();
+        }
+        return parameterCount;
+    }
+    
+    /**
+     * Unparses the given statement with the given number of parameters at the given unit in the configured dialect and caches the resulting template under the given key.
+     * The number of parameters is derived from the shapes of the table and where conditions so that it does not depend on how the dialect unparses the statement.
+     */
+    @Pure
+    private static @Nonnull Template cacheTemplate(@Nonnull List<@Nonnull Object> key, @Nonnull SQLNode statement, @NonNegative int parameterCount, @Nonnull Unit unit) {
+        final @Nonnull StringBuilder string = new StringBuilder();
+        SQLDialect.instance.get().unparse(statement, unit, string);
+        final @Nonnull Template template = new Template(string.toString(), parameterCount);
+        synchronized (templates) {
+            templates.put(key, template);
+        }
+        return template;
+    }
+    
+    /**
+     * Returns an action encoder for the given template in the given unit.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static @Nonnull SQLActionEncoder getActionEncoder(@Nonnull Template template, @Nonnull Unit unit) throws DatabaseException {
+        return Database.instance.get().getActionEncoder(template.getStatement(), template.getParameterCount(), unit);
+    }
+    
+    /**
+     * Clears the cached templates and {@link ConverterSchema schemas}, which is only necessary if the structure of a table changes at runtime.
+     */
+    @PureWithSideEffects
+    public static void clearTemplates() {
+        ConverterSchema.clear();
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+    
     /* -------------------------------------------------- Create Table -------------------------------------------------- */
     
     /**
@@ -127,18 +290,30 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     public static <@Unspecifiable TYPE> void insert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
-        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
-        SQLUtility.fillColumnNames(table, columns, "");
+        try (@Nonnull SQLActionEncoder actionEncoder = getActionEncoder(getInsertTemplate(table, unit, conflictClause), unit)) {
+            actionEncoder.encodeObject(table, object);
+            actionEncoder.execute();
+        }
+    }
+    
+    /**
+     * Returns the (cached) insert template for the given table in the given unit with the given conflict clause.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getInsertTemplate(@Nonnull Table<?, ?> table, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("insert", table, unit, conflictClause);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
+        
+        final @Nonnull ImmutableList<@Nonnull SQLColumnName> columns = ConverterSchema.of(table).getColumnNames();
         
         final @Nonnull ImmutableList<@Nonnull SQLParameter> row = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(columns.size()));
         final @Nonnull SQLRows rows = SQLRowsBuilder.withRows(ImmutableList.withElements(SQLExpressionsBuilder.withExpressions(row).build())).build();
         
         final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(table, unit);
-        final SQLInsertStatement insertStatement = SQLInsertStatementBuilder.withTable(qualifiedTable).withColumns(ImmutableList.withElementsOf(columns)).withValues(rows).withConflictClause(conflictClause).build();
-        
-        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(insertStatement, unit);
-        actionEncoder.encodeObject(table, object);
-        actionEncoder.execute();
+        final @Nonnull SQLInsertStatement insertStatement = SQLInsertStatementBuilder.withTable(qualifiedTable).withColumns(columns).withValues(rows).withConflictClause(conflictClause).build();
+        return cacheTemplate(key, insertStatement, columns.size(), unit);
     }
     
     /**
@@ -168,6 +343,25 @@ public abstract class SQL {
         insert(table, object, unit, SQLConflictClause.REPLACE);
     }
     
+    /**
+     * Inserts the given objects with the given converter into its table in the given unit.
+     * The rows are sent to the database in batches of the configured {@link #batchSize}.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> void insertAll(@Nonnull Table<TYPE, ?> table, @Nonnull @NonNullableElements Iterable<? extends TYPE> objects, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        try (@Nonnull SQLActionEncoder actionEncoder = getActionEncoder(getInsertTemplate(table, unit, conflictClause), unit)) {
+            final int size = batchSize.get();
+            int count = 0;
+            for (@Nonnull TYPE object : objects) {
+                actionEncoder.encodeObject(table, object);
+                actionEncoder.addBatch();
+                if (++count % size == 0) { actionEncoder.executeBatch(); }
+            }
+            actionEncoder.executeBatch();
+        }
+    }
+    
     /* -------------------------------------------------- Where -------------------------------------------------- */
     
     @Pure
@@ -175,12 +369,7 @@ public abstract class SQL {
     private static @Nullable SQLBooleanExpression getWhereClause(@Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
         @Nullable SQLBooleanExpression whereClause = null;
         for (@Nonnull WhereCondition<?> whereCondition : whereConditions) {
-            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
-            SQLUtility.fillColumnNames(whereCondition.getConverter(), columns, whereCondition.getPrefix());
-            
-            final @Nonnull FiniteIterable<@Nonnull SQLBooleanExpression> expressions = columns.map(column -> column.equal(SQLParameter.BOOLEAN));
-            final @Nonnull SQLBooleanExpression expression = expressions.reduce((left, right) -> left.and(right));
-            
+            final @Nonnull SQLBooleanExpression expression = ConverterSchema.of(whereCondition.getConverter(), whereCondition.getPrefix()).getEqualityCondition();
             if (whereClause == null) { whereClause = expression; }
             else { whereClause = whereClause.and(expression); }
         }
@@ -195,16 +384,59 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     public static <@Unspecifiable UPDATE_TYPE, @Unspecifiable WHERE_TYPE> void update(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull UPDATE_TYPE updateObject, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        try (@Nonnull SQLActionEncoder actionEncoder = getActionEncoder(getUpdateTemplate(updateTable, unit, whereConditions), unit)) {
+            actionEncoder.encodeObject(updateTable, updateObject);
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
+            actionEncoder.execute();
+        }
+    }
+    
+    /**
+     * Returns the (cached) update template for the given table in the given unit with the given where conditions.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getUpdateTemplate(@Nonnull Table<?, ?> updateTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("update", updateTable, unit, null, whereConditions);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
+        
         final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(updateTable, unit);
-        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
-        SQLUtility.fillColumnNames(updateTable, columns, "");
+        final @Nonnull ImmutableList<@Nonnull SQLColumnName> columns = ConverterSchema.of(updateTable).getColumnNames();
         final @Nonnull FiniteIterable<SQLAssignment> assignments = columns.map(column -> SQLAssignmentBuilder.withColumn(column).withExpression(SQLParameter.INSTANCE).build());
-        final SQLUpdateStatement updateStatement = SQLUpdateStatementBuilder.withTable(qualifiedTable).withAssignments(ImmutableList.withElementsOf(assignments)).withWhereClause(getWhereClause(whereConditions)).build();
+        final @Nonnull SQLUpdateStatement updateStatement = SQLUpdateStatementBuilder.withTable(qualifiedTable).withAssignments(ImmutableList.withElementsOf(assignments)).withWhereClause(getWhereClause(whereConditions)).build();
+        return cacheTemplate(key, updateStatement, columns.size() + getParameterCount(whereConditions), unit);
+    }
     
-        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(updateStatement, unit);
-        actionEncoder.encodeObject(updateTable, updateObject);
-        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
-        actionEncoder.execute();
+    /**
+     * Updates the columns of the given converter to the values of each of the given objects with the where condition that the given function returns for the object in the given unit.
+     * All where conditions have to use the same converter and prefix. The rows are sent to the database in batches of the configured {@link #batchSize}.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable UPDATE_TYPE> void updateAll(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull @NonNullableElements Iterable<? extends UPDATE_TYPE> updateObjects, @Nonnull Unit unit, @Nonnull UnaryFunction<? super UPDATE_TYPE, ? extends @Nonnull WhereCondition<?>> whereConditionFunction) throws DatabaseException {
+        final int size = batchSize.get();
+        @Nullable WhereCondition<?> firstWhereCondition = null;
+        @Nullable SQLActionEncoder actionEncoder = null;
+        int count = 0;
+        try {
+            for (@Nonnull UPDATE_TYPE updateObject : updateObjects) {
+                final @Nonnull WhereCondition<?> whereCondition = whereConditionFunction.evaluate(updateObject);
+                if (firstWhereCondition == null) {
+                    firstWhereCondition = whereCondition;
+                    actionEncoder = getActionEncoder(getUpdateTemplate(updateTable, unit, whereCondition), unit);
+                } else {
+                    Require.that(whereCondition.getConverter() == firstWhereCondition.getConverter() && whereCondition.getPrefix().equals(firstWhereCondition.getPrefix())).orThrow("All where conditions of a batched update have to use the same converter and prefix but $ differs from $.", whereCondition, firstWhereCondition);
+                }
+                actionEncoder.encodeObject(updateTable, updateObject);
+                whereCondition.encode(actionEncoder);
+                actionEncoder.addBatch();
+                if (++count % size == 0) { actionEncoder.executeBatch(); }
+            }
+            if (actionEncoder != null) { actionEncoder.executeBatch(); }
+        } finally {
+            if (actionEncoder != null) { actionEncoder.close(); }
+        }
     }
     
     /* -------------------------------------------------- Delete -------------------------------------------------- */
@@ -215,12 +447,54 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     public static <@Unspecifiable WHERE_TYPE> void delete(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        try (@Nonnull SQLActionEncoder actionEncoder = getActionEncoder(getDeleteTemplate(deleteTable, unit, whereConditions), unit)) {
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
+            actionEncoder.execute();
+        }
+    }
+    
+    /**
+     * Returns the (cached) delete template for the given table in the given unit with the given where conditions.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getDeleteTemplate(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("delete", deleteTable, unit, null, whereConditions);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
+        
         final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(deleteTable, unit);
-        final SQLDeleteStatement deleteStatement = SQLDeleteStatementBuilder.withTable(qualifiedTable).withWhereClause(getWhereClause(whereConditions)).build();
+        final @Nonnull SQLDeleteStatement deleteStatement = SQLDeleteStatementBuilder.withTable(qualifiedTable).withWhereClause(getWhereClause(whereConditions)).build();
+        return cacheTemplate(key, deleteStatement, getParameterCount(whereConditions), unit);
+    }
     
-        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(deleteStatement, unit);
-        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
-        actionEncoder.execute();
+    /**
+     * Deletes the entries of the given table that match any of the given where conditions in the given unit.
+     * All where conditions have to use the same converter and prefix. The rows are sent to the database in batches of the configured {@link #batchSize}.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static void deleteAll(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements Iterable<? extends @Nonnull WhereCondition<?>> whereConditions) throws DatabaseException {
+        final int size = batchSize.get();
+        @Nullable WhereCondition<?> firstWhereCondition = null;
+        @Nullable SQLActionEncoder actionEncoder = null;
+        int count = 0;
+        try {
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) {
+                if (firstWhereCondition == null) {
+                    firstWhereCondition = whereCondition;
+                    actionEncoder = getActionEncoder(getDeleteTemplate(deleteTable, unit, whereCondition), unit);
+                } else {
+                    Require.that(whereCondition.getConverter() == firstWhereCondition.getConverter() && whereCondition.getPrefix().equals(firstWhereCondition.getPrefix())).orThrow("All where conditions of a batched delete have to use the same converter and prefix but $ differs from $.", whereCondition, firstWhereCondition);
+                }
+                whereCondition.encode(actionEncoder);
+                actionEncoder.addBatch();
+                if (++count % size == 0) { actionEncoder.executeBatch(); }
+            }
+            if (actionEncoder != null) { actionEncoder.executeBatch(); }
+        } finally {
+            if (actionEncoder != null) { actionEncoder.close(); }
+        }
     }
     
     /* -------------------------------------------------- Select -------------------------------------------------- */
@@ -228,14 +502,52 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     private static @Capturable SQLDecoder getDecoder(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        return getDecoder(selectTable, unit, 0, whereConditions);
+    }
+    
+    @NonCommitting
+    @PureWithSideEffects
+    private static @Capturable SQLDecoder getDecoder(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @NonNegative int fetchSize, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        return getDecoder(getSelectTemplate(selectTable, unit, whereConditions), unit, fetchSize, whereConditions);
+    }
+    
+    /**
+     * Executes the given select template with the given where conditions in the given unit and returns the decoder of the result.
+     * The query encoder is closed right away, whereas the returned decoder has to be closed by the caller.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static @Capturable SQLDecoder getDecoder(@Nonnull Template selectTemplate, @Nonnull Unit unit, @NonNegative int fetchSize, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        try (@Nonnull SQLQueryEncoder queryEncoder = Database.instance.get().getQueryEncoder(selectTemplate.getStatement(), selectTemplate.getParameterCount(), unit)) {
+            if (fetchSize > 0) { queryEncoder.setFetchSize(fetchSize); }
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(queryEncoder); }
+            return queryEncoder.execute();
+        }
+    }
+    
+    /**
+     * Returns a select statement for the given table in the given unit with the given where conditions.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull SQLSimpleSelectStatement getSelectStatement(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
         final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
         final @Nonnull ImmutableList<SQLAllColumns> columns = ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable));
         final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
-        final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(getWhereClause(whereConditions)).build();
+        return SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(getWhereClause(whereConditions)).build();
+    }
+    
+    /**
+     * Returns the (cached) select template for the given table in the given unit with the given where conditions.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getSelectTemplate(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("select", selectTable, unit, null, whereConditions);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
         
-        final @Nonnull SQLQueryEncoder queryEncoder = Database.instance.get().getEncoder(selectStatement, unit);
-        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(queryEncoder); }
-        return queryEncoder.execute();
+        return cacheTemplate(key, getSelectStatement(selectTable, unit, whereConditions), getParameterCount(whereConditions), unit);
     }
     
     /**
@@ -244,14 +556,41 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE> selectAll(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
-        final @Nonnull SQLDecoder decoder = getDecoder(selectTable, unit, whereConditions);
-        final @Nonnull FreezableArrayList<SELECT_TYPE> results = FreezableArrayList.withNoElements();
-        if (decoder.moveToNextRow()) {
-            do {
-                results.add(selectTable.recover(decoder, provided));
-            } while (decoder.moveToNextRow());
+        try (@Nonnull SQLDecoder decoder = getDecoder(selectTable, unit, whereConditions)) {
+            final @Nonnull FreezableArrayList<SELECT_TYPE> results = FreezableArrayList.withNoElements();
+            if (decoder.moveToNextRow()) {
+                do {
+                    results.add(selectTable.recover(decoder, provided));
+                } while (decoder.moveToNextRow());
+            }
+            return results;
+        }
+    }
+    
+    /**
+     * Returns a cursor over the entries of the given table with the given where conditions in the given unit.
+     * The entries are recovered one at a time and fetched in chunks of the configured {@link #fetchSize}.
+     * <p>
+     * <em>Important:</em> The cursor has to be closed if it is not iterated to the end!
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull SQLCursor<SELECT_TYPE, PROVIDED> selectCursor(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        return new SQLCursor<>(getDecoder(selectTable, unit, fetchSize.get(), whereConditions), selectTable, provided);
+    }
+    
+    /**
+     * Passes each entry of the given table with the given where conditions in the given unit to the given consumer
+     * without keeping the recovered entries in memory and closes the underlying result set afterwards.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED, @Unspecifiable EXCEPTION extends Exception> void selectEach(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull FailableConsumer<? super SELECT_TYPE, ? extends EXCEPTION> consumer, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException, EXCEPTION {
+        try (@Nonnull SQLCursor<SELECT_TYPE, PROVIDED> cursor = selectCursor(selectTable, provided, unit, whereConditions)) {
+            while (cursor.moveToNextRow()) {
+                consumer.consume(cursor.recover());
+            }
         }
-        return results;
     }
     
     /**
@@ -260,8 +599,24 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nullable SELECT_TYPE selectFirst(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
-        final @Nonnull FreezableList<SELECT_TYPE> results = selectAll(selectTable, provided, unit, whereConditions);
-        if (results.isEmpty()) { return null; } else { return results.getFirst(); }
+        try (@Nonnull SQLDecoder decoder = getDecoder(getSelectFirstTemplate(selectTable, unit, whereConditions), unit, 0, whereConditions)) {
+            if (decoder.moveToNextRow()) { return selectTable.recover(decoder, provided); }
+            else { return null; }
+        }
+    }
+    
+    /**
+     * Returns the (cached) select template for the given table in the given unit with the given where conditions that is limited to the first row.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getSelectFirstTemplate(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("selectFirst", selectTable, unit, null, whereConditions);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
+        
+        final @Nonnull SQLOrderedSelectStatement selectStatement = SQLOrderedSelectStatementBuilder.withSelectStatement(getSelectStatement(selectTable, unit, whereConditions)).withLimit(1).build();
+        return cacheTemplate(key, selectStatement, getParameterCount(whereConditions), unit);
     }
     
     /**
@@ -286,4 +641,120 @@ public abstract class SQL {
         else { return entry; }
     }
     
-}
+    /* -------------------------------------------------- Select Any -------------------------------------------------- */
+    
+    /**
+     * Returns the disjunction of the given number of copies of the given condition as a balanced tree.
+     */
+    @Pure
+    private static @Nonnull SQLBooleanExpression getDisjunction(@Nonnull SQLBooleanExpression condition, @Positive int count) {
+        if (count == 1) { return condition; }
+        else { return getDisjunction(condition, count / 2).or(getDisjunction(condition, count - count / 2)); }
+    }
+    
+    /**
+     * Returns the (cached) select template for the given table in the given unit that matches any of the given number of where conditions with the same shape as the given where condition.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getSelectAnyTemplate(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull WhereCondition<?> whereCondition, @Positive int count) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("selectAny", selectTable, unit, null, whereCondition);
+        key.add(count);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
+        
+        final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
+        final @Nonnull ImmutableList<SQLAllColumns> columns = ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable));
+        final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
+        final @Nonnull ConverterSchema schema = ConverterSchema.of(whereCondition.getConverter(), whereCondition.getPrefix());
+        final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(getDisjunction(schema.getEqualityCondition(), count)).build();
+        return cacheTemplate(key, selectStatement, count * schema.getColumnCount(), unit);
+    }
+    
+    /**
+     * Adds the entries of the given table that match any of the given where conditions in the given unit to the given results.
+     * The where conditions are padded with copies of the last one to the next power of two so that only few statement shapes are cached.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> void selectAny(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements @NonEmpty List<@Nonnull WhereCondition<?>> whereConditions, @NonCaptured @Modified @Nonnull FreezableList<SELECT_TYPE> results) throws DatabaseException, RecoveryException {
+        final int count = Integer.highestOneBit(whereConditions.size()) == whereConditions.size() ? whereConditions.size() : Integer.highestOneBit(whereConditions.size()) << 1;
+        final @Nonnull WhereCondition<?> lastWhereCondition = whereConditions.get(whereConditions.size() - 1);
+        while (whereConditions.size() < count) { whereConditions.add(lastWhereCondition); }
+        final @Nonnull WhereCondition<?>[] array = whereConditions.toArray(new WhereCondition<?>[count]);
+        try (@Nonnull SQLDecoder decoder = getDecoder(getSelectAnyTemplate(selectTable, unit, lastWhereCondition, count), unit, fetchSize.get(), array)) {
+            while (decoder.moveToNextRow()) { results.add(selectTable.recover(decoder, provided)); }
+        }
+    }
+    
+    /**
+     * Returns the entries of the given table that match any of the given where conditions in the given unit.
+     * All where conditions have to use the same converter and prefix. Instead of one query per where condition, the where conditions are
+     * combined into as few queries as the {@link SQLDialect#getMaximumParameterCount() parameter limit} of the dialect and the configured {@link #batchSize} allow.
+     * Duplicate entries are possible if the same where condition is given more than once.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE> selectAllMatchingAny(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements Iterable<? extends @Nonnull WhereCondition<?>> whereConditions) throws DatabaseException, RecoveryException {
+        final @Nonnull FreezableArrayList<SELECT_TYPE> results = FreezableArrayList.withNoElements();
+        final @Nonnull List<@Nonnull WhereCondition<?>> chunk = new ArrayList<>();
+        int size = 0;
+        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) {
+            if (chunk.isEmpty()) {
+                final int columnCount = Math.max(1, ConverterSchema.of(whereCondition.getConverter(), whereCondition.getPrefix()).getColumnCount());
+                size = Integer.highestOneBit(Math.max(1, Math.min(batchSize.get(), SQLDialect.instance.get().getMaximumParameterCount() / columnCount)));
+            } else {
+                Require.that(whereCondition.getConverter() == chunk.get(0).getConverter() && whereCondition.getPrefix().equals(chunk.get(0).getPrefix())).orThrow("All where conditions of a combined select have to use the same converter and prefix but $ differs from $.", whereCondition, chunk.get(0));
+            }
+            chunk.add(whereCondition);
+            if (chunk.size() == size) {
+                selectAny(selectTable, provided, unit, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) { selectAny(selectTable, provided, unit, chunk, results); }
+        return results;
+    }
+    
+    /* -------------------------------------------------- Select Columns -------------------------------------------------- */
+    
+    /**
+     * Returns the (cached) select template for the columns with the given names of the given table in the given unit with the given where conditions.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull Template getSelectColumnsTemplate(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements List<@Nonnull String> columnNames, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> key = getTemplateKey("selectColumns", selectTable, unit, null, whereConditions);
+        key.add(columnNames);
+        final @Nullable Template cachedTemplate = getCachedTemplate(key);
+        if (cachedTemplate != null) { return cachedTemplate; }
+        
+        final @Nonnull List<@Nonnull SQLResultColumn> resultColumns = new ArrayList<>(columnNames.size());
+        for (@Nonnull String columnName : columnNames) { resultColumns.add(SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString(columnName).build()).build()); }
+        final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
+        final @Nonnull ImmutableList<SQLResultColumn> columns = ImmutableList.withElementsOf(resultColumns);
+        final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
+        final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(getWhereClause(whereConditions)).build();
+        return cacheTemplate(key, selectStatement, getParameterCount(whereConditions), unit);
+    }
+    
+    /**
+     * Decodes the columns of the given buffers from the entries of the given table with the given where conditions in the given unit
+     * directly into the buffers without recovering the entries, which allows to scan a large number of rows with minimal allocation.
+     * The columns are identified by the names of the buffers and must not contain null values.
+     * 
+     * @return the number of rows that were appended to each of the given buffers.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @NonNegative int selectColumns(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements @NonEmpty List<? extends ColumnBuffer> buffers, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        Require.that(!buffers.isEmpty()).orThrow("At least one column has to be selected.");
+        
+        final @Nonnull List<@Nonnull String> columnNames = new ArrayList<>(buffers.size());
+        for (@Nonnull ColumnBuffer buffer : buffers) { columnNames.add(buffer.getColumnName()); }
+        try (@Nonnull SQLDecoder decoder = getDecoder(getSelectColumnsTemplate(selectTable, unit, columnNames, whereConditions), unit, fetchSize.get(), whereConditions)) {
+            return decoder.decodeColumns(buffers.toArray(new ColumnBuffer[buffers.size()]));
+        }
+    }
+    
+}
\ No newline at end of file
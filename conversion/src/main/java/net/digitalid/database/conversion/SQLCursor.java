@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.storage.Table;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.SQLDecoder;
+
+/**
+ * An SQL cursor recovers the selected entries of a table one row at a time so that large results can be processed in constant memory.
+ * The cursor closes the underlying result set as soon as the last row has been passed or when it is closed explicitly.
+ *
+ * @see SQL#selectCursor(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, net.digitalid.database.conversion.WhereCondition...)
+ */
+@Mutable
+public class SQLCursor<@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> implements AutoCloseable {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull SQLDecoder decoder;
+    
+    private final @Nonnull Table<SELECT_TYPE, PROVIDED> table;
+    
+    private final @Shared PROVIDED provided;
+    
+    private boolean positioned = false;
+    
+    private boolean closed = false;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    SQLCursor(@Nonnull SQLDecoder decoder, @Nonnull Table<SELECT_TYPE, PROVIDED> table, @Shared PROVIDED provided) {
+        this.decoder = decoder;
+        this.table = table;
+        this.provided = provided;
+    }
+    
+    /* -------------------------------------------------- Iteration -------------------------------------------------- */
+    
+    /**
+     * Moves this cursor to the next row and returns whether there was another row.
+     * If there are no more rows, the cursor is closed.
+     */
+    @Impure
+    public boolean moveToNextRow() throws DatabaseException {
+        if (closed) { return false; }
+        positioned = decoder.moveToNextRow();
+        if (!positioned) { close(); }
+        return positioned;
+    }
+    
+    /**
+     * Recovers the entry of the current row.
+     *
+     * @require the cursor has been {@link #moveToNextRow() moved} to a row.
+     */
+    @Impure
+    public @Nonnull SELECT_TYPE recover() throws DatabaseException, RecoveryException {
+        Require.that(positioned && !closed).orThrow("The cursor has to be moved to a row before an entry can be recovered.");
+        return table.recover(decoder, provided);
+    }
+    
+    /**
+     * Moves this cursor to the next row and recovers its entry or returns null if there are no more rows.
+     */
+    @Impure
+    public @Nullable SELECT_TYPE next() throws DatabaseException, RecoveryException {
+        return moveToNextRow() ? recover() : null;
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Returns whether this cursor has been closed.
+     */
+    @Pure
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Closes the underlying result set. Closing a cursor more than once has no effect.
+     */
+    @Impure
+    @Override
+    public void close() throws DatabaseException {
+        if (!closed) {
+            closed = true;
+            positioned = false;
+            decoder.close();
+        }
+    }
+    
+}
@@ -23,7 +23,6 @@ import javax.annotation.Nullable;
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.parameter.Modified;
-import net.digitalid.utility.annotations.state.Modifiable;
 import net.digitalid.utility.collections.list.FreezableArrayList;
 import net.digitalid.utility.collections.list.FreezableLinkedList;
 import net.digitalid.utility.collections.list.FreezableList;
@@ -80,7 +79,6 @@ import net.digitalid.database.dialect.statement.table.create.SQLReferenceOptionB
 import net.digitalid.database.dialect.statement.table.create.SQLTypeBuilder;
 import net.digitalid.database.dialect.statement.table.create.constraints.SQLForeignKeyConstraint;
 import net.digitalid.database.dialect.statement.table.create.constraints.SQLForeignKeyConstraintBuilder;
-import net.digitalid.database.dialect.statement.table.create.constraints.SQLPrimaryKeyConstraint;
 import net.digitalid.database.dialect.statement.table.create.constraints.SQLPrimaryKeyConstraintBuilder;
 import net.digitalid.database.dialect.statement.table.create.constraints.SQLTableConstraint;
 import net.digitalid.database.interfaces.encoder.SQLEncoder;
@@ -111,39 +109,12 @@ public abstract class SQLUtility {
         return customField.isAnnotatedWith(PrimaryKey.class);
     }
     
-    /**
-     * Returns true if the given field translates to multiple columns.
-     */
-    @Pure
-    private static boolean consistsOfMultipleColumns(@Nonnull CustomField customField) {
-        final @Nonnull CustomType fieldType = customField.getCustomType();
-        if (fieldType.isObjectType()) {
-            final @Nonnull CustomType.CustomConverterType converterType = (CustomType.CustomConverterType) fieldType;
-            if (converterType.getConverter().getFields(Representation.INTERNAL).size() > 1) {
-                return true;
-            } else {
-                return consistsOfMultipleColumns(converterType.getConverter().getFields(Representation.INTERNAL).getFirst());
-            }
-        } else {
-            return false;
-        }
-    }
-    
     /**
      * Returns true if the type has multiple fields annotated with {@link PrimaryKey}.
      */
     @Pure
     public static boolean hasMultiplePrimaryKeys(@Nonnull Converter<?, ?> converter) {
-        boolean hasOne = false;
-        for (@Nonnull CustomField customField : converter.getFields(Representation.INTERNAL)) {
-            if (isPrimaryKey(customField)) {
-                if (hasOne || consistsOfMultipleColumns(customField)) {
-                    return true;
-                }
-                hasOne = true;
-            }
-        }
-        return false;
+        return ConverterSchema.of(converter).hasMultiplePrimaryKeys();
     }
     
     /* -------------------------------------------------- Unique -------------------------------------------------- */
@@ -337,9 +308,7 @@ public abstract class SQLUtility {
      */
     @Pure
     public static <@Unspecifiable TYPE> @Nonnull @NonEmpty ImmutableList<@Nonnull SQLColumnDeclaration> getColumnDeclarations(@Nonnull Converter<TYPE, ?> converter) {
-        final @Nonnull @Modifiable FreezableArrayList<@Nonnull SQLColumnDeclaration> columnDeclarations = FreezableArrayList.withNoElements();
-        SQLUtility.fillColumnDeclarations(converter, columnDeclarations, false, false, false, true, "");
-        return ImmutableList.withElementsOf(columnDeclarations);
+        return ConverterSchema.of(converter).getColumnDeclarations();
     }
     
     /* -------------------------------------------------- Column Names -------------------------------------------------- */
@@ -349,29 +318,7 @@ public abstract class SQLUtility {
      */
     @Pure
     public static <@Unspecifiable TYPE> void fillColumnNames(@Nonnull Converter<TYPE, ?> converter, @Nonnull FreezableList<@Nonnull SQLColumnName> columnNames, @Nonnull String prefix) {
-        final @Nonnull ImmutableList<@Nonnull CustomField> fields = converter.getFields(Representation.INTERNAL);
-        for (@Nonnull CustomField field : fields) {
-            if (!field.getCustomType().isCompositeType()) {
-                final @Nonnull String fieldName;
-                if (converter.isPrimitiveConverter()) {
-                    Require.that(!prefix.isEmpty()).orThrow("The primitive converter $ requires a prefix.", converter);
-                    Require.that(!field.getCustomType().isObjectType()).orThrow("The primitive converter $ has a non-primitive field $", converter, field.getName());
-                    fieldName = prefix;
-                } else {
-                    fieldName = prefix.isEmpty() ? field.getName() : prefix + "_" + field.getName();
-                    if (field.getCustomType().isObjectType()) {
-                        final @Nonnull CustomType.CustomConverterType customConverterType = (CustomType.CustomConverterType) field.getCustomType();
-                        if (!customConverterType.getConverter().isPrimitiveConverter()) {
-                            fillColumnNames(customConverterType.getConverter(), columnNames, fieldName);
-                            continue;
-                        }
-                    }
-                }
-                columnNames.add(SQLColumnNameBuilder.withString(fieldName.toLowerCase()).build());
-            } else {
-                throw new UnsupportedOperationException("Composite types such as iterables or maps are currently not supported by the SQL encoders");
-            }
-        }
+        for (@Nonnull SQLColumnName columnName : ConverterSchema.of(converter, prefix).getColumnNames()) { columnNames.add(columnName); }
     }
     
     /**
@@ -379,9 +326,7 @@ public abstract class SQLUtility {
      */
     @Pure
     public static @Nonnull @NonNegative ImmutableList<@Nonnull SQLColumnName> getColumnNames(@Nonnull Converter<?, ?> converter, @Nonnull String prefix) {
-        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columnNames = FreezableArrayList.withNoElements();
-        fillColumnNames(converter, columnNames, prefix);
-        return ImmutableList.withElementsOf(columnNames);
+        return ConverterSchema.of(converter, prefix).getColumnNames();
     }
     
     /**
@@ -414,79 +359,28 @@ public abstract class SQLUtility {
      */
     @Pure
     public static @Nonnull ImmutableList<SQLTableConstraint> getTableConstraints(@Nonnull Table<?, ?> tableConverter, @Nonnull Unit unit) {
+        final @Nonnull ConverterSchema schema = ConverterSchema.of(tableConverter);
         final @Nonnull FreezableList<@Nonnull SQLTableConstraint> tableConstraints = FreezableLinkedList.withNoElements();
-        boolean primaryKeySpecified = false;
-        final boolean multiplePrimaryKeys = hasMultiplePrimaryKeys(tableConverter);
-        final @Nonnull FreezableList<@Nonnull SQLColumnName> primaryKeyColumns = FreezableLinkedList.withNoElements();
-        for (@Nonnull CustomField customField : tableConverter.getFields(Representation.INTERNAL)) {
-            final @Nonnull CustomType fieldType = customField.getCustomType();
-            if (fieldType.isObjectType()) {
-                final @Nonnull CustomType.CustomConverterType customConverterType = (CustomType.CustomConverterType) fieldType;
-                final @Nonnull Converter<?, ?> referenceConverter = customConverterType.getConverter();
-                if (referenceConverter instanceof Table<?, ?>) {
-                    final @Nonnull Table<?, ?> table = (Table<?, ?>) referenceConverter;
-                    if (!table.getTableName(unit).equals(tableConverter.getTableName(unit))) { // TODO: Is this the best way to avoid self-references in core subject tables?
-                        final @Nonnull @NonNullableElements ImmutableList<SQLColumnName> columnNames = ImmutableList.withElementsOf(table.getColumnNames(unit).map(columnName -> SQLColumnNameBuilder.withString(columnName).build()));
-                        if (!columnNames.isEmpty()) {
-                            final @Nonnull SQLExplicitlyQualifiedTable qualifiedTable = SQLExplicitlyQualifiedTableBuilder.withTable(SQLTableNameBuilder.withString(table.getTableName(unit)).build()).withSchema(SQLSchemaNameBuilder.withString(table.getSchemaName(unit)).build()).build();
-                            final @Nonnull SQLReference reference = SQLReferenceBuilder.withTable(qualifiedTable).withColumns(columnNames).withDeleteOption(SQLReferenceOptionBuilder.withAction(table.getOnDeleteAction()).build()).withUpdateOption(SQLReferenceOptionBuilder.withAction(table.getOnUpdateAction()).build()).build();
-                            final @Nonnull SQLForeignKeyConstraint foreignKeyConstraint = SQLForeignKeyConstraintBuilder.withColumns(getColumnNames(referenceConverter, customField.getName().toLowerCase())).withReference(reference).build();
-                            tableConstraints.add(foreignKeyConstraint);
-                        }
-                    }
-                }
-                // TODO: Remove the old implementation as soon as it is no longer needed.
-//                final @Nonnull Class<?> referencedType = referenceConverter.getType();
-//                if (Subject.class.isAssignableFrom(referencedType)) {
-//                    final @Nonnull ImmutableList<@Nonnull SQLColumnName> referencedColumnNames = getColumnNames(referenceConverter);
-//                    final @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames = getColumnNames(referenceConverter, customField.getName().toLowerCase());
-//                    if (columnNames.size() > 0) {
-//                        final @Nonnull String unitName;
-//                        if (referencedType.isAnnotationPresent(UnitName.class)) {
-//                            unitName = referencedType.getAnnotation(UnitName.class).value();
-//                        } else {
-//                            unitName = unit.getName();
-//                        }
-//                        final @Nonnull SQLReference reference = SQLReferenceBuilder.withTable(getQualifiedTableName(referenceConverter, unitName)).withColumns(referencedColumnNames).build();
-//                        final @Nonnull SQLForeignKeyConstraintBuilder.@Nonnull InnerSQLForeignKeyConstraintBuilder sqlForeignKeyConstraintBuilder = SQLForeignKeyConstraintBuilder.withColumns(columnNames).withReference(reference);
-//                        if (referencedType.isAnnotationPresent(ForeignKey.class)) {
-//                            final @Nonnull ForeignKey foreignKeyAnnotation = referencedType.getAnnotation(ForeignKey.class);
-//                            sqlForeignKeyConstraintBuilder.withOnDeleteAction(foreignKeyAnnotation.onDelete()).withOnUpdateAction(foreignKeyAnnotation.onUpdate());
-//                        } else {
-//                            sqlForeignKeyConstraintBuilder.withOnDeleteAction(ForeignKeyAction.RESTRICT).withOnUpdateAction(ForeignKeyAction.RESTRICT);
-//                        }
-//                        final @Nonnull SQLForeignKeyConstraint foreignKeyConstraint = sqlForeignKeyConstraintBuilder.build();
-//                        tableConstraints.add(foreignKeyConstraint);
-//                    }
-//                }
-            } 
-            if (isPrimaryKey(customField)) {
-                primaryKeySpecified = true;
-                if (multiplePrimaryKeys) {
-                    if (fieldType.isObjectType()) {
-                        final @Nonnull Converter<?, ?> fieldTypeConverter = ((CustomType.CustomConverterType) fieldType).getConverter();
-                        if (!fieldTypeConverter.isPrimitiveConverter()) {
-                            fillColumnNames(fieldTypeConverter, primaryKeyColumns, customField.getName().toLowerCase());
-                        } else {
-                            primaryKeyColumns.add(SQLColumnNameBuilder.withString(customField.getName()).build());
-                        }
-                    } else {
-                        primaryKeyColumns.add(SQLColumnNameBuilder.withString(customField.getName()).build());
-                    }
+        for (@Nonnull ConverterSchema.ForeignKey foreignKey : schema.getForeignKeys()) {
+            final @Nonnull Table<?, ?> table = foreignKey.getReferencedTable();
+            if (!table.getTableName(unit).equals(tableConverter.getTableName(unit))) { // TODO: Is this the best way to avoid self-references in core subject tables?
+                final @Nonnull @NonNullableElements ImmutableList<SQLColumnName> columnNames = ImmutableList.withElementsOf(table.getColumnNames(unit).map(columnName -> SQLColumnNameBuilder.withString(columnName).build()));
+                if (!columnNames.isEmpty()) {
+                    final @Nonnull SQLExplicitlyQualifiedTable qualifiedTable = SQLExplicitlyQualifiedTableBuilder.withTable(SQLTableNameBuilder.withString(table.getTableName(unit)).build()).withSchema(SQLSchemaNameBuilder.withString(table.getSchemaName(unit)).build()).build();
+                    final @Nonnull SQLReference reference = SQLReferenceBuilder.withTable(qualifiedTable).withColumns(columnNames).withDeleteOption(SQLReferenceOptionBuilder.withAction(table.getOnDeleteAction()).build()).withUpdateOption(SQLReferenceOptionBuilder.withAction(table.getOnUpdateAction()).build()).build();
+                    final @Nonnull SQLForeignKeyConstraint foreignKeyConstraint = SQLForeignKeyConstraintBuilder.withColumns(foreignKey.getColumnNames()).withReference(reference).build();
+                    tableConstraints.add(foreignKeyConstraint);
                 }
             }
         }
+        final @Nonnull ImmutableList<@Nonnull SQLColumnName> primaryKeyColumns = schema.getPrimaryKeyColumns();
         if (!primaryKeyColumns.isEmpty()) {
-            final @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames = ImmutableList.withElementsOf(primaryKeyColumns);
-            final @Nonnull SQLPrimaryKeyConstraint primaryKeyConstraint = SQLPrimaryKeyConstraintBuilder.withColumns(columnNames).build();
-            tableConstraints.add(primaryKeyConstraint);
+            tableConstraints.add(SQLPrimaryKeyConstraintBuilder.withColumns(primaryKeyColumns).build());
         }
-        if (!primaryKeySpecified) {
-            final @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames = getColumnNames(tableConverter);
-            final @Nonnull SQLPrimaryKeyConstraint primaryKeyConstraint = SQLPrimaryKeyConstraintBuilder.withColumns(columnNames).build();
-            tableConstraints.add(primaryKeyConstraint);
+        if (!schema.isPrimaryKeySpecified()) {
+            tableConstraints.add(SQLPrimaryKeyConstraintBuilder.withColumns(schema.getColumnNames()).build());
         }
         return ImmutableList.withElementsOf(tableConstraints);
     }
-
+    
 }
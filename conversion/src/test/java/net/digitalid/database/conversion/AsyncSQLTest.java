@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
+import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.DatabaseFuture;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests whether the asynchronous SQL statements work.
+ */
+public class AsyncSQLTest extends DatabaseTest {
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    @Test
+    public void shouldInsertAndSelectAsynchronously() throws Exception {
+        SQL.createTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        Database.commit();
+        try {
+            AsyncSQL.insert(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(true), unit, SQLConflictClause.ABORT).get(10, TimeUnit.SECONDS);
+            
+            final @Nonnull DatabaseFuture<FreezableList<SingleBooleanColumnTable>> future = AsyncSQL.selectAll(SingleBooleanColumnTableConverter.INSTANCE, null, unit);
+            final @Nonnull CountDownLatch latch = new CountDownLatch(1);
+            future.addListener(latch::countDown);
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(future.isDone());
+            Assert.assertEquals(1, future.get().size());
+            Assert.assertTrue(future.get().get(0).value);
+        } finally {
+            SQL.dropTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+}
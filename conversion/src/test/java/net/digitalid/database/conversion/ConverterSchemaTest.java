@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.sql.Types;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.immutable.ImmutableList;
+
+import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesConverter;
+import net.digitalid.database.conversion.testenvironment.referenced.EntityConverter;
+import net.digitalid.database.conversion.testenvironment.referenced.ReferencedEntityConverter;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.interfaces.ColumnPlan;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConverterSchemaTest extends DatabaseTest {
+    
+    @Test
+    public void shouldCacheSchemaPerConverterAndPrefix() {
+        Assert.assertSame(ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE), ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE, ""));
+        Assert.assertNotSame(ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE), ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE, "prefix"));
+    }
+    
+    @Test
+    public void shouldFlattenEmbeddedColumns() {
+        final @Nonnull ConverterSchema schema = ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE);
+        final @Nonnull ImmutableList<@Nonnull SQLColumnName> columnNames = schema.getColumnNames();
+        Assert.assertEquals(2, schema.getColumnCount());
+        Assert.assertEquals("convertible1_value", columnNames.get(0).getString());
+        Assert.assertEquals("convertible2_value", columnNames.get(1).getString());
+        Assert.assertEquals(Types.INTEGER, schema.getSQLType(0));
+        Assert.assertFalse(schema.isNullable(0));
+    }
+    
+    @Test
+    public void shouldSharePlanAcrossPrefixes() {
+        final @Nonnull ColumnPlan plan = ColumnPlan.of(EmbeddedConvertiblesConverter.INSTANCE);
+        Assert.assertSame(plan, ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE).getColumnPlan());
+        Assert.assertSame(plan, ConverterSchema.of(EmbeddedConvertiblesConverter.INSTANCE, "prefix").getColumnPlan());
+        Assert.assertEquals(2, plan.getColumnCount());
+        Assert.assertEquals(Types.INTEGER, plan.getSQLType(1));
+    }
+    
+    @Test
+    public void shouldDescribeForeignKeys() {
+        final @Nonnull ConverterSchema schema = ConverterSchema.of(EntityConverter.INSTANCE);
+        Assert.assertEquals(1, schema.getForeignKeys().size());
+        final @Nonnull ConverterSchema.ForeignKey foreignKey = schema.getForeignKeys().get(0);
+        Assert.assertSame(ReferencedEntityConverter.INSTANCE, foreignKey.getReferencedTable());
+        Assert.assertEquals("referencedentity_id", foreignKey.getColumnNames().get(0).getString());
+    }
+    
+}
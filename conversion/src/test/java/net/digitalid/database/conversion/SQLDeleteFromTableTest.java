@@ -15,10 +15,15 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.storage.interfaces.Unit;
 
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTable;
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTableConverter;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1Builder;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1Converter;
@@ -29,6 +34,7 @@ import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConver
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesConverter;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 import net.digitalid.database.testing.DatabaseTest;
 
 import org.junit.Test;
@@ -84,4 +90,33 @@ public class SQLDeleteFromTableTest extends DatabaseTest {
         }
     }
     
+    /**
+     * Tests whether deleting several rows works if the where conditions span more than one batch.
+     */
+    @Test
+    public void shouldDeleteAllAcrossBatches() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final int count = SQL.batchSize.get() + 1;
+            final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> objects = new ArrayList<>(count + 1);
+            final @Nonnull List<@Nonnull WhereCondition<?>> whereConditions = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                final @Nonnull ConstraintIntegerColumnTable object = ConstraintIntegerColumnTable.get(7 * i);
+                objects.add(object);
+                whereConditions.add(WhereConditionBuilder.withConverter(ConstraintIntegerColumnTableConverter.INSTANCE).withObject(object).build());
+            }
+            objects.add(ConstraintIntegerColumnTable.get(0));
+            SQL.insertAll(ConstraintIntegerColumnTableConverter.INSTANCE, objects, unit, SQLConflictClause.ABORT);
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), count + 1);
+            
+            SQL.deleteAll(ConstraintIntegerColumnTableConverter.INSTANCE, unit, whereConditions);
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+            assertTableContains(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), Expected.column("value").value("0"));
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
 }
@@ -15,7 +15,10 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.Arrays;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.storage.interfaces.Unit;
 
@@ -28,17 +31,23 @@ import net.digitalid.database.conversion.testenvironment.embedded.Convertible2Bu
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertibles;
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesBuilder;
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesConverter;
+import net.digitalid.database.conversion.testenvironment.nullable.NullableEmbedded;
+import net.digitalid.database.conversion.testenvironment.nullable.NullableEmbeddedBuilder;
+import net.digitalid.database.conversion.testenvironment.nullable.NullableEmbeddedConverter;
 import net.digitalid.database.conversion.testenvironment.simple.MultiBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.MultiBooleanColumnTableConverter;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
 import net.digitalid.database.testing.DatabaseTest;
 
 import org.h2.jdbc.JdbcBatchUpdateException;
 import org.h2.jdbc.JdbcSQLException;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -92,6 +101,115 @@ public class SQLInsertTableTest extends DatabaseTest {
         }
     }
 
+    @Test
+    public void shouldInsertAllIntoConstraintIntegerColumnTable() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            SQL.insertAll(ConstraintIntegerColumnTableConverter.INSTANCE, Arrays.asList(ConstraintIntegerColumnTable.get(14), ConstraintIntegerColumnTable.get(21), ConstraintIntegerColumnTable.get(28)), unit, SQLConflictClause.ABORT);
+    
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 3);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldInsertNullEmbeddedObject() throws Exception {
+        SQL.createTable(NullableEmbeddedConverter.INSTANCE, unit);
+        try {
+            SQL.insertOrAbort(NullableEmbeddedConverter.INSTANCE, NullableEmbeddedBuilder.withKey(1).withComment("without").build(), unit);
+            
+            assertRowCount(NullableEmbeddedConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+            
+            final @Nullable NullableEmbedded entry = SQL.selectFirst(NullableEmbeddedConverter.INSTANCE, null, unit);
+            Assert.assertNotNull(entry);
+            Assert.assertEquals(1, entry.getKey());
+            Assert.assertNull(entry.getNamedValue());
+            Assert.assertEquals("without", entry.getComment());
+        } finally {
+            SQL.dropTable(NullableEmbeddedConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldInsertWithinScopedTransaction() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            Database.inTransaction(transaction -> {
+                SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit);
+                return null;
+            });
+    
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldRollBackScopedTransactionAsAWhole() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            try {
+                Database.inTransaction(transaction -> {
+                    SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit);
+                    Database.commit();
+                    SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(21), unit);
+                    throw new IllegalStateException("The work failed after a nested commit.");
+                });
+                Assert.fail("The failure of the work should have been propagated.");
+            } catch (@Nonnull IllegalStateException exception) {
+                Assert.assertEquals("The work failed after a nested commit.", exception.getMessage());
+            }
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 0);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldRollBackScopedTransactionOnNestedRollback() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            try {
+                Database.inTransaction(transaction -> {
+                    SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit);
+                    Database.rollback();
+                    return null;
+                });
+                Assert.fail("A scoped transaction whose work requested a rollback should not be committed.");
+            } catch (@Nonnull DatabaseException exception) {
+                Assert.assertTrue(exception.getCause().getMessage().contains("requested a rollback"));
+            }
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 0);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldNotJoinImplicitTransactionWithPendingStatements() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit);
+            try {
+                Database.inTransaction(transaction -> {
+                    SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(21), unit);
+                    return null;
+                });
+                Assert.fail("A scoped transaction should not join an implicit transaction with pending statements.");
+            } catch (@Nonnull DatabaseException exception) {
+                Database.rollback();
+            }
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 0);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
     @Test
     public void shouldNotInsertIntoConstraintIntegerColumnTable() throws Exception {
         SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
@@ -15,6 +15,10 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -28,8 +32,13 @@ import net.digitalid.database.conversion.testenvironment.embedded.Convertible2Bu
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertibles;
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesBuilder;
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesConverter;
+import net.digitalid.database.conversion.testenvironment.nullable.NamedValueBuilder;
+import net.digitalid.database.conversion.testenvironment.nullable.NullableEmbedded;
+import net.digitalid.database.conversion.testenvironment.nullable.NullableEmbeddedBuilder;
+import net.digitalid.database.conversion.testenvironment.nullable.NullableEmbeddedConverter;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.interfaces.columns.Integer32ColumnBuffer;
 import net.digitalid.database.testing.DatabaseTest;
 
 import org.junit.Assert;
@@ -66,6 +75,25 @@ public class SQLSelectFromTableTest extends DatabaseTest {
         }
     }
     
+    /**
+     * Tests whether the rows can be processed one at a time with a cursor.
+     */
+    @Test
+    public void shouldSelectEachFromSimpleBooleanTable() throws Exception {
+        SQL.createTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        try {
+            SQL.insertOrAbort(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(true), unit);
+            SQL.insertOrAbort(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(false), unit);
+            
+            final @Nonnull List<@Nonnull SingleBooleanColumnTable> entries = new ArrayList<>();
+            SQL.selectEach(SingleBooleanColumnTableConverter.INSTANCE, null, unit, entries::add);
+            
+            Assert.assertEquals(2, entries.size());
+        } finally {
+            SQL.dropTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
     /**
      * Tests whether select works on rows with cells that match the where-object.
      */
@@ -94,5 +122,88 @@ public class SQLSelectFromTableTest extends DatabaseTest {
         }
     }
     
+    /**
+     * Tests whether an embedded object whose columns are all null is decoded as null without misaligning the following columns
+     * and whether an embedded object whose columns are only partially null is still decoded.
+     */
+    @Test
+    public void shouldSelectNullableEmbeddedObjects() throws Exception {
+        SQL.createTable(NullableEmbeddedConverter.INSTANCE, unit);
+        try {
+            SQL.insertOrAbort(NullableEmbeddedConverter.INSTANCE, NullableEmbeddedBuilder.withKey(1).withComment("all null").build(), unit);
+            SQL.insertOrAbort(NullableEmbeddedConverter.INSTANCE, NullableEmbeddedBuilder.withKey(2).withComment("partially null").withNamedValue(NamedValueBuilder.withValue(5).build()).build(), unit);
+            SQL.insertOrAbort(NullableEmbeddedConverter.INSTANCE, NullableEmbeddedBuilder.withKey(3).withComment("not null").withNamedValue(NamedValueBuilder.withValue(7).withName("seven").build()).build(), unit);
+            
+            final @Nonnull NullableEmbedded[] entries = new NullableEmbedded[3];
+            for (@Nonnull NullableEmbedded entry : SQL.selectAll(NullableEmbeddedConverter.INSTANCE, null, unit)) { entries[entry.getKey() - 1] = entry; }
+            
+            Assert.assertNotNull(entries[0]);
+            Assert.assertNull(entries[0].getNamedValue());
+            Assert.assertEquals("all null", entries[0].getComment());
+            
+            Assert.assertNotNull(entries[1]);
+            Assert.assertNotNull(entries[1].getNamedValue());
+            Assert.assertEquals(5, entries[1].getNamedValue().getValue());
+            Assert.assertNull(entries[1].getNamedValue().getName());
+            Assert.assertEquals("partially null", entries[1].getComment());
+            
+            Assert.assertNotNull(entries[2]);
+            Assert.assertNotNull(entries[2].getNamedValue());
+            Assert.assertEquals(7, entries[2].getNamedValue().getValue());
+            Assert.assertEquals("seven", entries[2].getNamedValue().getName());
+            Assert.assertEquals("not null", entries[2].getComment());
+        } finally {
+            SQL.dropTable(NullableEmbeddedConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldSelectColumnsIntoBuffers() throws Exception {
+        SQL.createTable(EmbeddedConvertiblesConverter.INSTANCE, unit);
+        try {
+            for (int i = 0; i < 3; i++) {
+                SQL.insertOrAbort(EmbeddedConvertiblesConverter.INSTANCE, EmbeddedConvertiblesBuilder.withConvertible1(Convertible1Builder.withValue(i).build()).withConvertible2(Convertible2Builder.withValue(10 * i).build()).build(), unit);
+            }
+            
+            final @Nonnull Integer32ColumnBuffer values1 = new Integer32ColumnBuffer("convertible1_value", 1);
+            final @Nonnull Integer32ColumnBuffer values2 = new Integer32ColumnBuffer("convertible2_value", 1);
+            final int rows = SQL.selectColumns(EmbeddedConvertiblesConverter.INSTANCE, unit, Arrays.asList(values1, values2));
+            
+            Assert.assertEquals(3, rows);
+            Assert.assertEquals(3, values1.size());
+            Assert.assertEquals(3, values2.size());
+            for (int i = 0; i < rows; i++) { Assert.assertEquals(10 * values1.get(i), values2.get(i)); }
+            Assert.assertEquals(0 + 1 + 2, values1.get(0) + values1.get(1) + values1.get(2));
+        } finally {
+            SQL.dropTable(EmbeddedConvertiblesConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldSelectAllMatchingAnyWhereCondition() throws Exception {
+        SQL.createTable(EmbeddedConvertiblesConverter.INSTANCE, unit);
+        try {
+            for (int i = 0; i < 5; i++) {
+                SQL.insertOrAbort(EmbeddedConvertiblesConverter.INSTANCE, EmbeddedConvertiblesBuilder.withConvertible1(Convertible1Builder.withValue(i).build()).withConvertible2(Convertible2Builder.withValue(10 * i).build()).build(), unit);
+            }
+            
+            final @Nonnull List<@Nonnull WhereCondition<Convertible1>> whereConditions = new ArrayList<>();
+            for (int value : new int[] {1, 3, 4}) {
+                whereConditions.add(WhereConditionBuilder.withConverter(Convertible1Converter.INSTANCE).withObject(Convertible1Builder.withValue(value).build()).withPrefix("convertible1").build());
+            }
+            final @Nonnull List<EmbeddedConvertibles> results = SQL.selectAllMatchingAny(EmbeddedConvertiblesConverter.INSTANCE, null, unit, whereConditions);
+            
+            Assert.assertEquals(3, results.size());
+            int sum = 0;
+            for (@Nonnull EmbeddedConvertibles result : results) {
+                Assert.assertEquals(10 * result.getConvertible1().getValue(), result.getConvertible2().getValue());
+                sum += result.getConvertible1().getValue();
+            }
+            Assert.assertEquals(1 + 3 + 4, sum);
+        } finally {
+            SQL.dropTable(EmbeddedConvertiblesConverter.INSTANCE, unit);
+        }
+    }
+    
     // TODO: add a test with a type that contains an Integer or String field and check whether the prefix is properly constructed.
 }
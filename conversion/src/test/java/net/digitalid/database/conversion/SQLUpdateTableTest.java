@@ -15,10 +15,15 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.storage.interfaces.Unit;
 
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTable;
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTableConverter;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1Builder;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1Converter;
@@ -29,8 +34,10 @@ import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConver
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesConverter;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 import net.digitalid.database.testing.DatabaseTest;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -87,4 +94,30 @@ public class SQLUpdateTableTest extends DatabaseTest {
         }
     }
     
+    @Test
+    public void shouldUpdateAllAcrossBatches() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final int count = SQL.batchSize.get() + 1;
+            final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> objects = new ArrayList<>(count);
+            final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> updatedObjects = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                objects.add(ConstraintIntegerColumnTable.get(7 * i));
+                updatedObjects.add(ConstraintIntegerColumnTable.get(-7 * i));
+            }
+            SQL.insertAll(ConstraintIntegerColumnTableConverter.INSTANCE, objects, unit, SQLConflictClause.ABORT);
+            
+            SQL.updateAll(ConstraintIntegerColumnTableConverter.INSTANCE, updatedObjects, unit, updatedObject -> WhereConditionBuilder.withConverter(ConstraintIntegerColumnTableConverter.INSTANCE).withObject(ConstraintIntegerColumnTable.get(-updatedObject.value)).build());
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), count);
+            assertTableContains(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), Expected.column("value").value("-7"));
+            assertTableContains(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), Expected.column("value").value(String.valueOf(-7 * count)));
+            for (@Nonnull ConstraintIntegerColumnTable object : SQL.selectAll(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit)) {
+                Assert.assertTrue("No row should keep its original value.", object.value < 0);
+            }
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.h2.Driver;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests whether the members of a commit group share their physical commit and still learn about its outcome individually.
+ */
+public class JDBCCommitGroupTest extends DatabaseTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    private static final @Nonnull String URL = "jdbc:h2:mem:groupcommit;DB_CLOSE_DELAY=-1;MODE=MySQL;";
+    
+    /**
+     * Executes the given statement outside of the commit group.
+     */
+    @Impure
+    private static void execute(@Nonnull String statement) throws SQLException {
+        try (@Nonnull Connection connection = DriverManager.getConnection(URL, "sa", "sa"); @Nonnull Statement jdbcStatement = connection.createStatement()) {
+            jdbcStatement.execute(statement);
+        }
+    }
+    
+    @Before
+    public void createTable() throws SQLException {
+        execute("CREATE TABLE IF NOT EXISTS groupcommit (id INT)");
+        execute("DELETE FROM groupcommit");
+    }
+    
+    /**
+     * Returns the sorted identifiers that have been committed to the table.
+     */
+    @Pure
+    private static @Nonnull List<Integer> selectCommittedIdentifiers() throws SQLException {
+        final @Nonnull List<Integer> identifiers = new ArrayList<>();
+        try (@Nonnull Connection connection = DriverManager.getConnection(URL, "sa", "sa"); @Nonnull Statement statement = connection.createStatement(); @Nonnull ResultSet resultSet = statement.executeQuery("SELECT id FROM groupcommit")) {
+            while (resultSet.next()) { identifiers.add(resultSet.getInt(1)); }
+        }
+        Collections.sort(identifiers);
+        return identifiers;
+    }
+    
+    /**
+     * Returns a new database whose implicit read-write transactions are committed through a commit group with the given settings.
+     */
+    @Pure
+    private static @Nonnull JDBCDatabase createDatabase(long window, int maximumSize, long timeout) {
+        return JDBCDatabaseBuilder.withDriver(new Driver()).withURL(URL).withUser("sa").withPassword("sa").withGroupCommitWindow(window).withMaximumGroupCommitSize(maximumSize).withBorrowTimeout(timeout).build();
+    }
+    
+    /**
+     * Inserts the given identifier within the implicit transaction of the current thread and returns the batch which the transaction joined.
+     */
+    @Impure
+    private static @Nonnull JDBCCommitGroup.Batch insert(@Nonnull JDBCDatabase database, int identifier) throws DatabaseException, SQLException {
+        database.joinCommitGroup();
+        try (@Nonnull Statement statement = database.getConnection().createStatement()) {
+            statement.executeUpdate("INSERT INTO groupcommit (id) VALUES (" + identifier + ")");
+        }
+        return ((JDBCTransaction) database.getCurrentTransaction()).getCommitBatch();
+    }
+    
+    /* -------------------------------------------------- Tests -------------------------------------------------- */
+    
+    @Test
+    public void shouldShareOnePhysicalCommitAmongConcurrentMembers() throws Exception {
+        final int members = 4;
+        final @Nonnull JDBCDatabase database = createDatabase(10_000, members, 30_000);
+        final @Nonnull ExecutorService executor = Executors.newFixedThreadPool(members);
+        try {
+            final @Nonnull Set<JDBCCommitGroup.Batch> batches = ConcurrentHashMap.newKeySet();
+            final @Nonnull CountDownLatch start = new CountDownLatch(1);
+            final @Nonnull List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 1; i <= members; i++) {
+                final int identifier = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    batches.add(insert(database, identifier));
+                    database.commitTransaction();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (@Nonnull Future<Object> future : futures) { future.get(10, TimeUnit.SECONDS); }
+            
+            Assert.assertEquals("All members should have joined the same batch.", 1, batches.size());
+            Assert.assertEquals(Arrays.asList(1, 2, 3, 4), selectCommittedIdentifiers());
+        } finally {
+            executor.shutdownNow();
+            database.close();
+        }
+    }
+    
+    @Test
+    public void shouldRollBackMemberToItsSavepointOnly() throws Exception {
+        final @Nonnull JDBCDatabase database = createDatabase(10_000, 2, 30_000);
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull CountDownLatch joined = new CountDownLatch(1);
+            final @Nonnull Future<JDBCCommitGroup.Batch> leader = executor.submit(() -> {
+                final @Nonnull JDBCCommitGroup.Batch batch = insert(database, 1);
+                joined.countDown();
+                database.commitTransaction();
+                return batch;
+            });
+            Assert.assertTrue(joined.await(10, TimeUnit.SECONDS));
+            
+            final @Nonnull JDBCCommitGroup.Batch rolledBackBatch = insert(database, 2);
+            database.rollbackTransaction();
+            final @Nonnull JDBCCommitGroup.Batch committedBatch = insert(database, 3);
+            database.commitTransaction();
+            
+            Assert.assertSame(leader.get(10, TimeUnit.SECONDS), rolledBackBatch);
+            Assert.assertSame(rolledBackBatch, committedBatch);
+            Assert.assertEquals(Arrays.asList(1, 3), selectCommittedIdentifiers());
+        } finally {
+            executor.shutdownNow();
+            database.close();
+        }
+    }
+    
+    @Test
+    public void shouldReportFailedPhysicalCommitToEveryMember() throws Exception {
+        final @Nonnull JDBCDatabase database = createDatabase(10_000, 2, 30_000);
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull AtomicInteger rollbacks = new AtomicInteger();
+            final @Nonnull CountDownLatch joined = new CountDownLatch(1);
+            final @Nonnull Future<Object> leader = executor.submit(() -> {
+                insert(database, 1);
+                database.runAfterRollback(rollbacks::incrementAndGet);
+                joined.countDown();
+                database.commitTransaction();
+                return null;
+            });
+            Assert.assertTrue(joined.await(10, TimeUnit.SECONDS));
+            
+            insert(database, 2);
+            database.runAfterRollback(rollbacks::incrementAndGet);
+            // Closing the shared connection makes the physical commit fail like a connection that is lost.
+            database.getConnection().close();
+            try {
+                database.commitTransaction();
+                Assert.fail("The commit of the member should have failed.");
+            } catch (@Nonnull DatabaseException exception) {
+                // The failure of the physical commit is expected.
+            }
+            try {
+                leader.get(10, TimeUnit.SECONDS);
+                Assert.fail("The commit of the leader should have failed.");
+            } catch (@Nonnull ExecutionException exception) {
+                Assert.assertTrue(exception.getCause() instanceof DatabaseException);
+            }
+            
+            Assert.assertEquals("Every member should have run its after-rollback runnables.", 2, rollbacks.get());
+            Assert.assertEquals(Collections.emptyList(), selectCommittedIdentifiers());
+        } finally {
+            executor.shutdownNow();
+            database.close();
+        }
+    }
+    
+    @Test
+    public void shouldFlushFullBatchBeforeWindowElapses() throws Exception {
+        final @Nonnull JDBCDatabase database = createDatabase(60_000, 2, 30_000);
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull CountDownLatch joined = new CountDownLatch(1);
+            final @Nonnull Future<Object> leader = executor.submit(() -> {
+                insert(database, 1);
+                joined.countDown();
+                database.commitTransaction();
+                return null;
+            });
+            Assert.assertTrue(joined.await(10, TimeUnit.SECONDS));
+            
+            insert(database, 2);
+            database.commitTransaction();
+            // Without the early flush, the leader would wait for the whole window of a minute.
+            leader.get(10, TimeUnit.SECONDS);
+            
+            Assert.assertEquals(Arrays.asList(1, 2), selectCommittedIdentifiers());
+        } finally {
+            executor.shutdownNow();
+            database.close();
+        }
+    }
+    
+    @Test
+    public void shouldAbandonBatchWhenMemberKeepsConnectionTooLong() throws Exception {
+        final @Nonnull JDBCDatabase database = createDatabase(50, 64, 500);
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull CountDownLatch joined = new CountDownLatch(1);
+            final @Nonnull Future<Object> leader = executor.submit(() -> {
+                insert(database, 1);
+                joined.countDown();
+                database.commitTransaction();
+                return null;
+            });
+            Assert.assertTrue(joined.await(10, TimeUnit.SECONDS));
+            
+            // The member keeps the shared connection until the leader has given up waiting for it.
+            insert(database, 2);
+            try {
+                leader.get(10, TimeUnit.SECONDS);
+                Assert.fail("The commit of the leader should have timed out.");
+            } catch (@Nonnull ExecutionException exception) {
+                Assert.assertTrue(exception.getCause() instanceof DatabaseException);
+            }
+            try {
+                database.commitTransaction();
+                Assert.fail("The commit of the member should have failed as its batch was abandoned.");
+            } catch (@Nonnull DatabaseException exception) {
+                // The abandoned batch is expected to be rolled back.
+            }
+            
+            Assert.assertEquals(Collections.emptyList(), selectCommittedIdentifiers());
+        } finally {
+            executor.shutdownNow();
+            database.close();
+        }
+    }
+    
+}
@@ -15,9 +15,11 @@
  */
 package net.digitalid.database.dialect;
 
+import java.sql.Connection;
 import java.util.Iterator;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
@@ -26,9 +28,19 @@ import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.logging.logger.Logger;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.expression.bool.SQLBooleanLiteral;
+import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
+import net.digitalid.database.dialect.expression.number.SQLVariadicNumberOperator;
+import net.digitalid.database.dialect.identifier.SQLIdentifier;
+import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.schema.SQLCreateSchemaStatement;
+import net.digitalid.database.dialect.statement.table.create.SQLColumnDeclaration;
+import net.digitalid.database.dialect.statement.table.create.SQLType;
 
 /**
  * A dialect implements a particular version of the structured query language (SQL).
@@ -48,11 +60,11 @@ public abstract class SQLDialect {
     
     /**
      * Appends the given node as SQL in this dialect at the given unit to the given string.
-     * Override this method in specific dialects to avoid the default implementation of certain nodes with instance checks.
+     * The node is {@link SQLNode#dispatch(SQLDialect, Unit, StringBuilder) dispatched} to the handler below for its type, if there is one.
      */
     @Pure
     public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        node.unparse(this, unit, string);
+        node.dispatch(this, unit, string);
     }
     
     /**
@@ -67,10 +79,110 @@ public abstract class SQLDialect {
         }
     }
     
+    /* -------------------------------------------------- Handlers -------------------------------------------------- */
+    
+    // Specific dialects override the following handlers in order to deviate from the default implementation of the corresponding nodes.
+    
+    @Pure
+    public void unparse(@Nonnull SQLIdentifier identifier, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        identifier.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLQualifiedTable qualifiedTable, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        qualifiedTable.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        type.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLColumnDeclaration columnDeclaration, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        columnDeclaration.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLBooleanLiteral booleanLiteral, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        booleanLiteral.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLVariadicNumberOperator variadicNumberOperator, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        variadicNumberOperator.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLCurrentTime currentTime, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        currentTime.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLConflictClause conflictClause, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        conflictClause.unparse(this, unit, string);
+    }
+    
+    @Pure
+    public void unparse(@Nonnull SQLCreateSchemaStatement createSchemaStatement, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        createSchemaStatement.unparse(this, unit, string);
+    }
+    
+    /* -------------------------------------------------- Limit -------------------------------------------------- */
+    
+    /**
+     * Appends the limit and offset clause with the given values to the given string if at least one of them is not null.
+     * If only an offset is given, the default implementation uses the largest integer as the limit.
+     */
+    @Pure
+    public void unparseLimit(@Nullable Integer limit, @Nullable Integer offset, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        if (limit != null || offset != null) {
+            string.append(" LIMIT ").append(limit != null ? limit : Integer.MAX_VALUE);
+            if (offset != null) { string.append(" OFFSET ").append(offset); }
+        }
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    /**
+     * Returns the isolation level as defined in {@link Connection} that is used by default for transactions in this dialect.
+     */
+    @Pure
+    public int getIsolationLevel() {
+        return Connection.TRANSACTION_SERIALIZABLE;
+    }
+    
+    /**
+     * Returns the isolation level as defined in {@link Connection} that is used by default for read-only transactions in this dialect.
+     */
+    @Pure
+    public int getReadOnlyIsolationLevel() {
+        return Connection.TRANSACTION_READ_COMMITTED;
+    }
+    
+    /**
+     * Returns whether connections can be switched between read-only and read-write mode in this dialect.
+     */
+    @Pure
+    public boolean supportsReadOnlyTransactions() {
+        return true;
+    }
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    /**
+     * Returns the maximum number of parameters that a single statement may bind in this dialect.
+     * The default implementation returns the limit of older SQLite versions, which is the lowest among the supported databases.
+     */
+    @Pure
+    public @Positive int getMaximumParameterCount() {
+        return 999;
+    }
+    
     /* -------------------------------------------------- Utility -------------------------------------------------- */
     
     /**
-     * Returns the given node as SQL in this dialect at the given unit.
+     * Returns the given node as SQL in the configured dialect at the given unit.
      */
     @Pure
     public static @Nonnull @SQLFraction String unparse(@Nonnull SQLNode node, @Nonnull Unit unit) {
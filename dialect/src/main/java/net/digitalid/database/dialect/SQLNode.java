@@ -57,4 +57,15 @@ public interface SQLNode extends RootInterface {
     @Pure
     public void unparse(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string);
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    /**
+     * Passes this node to the handler of the given dialect for the type of this node, which appends this node as SQL at the given unit to the given string.
+     * The node types for which {@link SQLDialect} declares a handler override this method so that the handler is selected without instance checks.
+     */
+    @Pure
+    public default void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        unparse(dialect, unit, string);
+    }
+    
 }
@@ -63,4 +63,12 @@ public interface SQLBooleanLiteral extends SQLBooleanExpression, SQLLiteral {
         string.append(String.valueOf(getValue()).toUpperCase());
     }
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
 }
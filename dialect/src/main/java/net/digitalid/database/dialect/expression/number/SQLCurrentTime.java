@@ -49,4 +49,12 @@ public interface SQLCurrentTime extends SQLNumberExpression {
         string.append("TIMESTAMP()");
     }
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
 }
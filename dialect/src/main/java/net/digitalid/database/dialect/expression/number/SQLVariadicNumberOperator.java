@@ -18,8 +18,13 @@ package net.digitalid.database.dialect.expression.number;
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
+import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.SQLDialect;
 import net.digitalid.database.dialect.expression.SQLVariadicOperator;
 
 /**
@@ -50,6 +55,14 @@ public enum SQLVariadicNumberOperator implements SQLVariadicOperator {
         return symbol;
     }
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
     /* -------------------------------------------------- Constructor -------------------------------------------------- */
     
     private SQLVariadicNumberOperator(@Nonnull String symbol) {
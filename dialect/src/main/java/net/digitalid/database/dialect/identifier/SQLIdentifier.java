@@ -58,4 +58,12 @@ public interface SQLIdentifier extends SQLNode {
         string.append(Quotes.inDouble(getString()));
     }
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
 }
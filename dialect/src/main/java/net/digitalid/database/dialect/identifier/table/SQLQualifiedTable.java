@@ -18,8 +18,14 @@ package net.digitalid.database.dialect.identifier.table;
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
+import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.SQLDialect;
+
 /**
  * An SQL qualified table.
  * 
@@ -37,4 +43,12 @@ public interface SQLQualifiedTable extends SQLTable {
     @Pure
     public @Nonnull SQLTableName getTable();
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
 }
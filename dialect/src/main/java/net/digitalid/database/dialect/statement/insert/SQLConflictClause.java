@@ -20,8 +20,13 @@ import java.sql.SQLException;
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
+import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.SQLDialect;
 import net.digitalid.database.dialect.expression.SQLOperator;
 
 /**
@@ -69,6 +74,14 @@ public enum SQLConflictClause implements SQLOperator {
         return symbol;
     }
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
     /* -------------------------------------------------- Constructor -------------------------------------------------- */
     
     private SQLConflictClause(@Nonnull String symbol) {
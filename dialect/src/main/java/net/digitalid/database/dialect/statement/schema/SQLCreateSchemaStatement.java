@@ -59,4 +59,12 @@ public interface SQLCreateSchemaStatement extends SQLStatementNode {
         dialect.unparse(schemaName, unit, string);
     }
     
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void dispatch(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        dialect.unparse(this, unit, string);
+    }
+    
 }
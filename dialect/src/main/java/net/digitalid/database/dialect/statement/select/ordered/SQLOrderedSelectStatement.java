@@ -85,12 +85,7 @@ public interface SQLOrderedSelectStatement extends SQLSelectStatement {
             string.append(" ORDER BY ");
             dialect.unparse(orders, unit, string);
         }
-        final @Nullable Integer limit = getLimit();
-        final @Nullable Integer offset = getOffset();
-        if (limit != null || offset != null) {
-            string.append(" LIMIT ").append(limit != null ? limit : Integer.MAX_VALUE);
-            if (offset != null) { string.append(" OFFSET ").append(offset); }
-        }
+        dialect.unparseLimit(getLimit(), getOffset(), string);
     }
     
 }
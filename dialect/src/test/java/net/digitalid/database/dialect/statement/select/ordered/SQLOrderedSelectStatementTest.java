@@ -41,4 +41,12 @@ public class SQLOrderedSelectStatementTest extends SQLStatementTest {
         assertThat(SQLDialect.unparse(selectStatement, Unit.DEFAULT)).isEqualTo("SELECT * FROM (\"default\".\"test_table\") ORDER BY \"first_column\" DESC LIMIT 10 OFFSET 20");
     }
     
+    @Test
+    public void testLimitedSelectStatement() {
+        final @Nonnull SQLTableSource tableSource = SQLTableSourceBuilder.withSource(qualifiedTable).build();
+        final @Nonnull SQLSimpleSelectStatement simpleSelectStatement = SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(SQLAllColumnsBuilder.build())).withSources(ImmutableList.withElements(tableSource)).build();
+        final @Nonnull SQLOrderedSelectStatement selectStatement = SQLOrderedSelectStatementBuilder.withSelectStatement(simpleSelectStatement).withLimit(1).build();
+        assertThat(SQLDialect.unparse(selectStatement, Unit.DEFAULT)).isEqualTo("SELECT * FROM (\"default\".\"test_table\") LIMIT 1");
+    }
+    
 }
@@ -30,7 +30,6 @@ import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.identifier.SQLIdentifier;
 import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 
@@ -55,24 +54,18 @@ public abstract class H2Dialect extends SQLDialect {
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
-    protected void unparse(@Nonnull SQLIdentifier identifier, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLIdentifier identifier, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         string.append(identifier.getString());
     }
     
     @Pure
+    @Override
     @TODO(task = "Should we throw an exception in the other cases?", date = "2017-03-07", author = Author.KASPAR_ETTER)
-    protected void unparse(@Nonnull SQLConflictClause conflictClause, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    public void unparse(@Nonnull SQLConflictClause conflictClause, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         if (conflictClause == SQLConflictClause.REPLACE) { string.append("MERGE"); }
         else if (conflictClause == SQLConflictClause.IGNORE) { string.append("INSERT IGNORE"); }
         else { string.append("INSERT"); }
     }
     
-    @Pure
-    @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLIdentifier) { unparse((SQLIdentifier) node, unit, string); }
-        else if (node instanceof SQLConflictClause) { unparse((SQLConflictClause) node, unit, string); }
-        else { super.unparse(node, unit, string); }
-    }
-    
 }
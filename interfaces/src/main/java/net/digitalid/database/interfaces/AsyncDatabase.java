@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.exceptions.DatabaseException;
+
+/**
+ * This class performs database work asynchronously on a configurable {@link #executor} and returns {@link DatabaseFuture futures} of the results.
+ * Each unit of work is performed within its own transaction on a single thread of the executor, which means that all its statements
+ * are executed on the same connection and are committed together if the work succeeds or rolled back otherwise.
+ */
+@Utility
+public abstract class AsyncDatabase {
+    
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    /**
+     * Stores the executor on which the asynchronous database work is performed.
+     * Since each running unit of work holds a connection until it is committed or rolled back,
+     * the executor should not run more work concurrently than the database has connections.
+     * By default, the work is performed on as many daemon threads as there are processors.
+     */
+    public static final @Nonnull Configuration<Executor> executor = Configuration.<Executor>with(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        final @Nonnull Thread thread = new Thread(runnable, "DatabaseAsyncWorker");
+        thread.setDaemon(true);
+        return thread;
+    }));
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    /**
+     * Performs the given work asynchronously within a read-write transaction, which is committed if the work succeeds and rolled back otherwise.
+     * 
+     * @see Database#inTransaction(net.digitalid.database.interfaces.TransactionalWork)
+     */
+    @Impure
+    @Committing
+    public static <@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> @Nonnull DatabaseFuture<RESULT> inTransaction(@Nonnull TransactionalWork<RESULT, EXCEPTION> work) {
+        return submit(() -> Database.inTransaction(work));
+    }
+    
+    /**
+     * Performs the given work asynchronously within a read-only transaction, which is committed if the work succeeds and rolled back otherwise.
+     * 
+     * @see Database#inReadOnlyTransaction(net.digitalid.database.interfaces.TransactionalWork)
+     */
+    @Impure
+    @Committing
+    public static <@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> @Nonnull DatabaseFuture<RESULT> inReadOnlyTransaction(@Nonnull TransactionalWork<RESULT, EXCEPTION> work) {
+        return submit(() -> Database.inReadOnlyTransaction(work));
+    }
+    
+    /* -------------------------------------------------- Commit -------------------------------------------------- */
+    
+    /**
+     * Detaches the implicit transaction of the current thread and commits it asynchronously.
+     * The current thread can continue right away and its next statement starts a new transaction.
+     * If the commit fails, the transaction is rolled back and the returned future fails with the cause.
+     * If the executor rejects the commit, the transaction is rolled back right away so that its connection is not leaked.
+     */
+    @Impure
+    @Committing
+    public static @Nonnull DatabaseFuture<Void> commit() {
+        final @Nonnull Database database = Database.instance.get();
+        final @Nullable Transaction transaction = database.getBoundTransaction();
+        Require.that(transaction == null || transaction.isImplicit()).orThrow("Only an implicit transaction can be committed asynchronously.");
+        
+        if (transaction == null) {
+            final @Nonnull DatabaseFuture<Void> future = new DatabaseFuture<>(() -> null);
+            future.run();
+            return future;
+        }
+        database.bind(null);
+        try {
+            return submit(() -> transaction.perform(boundTransaction -> {
+                database.commitTransaction();
+                return null;
+            }));
+        } catch (@Nonnull RejectedExecutionException exception) {
+            Log.warning("The asynchronous commit was rejected by the executor, which is why the transaction is rolled back.", exception);
+            try {
+                transaction.perform(boundTransaction -> {
+                    database.rollbackTransaction();
+                    return null;
+                });
+            } catch (@Nonnull DatabaseException rollbackException) {
+                Log.error("Could not roll back the transaction whose commit was rejected.", rollbackException);
+            }
+            final @Nonnull DatabaseFuture<Void> future = new DatabaseFuture<>(() -> { throw exception; });
+            future.run();
+            return future;
+        }
+    }
+    
+    /* -------------------------------------------------- Submission -------------------------------------------------- */
+    
+    /**
+     * Submits the given callable to the configured executor and returns the future of its result.
+     */
+    @Impure
+    private static <@Specifiable RESULT> @Nonnull DatabaseFuture<RESULT> submit(@Nonnull Callable<RESULT> callable) {
+        final @Nonnull DatabaseFuture<RESULT> future = new DatabaseFuture<>(callable);
+        executor.get().execute(future);
+        return future;
+    }
+    
+}
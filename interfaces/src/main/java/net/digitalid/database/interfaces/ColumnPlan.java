@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.model.CustomField;
+import net.digitalid.utility.conversion.model.CustomType;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.interfaces.encoder.SQLEncoder;
+
+/**
+ * A column plan describes the primitive columns into which the fields of a converter are flattened, including the columns of nested objects.
+ * The plan is derived only once per converter and then {@link #of(Converter) cached} so that the schema of the conversion module,
+ * the {@link SQLEncoder encoders} and the {@link SQLDecoder decoders} share a single flattening of each converter.
+ * Fields of composite types such as iterables or maps are not stored in columns and are thus skipped.
+ */
+@Immutable
+public class ColumnPlan {
+    
+    /* -------------------------------------------------- Converter -------------------------------------------------- */
+    
+    private final @Nonnull Converter<?, ?> converter;
+    
+    /**
+     * Returns the converter whose fields are described by this plan.
+     */
+    @Pure
+    public @Nonnull Converter<?, ?> getConverter() {
+        return converter;
+    }
+    
+    /* -------------------------------------------------- Columns -------------------------------------------------- */
+    
+    private final @Nonnull CustomType[] columnTypes;
+    
+    /**
+     * Returns the number of flattened columns.
+     */
+    @Pure
+    public @NonNegative int getColumnCount() {
+        return columnTypes.length;
+    }
+    
+    /**
+     * Returns the primitive custom type of the column at the given index.
+     */
+    @Pure
+    public @Nonnull CustomType getColumnType(@NonNegative int index) {
+        return columnTypes[index];
+    }
+    
+    private final @Nonnull boolean[] nullableColumns;
+    
+    /**
+     * Returns whether the column at the given index can be null, either because its field is not annotated with {@link Nonnull} or because it belongs to a nullable object.
+     */
+    @Pure
+    public boolean isNullable(@NonNegative int index) {
+        return nullableColumns[index];
+    }
+    
+    private volatile @Nullable int[] sqlTypes;
+    
+    /**
+     * Returns the SQL type as defined in {@link java.sql.Types} of the column at the given index.
+     * The SQL types are only mapped on the first call as the schema of a table does not need them.
+     */
+    @Pure
+    public int getSQLType(@NonNegative int index) {
+        @Nullable int[] result = sqlTypes;
+        if (result == null) {
+            result = new int[columnTypes.length];
+            for (int i = 0; i < result.length; i++) { result[i] = SQLEncoder.getSQLType(columnTypes[i]); }
+            this.sqlTypes = result;
+        }
+        return result[index];
+    }
+    
+    /**
+     * Adds the columns of the given converter to the given lists.
+     */
+    @Pure
+    private static void collectColumns(@Nonnull Converter<?, ?> converter, boolean nullable, @Nonnull @Modified FreezableArrayList<@Nonnull CustomType> types, @Nonnull @Modified FreezableArrayList<@Nonnull Boolean> nullables) {
+        for (@Nonnull CustomField field : converter.getFields(Representation.INTERNAL)) {
+            @Nonnull CustomType customType = field.getCustomType();
+            if (customType.isCompositeType()) { continue; }
+            if (converter.isPrimitiveConverter()) {
+                Require.that(!customType.isObjectType()).orThrow("The primitive converter $ has a non-primitive field $", converter, field.getName());
+            } else if (customType.isObjectType()) {
+                final @Nonnull Converter<?, ?> fieldConverter = ((CustomType.CustomConverterType) customType).getConverter();
+                if (!fieldConverter.isPrimitiveConverter()) {
+                    collectColumns(fieldConverter, nullable || !field.isAnnotatedWith(Nonnull.class), types, nullables);
+                    continue;
+                }
+                customType = fieldConverter.getFields(Representation.INTERNAL).getFirst().getCustomType();
+            }
+            types.add(customType);
+            nullables.add(nullable || field.getCustomType().isObjectType() && !field.isAnnotatedWith(Nonnull.class));
+        }
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected ColumnPlan(@Nonnull Converter<?, ?> converter) {
+        this.converter = converter;
+        
+        final @Nonnull FreezableArrayList<@Nonnull CustomType> types = FreezableArrayList.withNoElements();
+        final @Nonnull FreezableArrayList<@Nonnull Boolean> nullables = FreezableArrayList.withNoElements();
+        collectColumns(converter, false, types, nullables);
+        this.columnTypes = new CustomType[types.size()];
+        this.nullableColumns = new boolean[nullables.size()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = types.get(i);
+            nullableColumns[i] = nullables.get(i);
+        }
+    }
+    
+    /* -------------------------------------------------- Cache -------------------------------------------------- */
+    
+    /**
+     * Caches the plans by their converter.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull Converter<?, ?>, @Nonnull ColumnPlan> plans = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the (cached) plan of the given converter.
+     */
+    @Pure
+    public static @Nonnull ColumnPlan of(@Nonnull Converter<?, ?> converter) {
+        final @Nullable ColumnPlan cachedPlan = plans.get(converter);
+        if (cachedPlan != null) { return cachedPlan; }
+        
+        final @Nonnull ColumnPlan plan = new ColumnPlan(converter);
+        final @Nullable ColumnPlan previousPlan = plans.putIfAbsent(converter, plan);
+        return previousPlan != null ? previousPlan : plan;
+    }
+    
+    /**
+     * Clears the cached plans, which is only necessary if the structure of a converter changes at runtime.
+     */
+    @PureWithSideEffects
+    public static void clear() {
+        plans.clear();
+    }
+    
+}
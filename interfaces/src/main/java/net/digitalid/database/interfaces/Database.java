@@ -16,20 +16,24 @@
 package net.digitalid.database.interfaces;
 
 import java.sql.ResultSet;
+import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
-import net.digitalid.utility.concurrency.local.ThreadLocalIterable;
-import net.digitalid.utility.concurrency.local.ThreadLocalIterableBuilder;
 import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.annotations.sql.SQLStatement;
 import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
@@ -39,8 +43,10 @@ import net.digitalid.database.dialect.statement.table.create.SQLCreateTableState
 import net.digitalid.database.dialect.statement.table.drop.SQLDropTableStatement;
 import net.digitalid.database.dialect.statement.update.SQLUpdateStatement;
 import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
+import net.digitalid.database.interfaces.tracing.TransactionTracer;
 
 /**
  * This class allows to execute SQL statements.
@@ -58,7 +64,7 @@ public abstract class Database implements AutoCloseable {
     /* -------------------------------------------------- Transactions -------------------------------------------------- */
     
     /**
-     * Commits all changes of the current thread since the last commit or rollback.
+     * Commits all changes of the current transaction since the last commit or rollback.
      * (On the server, this method should only be called by the worker.)
      */
     @Impure
@@ -66,33 +72,90 @@ public abstract class Database implements AutoCloseable {
     protected abstract void commitTransaction() throws DatabaseException;
     
     /**
-     * Rolls back all changes of the current thread since the last commit or rollback.
+     * Rolls back all changes of the current transaction since the last commit or rollback.
      * (On the server, this method should only be called by the worker.)
      */
     @Impure
     @Committing
     protected abstract void rollbackTransaction();
     
+    /**
+     * Begins a read-only transaction for the current thread, which allows the database to use a cheaper isolation level.
+     * This method has to be called before the first statement of the transaction is executed and the transaction
+     * has to be ended with a commit or rollback as usual. The default implementation only marks the current transaction as read-only.
+     */
+    @Impure
+    @NonCommitting
+    protected void beginReadOnlyTransaction() throws DatabaseException {
+        getCurrentTransaction().setReadOnly(true);
+    }
+    
     /* -------------------------------------------------- Static Access -------------------------------------------------- */
     
     /**
      * Commits all changes of the current thread since the last commit or rollback.
+     * Within the scope of {@link #inTransaction(net.digitalid.database.interfaces.TransactionalWork)}, this method does nothing
+     * as the scoped transaction is committed as a whole by the owner of the scope when the work is done.
      * (On the server, this method should only be called by the worker.)
      */
     @Impure
     @Committing
     public static void commit() throws DatabaseException {
-        instance.get().commitTransaction();
+        final @Nonnull Database database = instance.get();
+        final @Nullable Transaction transaction = database.getBoundTransaction();
+        if (transaction == null || transaction.isImplicit()) { database.commitTransaction(); }
     }
     
     /**
      * Rolls back all changes of the current thread since the last commit or rollback.
+     * Within the scope of {@link #inTransaction(net.digitalid.database.interfaces.TransactionalWork)}, this method only marks
+     * the scoped transaction as rollback-only so that the owner of the scope rolls it back as a whole when the work is done.
      * (On the server, this method should only be called by the worker.)
      */
     @Impure
     @Committing
     public static void rollback() {
-        instance.get().rollbackTransaction();
+        final @Nonnull Database database = instance.get();
+        final @Nullable Transaction transaction = database.getBoundTransaction();
+        if (transaction == null || transaction.isImplicit()) { database.rollbackTransaction(); }
+        else { transaction.setRollbackOnly(); }
+    }
+    
+    /**
+     * Begins a read-only transaction for the current thread.
+     * 
+     * @see #beginReadOnlyTransaction()
+     */
+    @Impure
+    @NonCommitting
+    public static void beginReadOnly() throws DatabaseException {
+        instance.get().beginReadOnlyTransaction();
+    }
+    
+    /**
+     * Performs the given work within a read-write transaction, which is committed if the work succeeds and rolled back otherwise.
+     * If the work is already performed within the scope of another transaction, the work joins that transaction instead.
+     * An implicit transaction of the current thread that has already executed statements has to be committed or rolled back first.
+     * 
+     * @see Transaction#perform(net.digitalid.database.interfaces.TransactionalWork)
+     */
+    @Impure
+    @Committing
+    public static <@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> RESULT inTransaction(@Nonnull TransactionalWork<RESULT, EXCEPTION> work) throws DatabaseException, EXCEPTION {
+        return instance.get().performInTransaction(false, work);
+    }
+    
+    /**
+     * Performs the given work within a read-only transaction, which is committed if the work succeeds and rolled back otherwise.
+     * If the work is already performed within the scope of another transaction, the work joins that transaction instead.
+     * An implicit transaction of the current thread that has already executed statements has to be committed or rolled back first.
+     * 
+     * @see #beginReadOnlyTransaction()
+     */
+    @Impure
+    @Committing
+    public static <@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> RESULT inReadOnlyTransaction(@Nonnull TransactionalWork<RESULT, EXCEPTION> work) throws DatabaseException, EXCEPTION {
+        return instance.get().performInTransaction(true, work);
     }
     
     /* -------------------------------------------------- Create Schema -------------------------------------------------- */
@@ -151,6 +214,22 @@ public abstract class Database implements AutoCloseable {
     @Pure
     public abstract @Nonnull SQLQueryEncoder getEncoder(@Nonnull SQLSelectStatement selectStatement, @Nonnull Unit unit) throws DatabaseException;
     
+    /* -------------------------------------------------- Templates -------------------------------------------------- */
+    
+    /**
+     * Returns an SQL action encoder for encoding the given number of parameters of the given unparsed insert, update or delete statement and executing it afterwards on the given unit.
+     * This allows callers to cache frequently executed statements in their unparsed form instead of as statement nodes.
+     */
+    @Pure
+    public abstract @Nonnull SQLActionEncoder getActionEncoder(@Nonnull @SQLStatement String statement, @NonNegative int parameterCount, @Nonnull Unit unit) throws DatabaseException;
+    
+    /**
+     * Returns an SQL query encoder for encoding the given number of parameters of the given unparsed select statement and executing it afterwards on the given unit.
+     * This allows callers to cache frequently executed queries in their unparsed form instead of as statement nodes.
+     */
+    @Pure
+    public abstract @Nonnull SQLQueryEncoder getQueryEncoder(@Nonnull @SQLStatement String query, @NonNegative int parameterCount, @Nonnull Unit unit) throws DatabaseException;
+    
     /* -------------------------------------------------- Testing -------------------------------------------------- */
     
     /**
@@ -161,11 +240,108 @@ public abstract class Database implements AutoCloseable {
     @PureWithSideEffects
     public abstract @Nonnull ResultSet executeQuery(@Nonnull @SQLStatement String query) throws DatabaseException;
     
-    /* -------------------------------------------------- Runnables -------------------------------------------------- */
+    /* -------------------------------------------------- Scope -------------------------------------------------- */
+    
+    /**
+     * Stores the transaction which is bound to the current thread for the duration of a scope or until an implicit transaction ends.
+     */
+    private final @Nonnull ThreadLocal<Transaction> boundTransaction = new ThreadLocal<>();
+    
+    /**
+     * Binds the given transaction to the current thread or unbinds the current transaction if the given transaction is null.
+     * 
+     * @return the transaction that was bound to the current thread before.
+     */
+    @Impure
+    @Nullable Transaction bind(@Nullable Transaction transaction) {
+        final @Nullable Transaction previousTransaction = boundTransaction.get();
+        if (transaction == null) { boundTransaction.remove(); }
+        else { boundTransaction.set(transaction); }
+        return previousTransaction;
+    }
     
-    private final @Nonnull ThreadLocalIterable<@Nonnull Runnable> runnablesAfterCommit = ThreadLocalIterableBuilder.build();
+    /**
+     * Returns the transaction which is bound to the current thread or null if no transaction is bound.
+     */
+    @Pure
+    protected @Nullable Transaction getBoundTransaction() {
+        return boundTransaction.get();
+    }
     
-    private final @Nonnull ThreadLocalIterable<@Nonnull Runnable> runnablesAfterRollback = ThreadLocalIterableBuilder.build();
+    /**
+     * Returns the transaction which is bound to the current thread and binds a new implicit transaction if necessary.
+     */
+    @Impure
+    public @Nonnull Transaction getCurrentTransaction() {
+        @Nullable Transaction transaction = boundTransaction.get();
+        if (transaction == null) {
+            transaction = createTransaction(true, false);
+            boundTransaction.set(transaction);
+        }
+        return transaction;
+    }
+    
+    /**
+     * Traces that a statement is executed within the current transaction.
+     * Implementations call this method once per statement before executing it.
+     */
+    @Impure
+    protected void traceStatement() {
+        if (TransactionTracer.instance.get().isEnabled()) { getCurrentTransaction().traceStatement(); }
+    }
+    
+    /**
+     * Creates a new transaction on this database.
+     * Subclasses can override this method to store additional state (such as a connection) in the transaction.
+     */
+    @Pure
+    protected @Nonnull Transaction createTransaction(boolean implicit, boolean readOnly) {
+        return new Transaction(this, implicit, readOnly);
+    }
+    
+    /**
+     * Returns whether the given transaction has executed statements that are neither committed nor rolled back yet.
+     * The default implementation returns false, which subclasses override if they can determine this state.
+     */
+    @Pure
+    protected boolean hasPendingStatements(@Nonnull Transaction transaction) {
+        return false;
+    }
+    
+    /**
+     * Performs the given work within a new transaction with the given read-only mode or within the scoped transaction that is already bound to the current thread.
+     * The new transaction is committed if the work succeeds and has not requested a {@link #rollback() rollback} and is rolled back otherwise.
+     * 
+     * @throws DatabaseException if an implicit transaction with pending statements is bound to the current thread
+     *                           or if read-write work is to be performed within the scope of a read-only transaction.
+     */
+    @Impure
+    @Committing
+    protected <@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> RESULT performInTransaction(boolean readOnly, @Nonnull TransactionalWork<RESULT, EXCEPTION> work) throws DatabaseException, EXCEPTION {
+        final @Nullable Transaction boundTransaction = getBoundTransaction();
+        if (boundTransaction != null) {
+            if (!boundTransaction.isImplicit()) {
+                if (!readOnly && boundTransaction.isReadOnly()) { throw DatabaseExceptionBuilder.withCause(new SQLException("Read-write work cannot be performed within the scope of a read-only transaction.")).build(); }
+                return work.perform(boundTransaction);
+            } else if (hasPendingStatements(boundTransaction)) {
+                throw DatabaseExceptionBuilder.withCause(new SQLException("The implicit transaction of the current thread has to be committed or rolled back before a scoped transaction can be performed.")).build();
+            }
+        }
+        
+        final @Nonnull Transaction transaction = createTransaction(false, readOnly);
+        final @Nullable Transaction previousTransaction = bind(transaction);
+        boolean committed = false;
+        try {
+            final RESULT result = work.perform(transaction);
+            if (transaction.isRollbackOnly()) { throw DatabaseExceptionBuilder.withCause(new SQLException("The scoped transaction was rolled back because its work requested a rollback.")).build(); }
+            commitTransaction();
+            committed = true;
+            return result;
+        } finally {
+            if (!committed) { rollbackTransaction(); }
+            bind(previousTransaction);
+        }
+    }
     
     /* -------------------------------------------------- Commit -------------------------------------------------- */
     
@@ -178,14 +354,19 @@ public abstract class Database implements AutoCloseable {
      */
     @Impure
     public void runAfterCommit(@Nonnull Runnable runnable) {
-        runnablesAfterCommit.add(runnable);
+        getCurrentTransaction().runAfterCommit(runnable);
     }
     
+    /**
+     * Runs the runnables after commit of the current transaction and unbinds the transaction if it was implicit.
+     */
     @Impure
     protected void runRunnablesAfterCommit() {
-        for (@Nonnull Runnable runnable : runnablesAfterCommit) { runnable.run(); }
-        runnablesAfterCommit.clear();
-        runnablesAfterRollback.clear();
+        final @Nullable Transaction transaction = boundTransaction.get();
+        if (transaction != null) {
+            if (transaction.isImplicit()) { boundTransaction.remove(); }
+            transaction.runRunnablesAfterCommit();
+        }
     }
     
     /* -------------------------------------------------- Rollback -------------------------------------------------- */
@@ -199,14 +380,19 @@ public abstract class Database implements AutoCloseable {
      */
     @Impure
     public void runAfterRollback(@Nonnull Runnable runnable) {
-        runnablesAfterRollback.add(runnable);
+        getCurrentTransaction().runAfterRollback(runnable);
     }
     
+    /**
+     * Runs the runnables after rollback of the current transaction and unbinds the transaction if it was implicit.
+     */
     @Impure
     protected void runRunnablesAfterRollback() {
-        for (@Nonnull Runnable runnable : runnablesAfterRollback) { runnable.run(); }
-        runnablesAfterCommit.clear();
-        runnablesAfterRollback.clear();
+        final @Nullable Transaction transaction = boundTransaction.get();
+        if (transaction != null) {
+            if (transaction.isImplicit()) { boundTransaction.remove(); }
+            transaction.runRunnablesAfterRollback();
+        }
     }
     
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A database future is the pending result of database work that is performed asynchronously by the {@link AsyncDatabase}.
+ * In addition to blocking on its result, listeners can be added which are run as soon as the work has completed.
+ * This class is used instead of {@code CompletableFuture} because the modules are also built for Java 7 (see {@code pom-java7.xml}),
+ * where the lambdas are backported but the Java 8 library is not available, for the Android consumers of this library.
+ */
+@Mutable
+@ThreadSafe
+public class DatabaseFuture<@Specifiable RESULT> extends FutureTask<RESULT> {
+    
+    /* -------------------------------------------------- Listeners -------------------------------------------------- */
+    
+    private final @Nonnull Queue<@Nonnull Runnable> listeners = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Runs the given listener once the work of this future has completed, succeeded or failed or was cancelled.
+     * If the work has already completed, the listener is run immediately on the current thread.
+     * Otherwise, the listener is run on the thread that completes the work, which means that it should not block.
+     * The listener can retrieve the result with {@link #get()} without blocking.
+     */
+    @Impure
+    public void addListener(@Nonnull Runnable listener) {
+        listeners.add(listener);
+        if (isDone()) { runListeners(); }
+    }
+    
+    /**
+     * Runs and removes the listeners that have been added so far and logs their failures instead of propagating them.
+     */
+    @Impure
+    private void runListeners() {
+        @Nullable Runnable listener;
+        while ((listener = listeners.poll()) != null) {
+            try {
+                listener.run();
+            } catch (@Nonnull RuntimeException exception) {
+                Log.warning("A listener of a database future failed.", exception);
+            }
+        }
+    }
+    
+    @Impure
+    @Override
+    protected void done() {
+        runListeners();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected DatabaseFuture(@Nonnull Callable<RESULT> callable) {
+        super(callable);
+    }
+    
+}
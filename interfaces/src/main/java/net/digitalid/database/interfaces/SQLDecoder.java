@@ -18,6 +18,7 @@ package net.digitalid.database.interfaces;
 
 import java.security.MessageDigest;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.zip.Inflater;
 
@@ -28,18 +29,19 @@ import javax.crypto.Cipher;
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.Shared;
-import net.digitalid.utility.collaboration.annotations.TODO;
-import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.conversion.interfaces.Converter;
 import net.digitalid.utility.conversion.interfaces.Decoder;
 import net.digitalid.utility.functional.failable.FailableCollector;
 import net.digitalid.utility.functional.interfaces.UnaryFunction;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.columns.ColumnBuffer;
 import net.digitalid.database.interfaces.encoder.SQLEncoder;
 
 /**
@@ -48,7 +50,7 @@ import net.digitalid.database.interfaces.encoder.SQLEncoder;
  * @see SQLEncoder
  */
 @Mutable
-public abstract class SQLDecoder implements Decoder<DatabaseException> {
+public abstract class SQLDecoder implements Decoder<DatabaseException>, AutoCloseable {
     
     /* -------------------------------------------------- Iteration -------------------------------------------------- */
     
@@ -66,6 +68,15 @@ public abstract class SQLDecoder implements Decoder<DatabaseException> {
     @Impure
     public abstract boolean moveToFirstRow() throws DatabaseException;
     
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the underlying result set and, if it is not cached, the statement that produced it.
+     */
+    @Impure
+    @Override
+    public abstract void close() throws DatabaseException;
+    
     /* -------------------------------------------------- Null -------------------------------------------------- */
     
     /**
@@ -74,6 +85,65 @@ public abstract class SQLDecoder implements Decoder<DatabaseException> {
     @Pure
     public abstract boolean wasNull() throws DatabaseException;
     
+    /* -------------------------------------------------- Null Bitmap -------------------------------------------------- */
+    
+    /**
+     * Stores a bit for each column of the current row that indicates whether the nullness of the column has already been probed.
+     */
+    private @Nonnull long[] probedColumns = new long[1];
+    
+    /**
+     * Stores a bit for each column of the current row that indicates whether the column is null.
+     */
+    private @Nonnull long[] nullColumns = new long[1];
+    
+    /**
+     * Clears the null bitmap, which has to happen whenever the cursor is moved to another row.
+     */
+    @Impure
+    protected void clearNullBitmap() {
+        Arrays.fill(probedColumns, 0L);
+        Arrays.fill(nullColumns, 0L);
+    }
+    
+    /**
+     * Returns the index of the column that is decoded next.
+     */
+    @Pure
+    protected abstract @NonNegative int getColumnIndex();
+    
+    /**
+     * Moves the column index forward by the given number of columns without decoding them.
+     */
+    @Impure
+    protected abstract void skipColumns(@NonNegative int count);
+    
+    /**
+     * Returns whether the column with the given index in the current row is null without moving the column index.
+     */
+    @Pure
+    protected abstract boolean probeNull(@NonNegative int columnIndex) throws DatabaseException;
+    
+    /**
+     * Returns whether the column with the given index in the current row is null.
+     * The nullness of each column is probed at most once per row and then read from the null bitmap.
+     */
+    @Impure
+    protected boolean isNull(@NonNegative int columnIndex) throws DatabaseException {
+        final int word = columnIndex >>> 6;
+        if (word >= probedColumns.length) {
+            final int length = Math.max(word + 1, probedColumns.length * 2);
+            probedColumns = Arrays.copyOf(probedColumns, length);
+            nullColumns = Arrays.copyOf(nullColumns, length);
+        }
+        final long mask = 1L << columnIndex;
+        if ((probedColumns[word] & mask) == 0) {
+            if (probeNull(columnIndex)) { nullColumns[word] |= mask; }
+            probedColumns[word] |= mask;
+        }
+        return (nullColumns[word] & mask) != 0;
+    }
+    
     /* -------------------------------------------------- Representation -------------------------------------------------- */
     
     @Pure
@@ -90,16 +160,22 @@ public abstract class SQLDecoder implements Decoder<DatabaseException> {
         return converter.recover(this, provided);
     }
     
+    /**
+     * Returns null if all the columns of the given converter are null and decodes the object with the given converter otherwise.
+     * The columns are probed for null before the object is recovered so that null objects do not cause an exception.
+     * The number of columns of the converter is read from its {@link ColumnPlan column plan}.
+     */
     @Pure
     @Override
-    @TODO(task = "This is wrong. The converter expects non-null values. This method returns null when all columns are null and calls the decodeObject method otherwise.", date = "2017-01-25", author = Author.KASPAR_ETTER)
     public <TYPE, PROVIDED> @Nullable TYPE decodeNullableObject(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws DatabaseException, RecoveryException {
-        try {
-            return decodeObject(converter, provided);
-        } catch (@Nonnull DatabaseException | RecoveryException exception) {
-            if (wasNull()) { return null; } // TODO: This try catch code was written on 2017-08-19. Is this the best we can do?
-            else { throw exception; }
+        final int columnCount = ColumnPlan.of(converter).getColumnCount();
+        if (columnCount == 0) { return decodeObject(converter, provided); }
+        final int columnIndex = getColumnIndex();
+        for (int offset = 0; offset < columnCount; offset++) {
+            if (!isNull(columnIndex + offset)) { return decodeObject(converter, provided); }
         }
+        skipColumns(columnCount);
+        return null;
     }
     
     /* -------------------------------------------------- Decoding -------------------------------------------------- */
@@ -109,6 +185,24 @@ public abstract class SQLDecoder implements Decoder<DatabaseException> {
         throw DatabaseExceptionBuilder.withCause(new SQLException("Read null instead of a value.")).build();
     }
     
+    /* -------------------------------------------------- Columns -------------------------------------------------- */
+    
+    /**
+     * Decodes the remaining rows into the given column buffers without recovering an object for each row.
+     * The buffers are filled in the order of the selected columns, which means that there has to be a buffer for each selected column.
+     * 
+     * @return the number of rows that were decoded.
+     */
+    @Impure
+    public @NonNegative int decodeColumns(@Nonnull @NonNullableElements ColumnBuffer... buffers) throws DatabaseException {
+        int rows = 0;
+        while (moveToNextRow()) {
+            for (@Nonnull ColumnBuffer buffer : buffers) { buffer.decodeValue(this); }
+            rows++;
+        }
+        return rows;
+    }
+    
     /* -------------------------------------------------- Iterables -------------------------------------------------- */
     
     @Impure
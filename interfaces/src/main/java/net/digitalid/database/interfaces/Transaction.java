@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.tracing.TransactionTracer;
+
+/**
+ * A transaction holds the state of a database transaction (such as the borrowed connection and the runnables after commit and rollback)
+ * independently of the thread on which it was started. A transaction can thus be handed off to another thread or an executor,
+ * which {@link #perform(net.digitalid.database.interfaces.TransactionalWork) performs} its work within the scope of the transaction.
+ * <p>
+ * <em>Important:</em> A transaction may be handed off between threads but must not be used by several threads at the same time!
+ *
+ * @see Database#inTransaction(net.digitalid.database.interfaces.TransactionalWork)
+ */
+@Mutable
+@ThreadSafe
+public class Transaction {
+    
+    /* -------------------------------------------------- Database -------------------------------------------------- */
+    
+    private final @Nonnull Database database;
+    
+    /**
+     * Returns the database on which this transaction is executed.
+     */
+    @Pure
+    public @Nonnull Database getDatabase() {
+        return database;
+    }
+    
+    /* -------------------------------------------------- Implicit -------------------------------------------------- */
+    
+    private final boolean implicit;
+    
+    /**
+     * Returns whether this transaction was started implicitly by the first statement of a thread without an explicit scope.
+     * An implicit transaction is bound to the current thread until it is committed or rolled back.
+     */
+    @Pure
+    public boolean isImplicit() {
+        return implicit;
+    }
+    
+    /* -------------------------------------------------- Read-Only -------------------------------------------------- */
+    
+    private volatile boolean readOnly;
+    
+    /**
+     * Returns whether this transaction only reads from the database.
+     */
+    @Pure
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * Sets whether this transaction only reads from the database.
+     * This has to happen before the first statement of the transaction is executed.
+     */
+    @Impure
+    void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+    
+    /* -------------------------------------------------- Rollback-Only -------------------------------------------------- */
+    
+    private volatile boolean rollbackOnly = false;
+    
+    /**
+     * Returns whether the work performed within this transaction requested a rollback, which the owner of the scope has to honor.
+     */
+    @Pure
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+    
+    /**
+     * Marks this transaction so that it is rolled back instead of committed when its scope ends.
+     */
+    @Impure
+    void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+    
+    /* -------------------------------------------------- Commit -------------------------------------------------- */
+    
+    private final @Nonnull Deque<@Nonnull Runnable> runnablesAfterCommit = new ConcurrentLinkedDeque<>();
+    
+    /**
+     * Runs the given runnable after (and only after) committing this transaction successfully.
+     * If this transaction is rolled back, then the runnable is removed without being run.
+     * <p>
+     * <em>Important:</em> Do not rely on the order of execution of the passed runnables!
+     * (The current implementation uses a stack, i.e. last in, first out (LIFO).)
+     */
+    @Impure
+    public void runAfterCommit(@Nonnull Runnable runnable) {
+        runnablesAfterCommit.push(runnable);
+    }
+    
+    /**
+     * Runs and removes the runnables after commit and removes the runnables after rollback.
+     */
+    @Impure
+    protected void runRunnablesAfterCommit() {
+        traceEnd(true);
+        runnablesAfterRollback.clear();
+        @Nullable Runnable runnable;
+        while ((runnable = runnablesAfterCommit.poll()) != null) { runnable.run(); }
+    }
+    
+    /* -------------------------------------------------- Rollback -------------------------------------------------- */
+    
+    private final @Nonnull Deque<@Nonnull Runnable> runnablesAfterRollback = new ConcurrentLinkedDeque<>();
+    
+    /**
+     * Runs the given runnable after (and only after) rolling back this transaction.
+     * If this transaction is committed, then the runnable is removed without being run.
+     * <p>
+     * <em>Important:</em> Do not rely on the order of execution of the passed runnables!
+     * (The current implementation uses a stack, i.e. last in, first out (LIFO).)
+     */
+    @Impure
+    public void runAfterRollback(@Nonnull Runnable runnable) {
+        runnablesAfterRollback.push(runnable);
+    }
+    
+    /**
+     * Runs and removes the runnables after rollback and removes the runnables after commit.
+     */
+    @Impure
+    protected void runRunnablesAfterRollback() {
+        traceEnd(false);
+        runnablesAfterCommit.clear();
+        @Nullable Runnable runnable;
+        while ((runnable = runnablesAfterRollback.poll()) != null) { runnable.run(); }
+    }
+    
+    /* -------------------------------------------------- Tracing -------------------------------------------------- */
+    
+    /**
+     * Counts the statements since the last commit or rollback while the {@link TransactionTracer tracer} is enabled.
+     */
+    private final @Nonnull AtomicInteger statementCount = new AtomicInteger();
+    
+    /**
+     * Stores the time in nanoseconds at which the first statement since the last commit or rollback was executed.
+     */
+    private volatile long beginTime;
+    
+    /**
+     * Stores the sampled origin of the first statement since the last commit or rollback or null if it was not sampled.
+     */
+    private volatile @Nullable String origin;
+    
+    /**
+     * Traces that a statement is executed within this transaction, which begins the trace of this transaction with its first statement.
+     */
+    @Impure
+    protected void traceStatement() {
+        final @Nonnull TransactionTracer tracer = TransactionTracer.instance.get();
+        if (tracer.isEnabled() && statementCount.getAndIncrement() == 0) {
+            this.beginTime = System.nanoTime();
+            this.origin = tracer.sampleOrigin();
+            tracer.transactionBegan(this, origin);
+        }
+    }
+    
+    /**
+     * Traces that this transaction was committed or rolled back and resets the trace for the next statements.
+     */
+    @Impure
+    protected void traceEnd(boolean committed) {
+        final int statements = statementCount.getAndSet(0);
+        if (statements > 0) {
+            TransactionTracer.instance.get().transactionEnded(this, committed, System.nanoTime() - beginTime, statements, origin);
+            this.origin = null;
+        }
+    }
+    
+    /* -------------------------------------------------- Scope -------------------------------------------------- */
+    
+    /**
+     * Performs the given work with this transaction bound to the current thread.
+     * All statements executed by the work belong to this transaction and the previous binding of the thread is restored afterwards.
+     * This method neither commits nor rolls back the transaction, which allows to hand the transaction off to other threads.
+     */
+    @Impure
+    @NonCommitting
+    public <@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> RESULT perform(@Nonnull TransactionalWork<RESULT, EXCEPTION> work) throws DatabaseException, EXCEPTION {
+        final @Nullable Transaction previousTransaction = database.bind(this);
+        try {
+            return work.perform(this);
+        } finally {
+            database.bind(previousTransaction);
+        }
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected Transaction(@Nonnull Database database, boolean implicit, boolean readOnly) {
+        this.database = database;
+        this.implicit = implicit;
+        this.readOnly = readOnly;
+    }
+    
+}
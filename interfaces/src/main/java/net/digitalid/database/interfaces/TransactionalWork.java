@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+
+/**
+ * Transactional work is performed within the scope of a {@link Transaction transaction}.
+ *
+ * @see Database#inTransaction(net.digitalid.database.interfaces.TransactionalWork)
+ * @see Transaction#perform(net.digitalid.database.interfaces.TransactionalWork)
+ */
+@Mutable
+@Functional
+public interface TransactionalWork<@Specifiable RESULT, @Unspecifiable EXCEPTION extends Exception> {
+    
+    /**
+     * Performs the work within the given transaction, which is bound to the current thread for the duration of this call.
+     */
+    @Impure
+    @NonCommitting
+    public RESULT perform(@Nonnull Transaction transaction) throws DatabaseException, EXCEPTION;
+    
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.columns;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.SQLDecoder;
+
+/**
+ * A column buffer collects the values of a single column of a result set in a growable array of primitive values.
+ * Reporting and maintenance jobs can thereby scan a large number of rows without allocating an object for each row.
+ * 
+ * @see SQLDecoder#decodeColumns(net.digitalid.database.interfaces.columns.ColumnBuffer...)
+ */
+@Mutable
+public abstract class ColumnBuffer {
+    
+    /* -------------------------------------------------- Column Name -------------------------------------------------- */
+    
+    private final @Nonnull String columnName;
+    
+    /**
+     * Returns the name of the column whose values are collected in this buffer.
+     */
+    @Pure
+    public @Nonnull String getColumnName() {
+        return columnName;
+    }
+    
+    /* -------------------------------------------------- Size -------------------------------------------------- */
+    
+    /**
+     * Stores the number of values in this buffer.
+     */
+    protected @NonNegative int size = 0;
+    
+    /**
+     * Returns the number of values in this buffer.
+     */
+    @Pure
+    public @NonNegative int size() {
+        return size;
+    }
+    
+    /**
+     * Removes all values from this buffer without releasing its capacity so that the buffer can be reused.
+     */
+    @Impure
+    public void clear() {
+        this.size = 0;
+    }
+    
+    /* -------------------------------------------------- Capacity -------------------------------------------------- */
+    
+    /**
+     * Returns the capacity to which a full buffer with the given capacity grows.
+     */
+    @Pure
+    protected static @NonNegative int getGrownCapacity(@NonNegative int capacity) {
+        return Math.max(16, capacity + (capacity >> 1));
+    }
+    
+    /* -------------------------------------------------- Decoding -------------------------------------------------- */
+    
+    /**
+     * Decodes the next column of the current row with the given decoder and appends its value to this buffer.
+     */
+    @Impure
+    public abstract void decodeValue(@Nonnull SQLDecoder decoder) throws DatabaseException;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected ColumnBuffer(@Nonnull String columnName) {
+        this.columnName = columnName;
+    }
+    
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.columns;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.SQLDecoder;
+
+/**
+ * This column buffer collects the values of a non-nullable column of 32-bit integers.
+ */
+@Mutable
+public class Integer32ColumnBuffer extends ColumnBuffer {
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    private @Nonnull int[] values;
+    
+    /**
+     * Returns the value at the given index.
+     */
+    @Pure
+    public int get(@NonNegative int index) {
+        Require.that(index < size).orThrow("The index $ has to be smaller than the size $.", index, size);
+        
+        return values[index];
+    }
+    
+    /**
+     * Returns a copy of the values in this buffer as an array whose length is the size of this buffer.
+     */
+    @Pure
+    public @Capturable @Nonnull int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+    
+    /* -------------------------------------------------- Decoding -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void decodeValue(@Nonnull SQLDecoder decoder) throws DatabaseException {
+        final int value = decoder.decodeInteger32();
+        if (size == values.length) { values = Arrays.copyOf(values, getGrownCapacity(size)); }
+        values[size++] = value;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a new buffer for the column with the given name that can hold the given number of values before it grows.
+     */
+    public Integer32ColumnBuffer(@Nonnull String columnName, @NonNegative int initialCapacity) {
+        super(columnName);
+        
+        this.values = new int[initialCapacity];
+    }
+    
+    /**
+     * Creates a new buffer for the column with the given name.
+     */
+    public Integer32ColumnBuffer(@Nonnull String columnName) {
+        this(columnName, 16);
+    }
+    
+}
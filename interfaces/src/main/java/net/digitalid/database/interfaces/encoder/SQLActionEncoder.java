@@ -15,6 +15,7 @@
  */
 package net.digitalid.database.interfaces.encoder;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
@@ -44,4 +45,20 @@ public interface SQLActionEncoder extends SQLEncoder {
     @PureWithSideEffects
     public abstract void execute() throws DatabaseException;
     
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Adds the values encoded since the last call to this method as a new row to the batch of this encoder
+     * so that the next values can be encoded for the same statement.
+     * Encoders that do not support batching may execute the row immediately.
+     */
+    @Impure
+    public abstract void addBatch() throws DatabaseException;
+    
+    /**
+     * Executes all rows that were {@link #addBatch() added} to the batch of this encoder and clears the batch afterwards.
+     */
+    @PureWithSideEffects
+    public abstract void executeBatch() throws DatabaseException;
+    
 }
@@ -61,7 +61,7 @@ import net.digitalid.database.interfaces.SQLDecoder;
  * @see SQLDecoder
  */
 @Mutable
-public interface SQLEncoder extends Encoder<DatabaseException> {
+public interface SQLEncoder extends Encoder<DatabaseException>, AutoCloseable {
     
     /* -------------------------------------------------- Representation -------------------------------------------------- */
     
@@ -69,6 +69,16 @@ public interface SQLEncoder extends Encoder<DatabaseException> {
     @Override
     public @Nonnull Representation getRepresentation();
     
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Releases the statement of this encoder unless it is cached for later reuse.
+     * The statement of an executed query is released together with the result set when the returned decoder is closed.
+     */
+    @Impure
+    @Override
+    public void close() throws DatabaseException;
+    
     /* -------------------------------------------------- Null -------------------------------------------------- */
     
     /**
@@ -28,20 +28,17 @@ import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
-import net.digitalid.utility.collaboration.annotations.TODO;
-import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.conversion.interfaces.Converter;
-import net.digitalid.utility.conversion.model.CustomField;
 import net.digitalid.utility.conversion.model.CustomType;
 import net.digitalid.utility.exceptions.CaseExceptionBuilder;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
-import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.immutable.ImmutableMap;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.ColumnPlan;
 import net.digitalid.database.interfaces.SQLDecoder;
 
 /**
@@ -65,7 +62,6 @@ import net.digitalid.database.interfaces.SQLDecoder;
  * @see SQLDecoder
  */
 @Mutable
-@TODO(task = "Check ultimately whether it makes sense that the SQLEncoder extends AutoCloseable.", date = "2017-01-19", author = Author.KASPAR_ETTER)
 public abstract class SQLEncoderImplementation implements SQLEncoder {
     
     /* -------------------------------------------------- Representation -------------------------------------------------- */
@@ -79,6 +75,7 @@ public abstract class SQLEncoderImplementation implements SQLEncoder {
     /* -------------------------------------------------- Closing -------------------------------------------------- */
     
     @Impure
+    @Override
     public abstract void close() throws DatabaseException;
     
     /* -------------------------------------------------- Null -------------------------------------------------- */
@@ -103,6 +100,7 @@ public abstract class SQLEncoderImplementation implements SQLEncoder {
             .with(CustomType.DECIMAL64, Types.DOUBLE)
             .with(CustomType.STRING1, Types.CHAR)
             .with(CustomType.STRING64, Types.VARCHAR)
+            .with(CustomType.STRING128, Types.VARCHAR)
             .with(CustomType.STRING, Types.VARCHAR)
             .with(CustomType.BINARY128, Types.BINARY)
             .with(CustomType.BINARY256, Types.BINARY)
@@ -136,20 +134,15 @@ public abstract class SQLEncoderImplementation implements SQLEncoder {
         converter.convert(object, this);
     }
     
+    /**
+     * Sets all the columns of the given converter to null if the given object is null, where the SQL types of the columns are read from the {@link ColumnPlan column plan}.
+     */
     @Impure
     @Override
     public <TYPE> void encodeNullableObject(@Nonnull Converter<TYPE, ?> converter, @Nullable @NonCaptured @Unmodified TYPE object) throws DatabaseException {
         if (object == null) {
-            final @Nonnull ImmutableList<@Nonnull CustomField> fields = converter.getFields(Representation.INTERNAL);
-            for (@Nonnull CustomField field : fields) {
-                if (field.getCustomType().isObjectType()) {
-                    encodeNullableObject(((CustomType.CustomConverterType) field.getCustomType()).getConverter(), null);
-                } else {
-                    if (!field.getCustomType().isCompositeType()) {
-                        encodeNull(TYPES.get(field.getCustomType()));
-                    }
-                }
-            }
+            final @Nonnull ColumnPlan plan = ColumnPlan.of(converter);
+            for (int i = 0; i < plan.getColumnCount(); i++) { encodeNull(plan.getSQLType(i)); }
         } else {
             encodeObject(converter, object);
         }
@@ -17,7 +17,9 @@ package net.digitalid.database.interfaces.encoder;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.exceptions.DatabaseException;
@@ -42,4 +44,11 @@ public interface SQLQueryEncoder extends SQLEncoder {
     @PureWithSideEffects
     public abstract @Nonnull SQLDecoder execute() throws DatabaseException;
     
+    /**
+     * Gives the database a hint about how many rows should be fetched at once when iterating over the result, where zero means that the database decides.
+     * Setting a fetch size allows large results to be processed without loading all rows into memory.
+     */
+    @Impure
+    public abstract void setFetchSize(@NonNegative int fetchSize) throws DatabaseException;
+    
 }
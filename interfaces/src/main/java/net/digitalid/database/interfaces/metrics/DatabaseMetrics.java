@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.metrics;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * Database metrics record the duration and outcome of the statements, commits and rollbacks that the database executes.
+ * The statements are reported with their SQL string, which implementations can reduce to a {@link StatementFingerprint fingerprint}.
+ * 
+ * @see RecordingDatabaseMetrics
+ */
+@Mutable
+@ThreadSafe
+public interface DatabaseMetrics {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the metrics to which all database operations are reported, which discard everything by default.
+     */
+    public static final @Nonnull Configuration<DatabaseMetrics> instance = Configuration.<DatabaseMetrics>with(DisabledDatabaseMetrics.INSTANCE);
+    
+    /* -------------------------------------------------- Enabled -------------------------------------------------- */
+    
+    /**
+     * Returns whether these metrics record anything so that callers can skip expensive preparations otherwise.
+     */
+    @Pure
+    public boolean isEnabled();
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    /**
+     * Records that the given statement was executed on the given unit in the given number of nanoseconds.
+     * 
+     * @param rows the number of rows that were inserted, updated or deleted or -1 if unknown.
+     * @param batchSize the number of parameter sets that were executed together or 1 if the statement was not batched.
+     * @param failed whether the execution of the statement failed.
+     */
+    @Impure
+    public void recordStatement(@Nonnull String statement, @Nonnull Unit unit, @NonNegative long nanoseconds, long rows, @NonNegative int batchSize, boolean failed);
+    
+    /**
+     * Records that the given number of rows were read from the result of the given query on the given unit.
+     */
+    @Impure
+    public void recordRowsRead(@Nonnull String statement, @Nonnull Unit unit, @NonNegative long rows);
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    /**
+     * Records that a transaction was committed in the given number of nanoseconds.
+     */
+    @Impure
+    public void recordCommit(@NonNegative long nanoseconds, boolean failed);
+    
+    /**
+     * Records that a transaction was rolled back in the given number of nanoseconds.
+     */
+    @Impure
+    public void recordRollback(@NonNegative long nanoseconds);
+    
+    /* -------------------------------------------------- Connections -------------------------------------------------- */
+    
+    /**
+     * Records that a transaction waited the given number of nanoseconds for a connection.
+     */
+    @Impure
+    public void recordConnectionWait(@NonNegative long nanoseconds);
+    
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.metrics;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * These database metrics discard everything that is reported to them.
+ */
+@Immutable
+public final class DisabledDatabaseMetrics implements DatabaseMetrics {
+    
+    /**
+     * Stores the only instance of this class.
+     */
+    public static final @Nonnull DisabledDatabaseMetrics INSTANCE = new DisabledDatabaseMetrics();
+    
+    private DisabledDatabaseMetrics() {}
+    
+    @Pure
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+    
+    @Impure
+    @Override
+    public void recordStatement(@Nonnull String statement, @Nonnull Unit unit, long nanoseconds, long rows, int batchSize, boolean failed) {}
+    
+    @Impure
+    @Override
+    public void recordRowsRead(@Nonnull String statement, @Nonnull Unit unit, long rows) {}
+    
+    @Impure
+    @Override
+    public void recordCommit(long nanoseconds, boolean failed) {}
+    
+    @Impure
+    @Override
+    public void recordRollback(long nanoseconds) {}
+    
+    @Impure
+    @Override
+    public void recordConnectionWait(long nanoseconds) {}
+    
+}
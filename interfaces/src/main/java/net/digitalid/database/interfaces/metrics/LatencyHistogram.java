@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A latency histogram counts durations in buckets whose bounds are powers of two nanoseconds.
+ * Recording a duration is lock-free and allocation-free, while percentiles are estimated with a relative error of at most a factor of two.
+ */
+@Mutable
+@ThreadSafe
+public class LatencyHistogram {
+    
+    /* -------------------------------------------------- Buckets -------------------------------------------------- */
+    
+    /**
+     * Counts the durations of at most 2^i - 1 nanoseconds and at least 2^(i - 1) nanoseconds at index i.
+     */
+    private final @Nonnull AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+    
+    private final @Nonnull AtomicLong count = new AtomicLong();
+    
+    private final @Nonnull AtomicLong total = new AtomicLong();
+    
+    private final @Nonnull AtomicLong maximum = new AtomicLong();
+    
+    /* -------------------------------------------------- Recording -------------------------------------------------- */
+    
+    /**
+     * Records the given duration in nanoseconds.
+     */
+    @Impure
+    public void record(long nanoseconds) {
+        final long duration = Math.max(0, nanoseconds);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(duration));
+        count.incrementAndGet();
+        total.addAndGet(duration);
+        long current;
+        while (duration > (current = maximum.get()) && !maximum.compareAndSet(current, duration)) {}
+    }
+    
+    /**
+     * Resets all the counts of this histogram.
+     * Durations that are recorded concurrently might be counted only partially.
+     */
+    @Impure
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) { buckets.set(i, 0); }
+        count.set(0);
+        total.set(0);
+        maximum.set(0);
+    }
+    
+    /* -------------------------------------------------- Statistics -------------------------------------------------- */
+    
+    /**
+     * Returns the number of recorded durations.
+     */
+    @Pure
+    public @NonNegative long getCount() {
+        return count.get();
+    }
+    
+    /**
+     * Returns the sum of the recorded durations in nanoseconds.
+     */
+    @Pure
+    public @NonNegative long getTotal() {
+        return total.get();
+    }
+    
+    /**
+     * Returns the longest recorded duration in nanoseconds.
+     */
+    @Pure
+    public @NonNegative long getMaximum() {
+        return maximum.get();
+    }
+    
+    /**
+     * Returns the average of the recorded durations in nanoseconds or zero if no durations were recorded.
+     */
+    @Pure
+    public @NonNegative long getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : getTotal() / count;
+    }
+    
+    /**
+     * Returns an upper bound in nanoseconds for the given percentile of the recorded durations, which has to be between 0 and 100.
+     */
+    @Pure
+    public @NonNegative long getPercentile(double percentile) {
+        long remaining = 0;
+        for (int i = 0; i < buckets.length(); i++) { remaining += buckets.get(i); }
+        if (remaining == 0) { return 0; }
+        final long rank = (long) Math.ceil(remaining * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) { return Math.min((1L << i) - 1, getMaximum()); }
+        }
+        return getMaximum();
+    }
+    
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * These database metrics aggregate the reported operations in memory.
+ * The statements are aggregated by their unit and {@link StatementFingerprint fingerprint}.
+ */
+@Mutable
+@ThreadSafe
+public class RecordingDatabaseMetrics implements DatabaseMetrics {
+    
+    /* -------------------------------------------------- Enabled -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+    
+    /* -------------------------------------------------- Fingerprints -------------------------------------------------- */
+    
+    /**
+     * Limits the number of statements whose fingerprint is cached.
+     */
+    private static final int MAXIMUM_CACHED_FINGERPRINTS = 10_000;
+    
+    /**
+     * Caches the fingerprints of the statements, which are usually generated from a limited number of templates.
+     */
+    private final @Nonnull ConcurrentMap<@Nonnull String, @Nonnull String> fingerprints = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the (cached) fingerprint of the given statement.
+     */
+    @Impure
+    protected @Nonnull String getFingerprint(@Nonnull String statement) {
+        @Nullable String fingerprint = fingerprints.get(statement);
+        if (fingerprint == null) {
+            fingerprint = StatementFingerprint.of(statement);
+            if (fingerprints.size() < MAXIMUM_CACHED_FINGERPRINTS) { fingerprints.putIfAbsent(statement, fingerprint); }
+        }
+        return fingerprint;
+    }
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    /**
+     * Stores the statistics of the statements by unit and fingerprint.
+     */
+    private final @Nonnull ConcurrentMap<@Nonnull String, @Nonnull ConcurrentMap<@Nonnull String, @Nonnull StatementStatistics>> statistics = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the statistics of the given statement on the given unit and creates them if necessary.
+     */
+    @Impure
+    protected @Nonnull StatementStatistics getStatistics(@Nonnull String statement, @Nonnull Unit unit) {
+        @Nullable ConcurrentMap<@Nonnull String, @Nonnull StatementStatistics> statisticsOfUnit = statistics.get(unit.getName());
+        if (statisticsOfUnit == null) {
+            statistics.putIfAbsent(unit.getName(), new ConcurrentHashMap<@Nonnull String, @Nonnull StatementStatistics>());
+            statisticsOfUnit = statistics.get(unit.getName());
+        }
+        final @Nonnull String fingerprint = getFingerprint(statement);
+        @Nullable StatementStatistics result = statisticsOfUnit.get(fingerprint);
+        if (result == null) {
+            statisticsOfUnit.putIfAbsent(fingerprint, new StatementStatistics(fingerprint, unit.getName()));
+            result = statisticsOfUnit.get(fingerprint);
+        }
+        return result;
+    }
+    
+    @Impure
+    @Override
+    public void recordStatement(@Nonnull String statement, @Nonnull Unit unit, long nanoseconds, long rows, int batchSize, boolean failed) {
+        getStatistics(statement, unit).recordExecution(nanoseconds, rows, batchSize, failed);
+    }
+    
+    @Impure
+    @Override
+    public void recordRowsRead(@Nonnull String statement, @Nonnull Unit unit, long rows) {
+        getStatistics(statement, unit).recordRowsRead(rows);
+    }
+    
+    /**
+     * Returns a snapshot of the statistics of all statements.
+     */
+    @Pure
+    public @Nonnull List<@Nonnull StatementStatistics> getStatementStatistics() {
+        final @Nonnull List<@Nonnull StatementStatistics> result = new ArrayList<>();
+        for (@Nonnull ConcurrentMap<@Nonnull String, @Nonnull StatementStatistics> statisticsOfUnit : statistics.values()) {
+            result.addAll(statisticsOfUnit.values());
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the statistics of at most the given number of statements that took the most time in total.
+     */
+    @Pure
+    public @Nonnull List<@Nonnull StatementStatistics> getHotStatements(@NonNegative int limit) {
+        final @Nonnull List<@Nonnull StatementStatistics> result = getStatementStatistics();
+        Collections.sort(result, new Comparator<StatementStatistics>() {
+            @Override
+            public int compare(@Nonnull StatementStatistics first, @Nonnull StatementStatistics second) {
+                return Long.compare(second.getLatency().getTotal(), first.getLatency().getTotal());
+            }
+        });
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    private final @Nonnull LatencyHistogram commitLatency = new LatencyHistogram();
+    
+    /**
+     * Returns the histogram of the commit times, which also counts the commits.
+     */
+    @Pure
+    public @Nonnull LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+    
+    private final @Nonnull AtomicLong commitFailures = new AtomicLong();
+    
+    /**
+     * Returns how many commits failed.
+     */
+    @Pure
+    public @NonNegative long getCommitFailures() {
+        return commitFailures.get();
+    }
+    
+    @Impure
+    @Override
+    public void recordCommit(long nanoseconds, boolean failed) {
+        commitLatency.record(nanoseconds);
+        if (failed) { commitFailures.incrementAndGet(); }
+    }
+    
+    private final @Nonnull LatencyHistogram rollbackLatency = new LatencyHistogram();
+    
+    /**
+     * Returns the histogram of the rollback times, which also counts the rollbacks.
+     */
+    @Pure
+    public @Nonnull LatencyHistogram getRollbackLatency() {
+        return rollbackLatency;
+    }
+    
+    @Impure
+    @Override
+    public void recordRollback(long nanoseconds) {
+        rollbackLatency.record(nanoseconds);
+    }
+    
+    /* -------------------------------------------------- Connections -------------------------------------------------- */
+    
+    private final @Nonnull LatencyHistogram connectionWait = new LatencyHistogram();
+    
+    /**
+     * Returns the histogram of the times that transactions waited for a connection.
+     */
+    @Pure
+    public @Nonnull LatencyHistogram getConnectionWait() {
+        return connectionWait;
+    }
+    
+    @Impure
+    @Override
+    public void recordConnectionWait(long nanoseconds) {
+        connectionWait.record(nanoseconds);
+    }
+    
+    /* -------------------------------------------------- Reset -------------------------------------------------- */
+    
+    /**
+     * Discards everything that has been recorded so far.
+     */
+    @Impure
+    public void reset() {
+        statistics.clear();
+        commitLatency.reset();
+        commitFailures.set(0);
+        rollbackLatency.reset();
+        connectionWait.reset();
+    }
+    
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.metrics;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * The fingerprint of a statement is its SQL string with collapsed whitespace and all literals replaced by question marks
+ * so that the executions of a statement with different literal values are aggregated together.
+ * (Statements with parameters are already normalized, which is why the fingerprint of such statements is usually the statement itself.)
+ */
+@Utility
+public abstract class StatementFingerprint {
+    
+    /**
+     * Returns the fingerprint of the given statement.
+     */
+    @Pure
+    public static @Nonnull String of(@Nonnull String statement) {
+        final @Nonnull StringBuilder result = new StringBuilder(statement.length());
+        final int length = statement.length();
+        int i = 0;
+        while (i < length) {
+            final char c = statement.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(statement.charAt(i))) { i++; }
+                if (result.length() > 0 && i < length) { result.append(' '); }
+            } else if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (statement.charAt(i) == '\'') {
+                        if (i + 1 < length && statement.charAt(i + 1) == '\'') { i += 2; }
+                        else { i++; break; }
+                    } else { i++; }
+                }
+                result.append('?');
+            } else if (Character.isDigit(c) && (result.length() == 0 || !isIdentifierPart(result.charAt(result.length() - 1)))) {
+                while (i < length && (Character.isLetterOrDigit(statement.charAt(i)) || statement.charAt(i) == '.')) { i++; }
+                result.append('?');
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Returns whether the given character can be part of an identifier.
+     */
+    @Pure
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '"' || c == '`';
+    }
+    
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * Statement statistics aggregate the executions of all statements with the same fingerprint on the same unit.
+ */
+@Mutable
+@ThreadSafe
+public class StatementStatistics {
+    
+    /* -------------------------------------------------- Key -------------------------------------------------- */
+    
+    private final @Nonnull String fingerprint;
+    
+    /**
+     * Returns the fingerprint of the aggregated statements.
+     */
+    @Pure
+    public @Nonnull String getFingerprint() {
+        return fingerprint;
+    }
+    
+    private final @Nonnull String unit;
+    
+    /**
+     * Returns the name of the unit on which the statements were executed.
+     */
+    @Pure
+    public @Nonnull String getUnit() {
+        return unit;
+    }
+    
+    /* -------------------------------------------------- Counters -------------------------------------------------- */
+    
+    private final @Nonnull LatencyHistogram latency = new LatencyHistogram();
+    
+    /**
+     * Returns the histogram of the execution times, which also counts the executions.
+     */
+    @Pure
+    public @Nonnull LatencyHistogram getLatency() {
+        return latency;
+    }
+    
+    private final @Nonnull AtomicLong failures = new AtomicLong();
+    
+    /**
+     * Returns how many executions failed.
+     */
+    @Pure
+    public @NonNegative long getFailures() {
+        return failures.get();
+    }
+    
+    private final @Nonnull AtomicLong rowsWritten = new AtomicLong();
+    
+    /**
+     * Returns how many rows were inserted, updated or deleted as far as reported by the driver.
+     */
+    @Pure
+    public @NonNegative long getRowsWritten() {
+        return rowsWritten.get();
+    }
+    
+    private final @Nonnull AtomicLong rowsRead = new AtomicLong();
+    
+    /**
+     * Returns how many rows were read from the results of the queries.
+     */
+    @Pure
+    public @NonNegative long getRowsRead() {
+        return rowsRead.get();
+    }
+    
+    private final @Nonnull AtomicLong batches = new AtomicLong();
+    
+    /**
+     * Returns how many of the executions were batches.
+     */
+    @Pure
+    public @NonNegative long getBatches() {
+        return batches.get();
+    }
+    
+    private final @Nonnull AtomicLong batchedRows = new AtomicLong();
+    
+    /**
+     * Returns how many parameter sets were executed in batches, which divided by the number of batches yields the average batch size.
+     */
+    @Pure
+    public @NonNegative long getBatchedRows() {
+        return batchedRows.get();
+    }
+    
+    /* -------------------------------------------------- Recording -------------------------------------------------- */
+    
+    /**
+     * Records an execution with the given duration, number of affected rows (or -1 if unknown), batch size and outcome.
+     */
+    @Impure
+    void recordExecution(long nanoseconds, long rows, int batchSize, boolean failed) {
+        latency.record(nanoseconds);
+        if (failed) { failures.incrementAndGet(); }
+        if (rows > 0) { rowsWritten.addAndGet(rows); }
+        if (batchSize > 1) {
+            batches.incrementAndGet();
+            batchedRows.addAndGet(batchSize);
+        }
+    }
+    
+    /**
+     * Records that the given number of rows were read.
+     */
+    @Impure
+    void recordRowsRead(long rows) {
+        rowsRead.addAndGet(rows);
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return unit + ": " + fingerprint + " (executions: " + latency.getCount() + ", failures: " + getFailures() + ", total: " + latency.getTotal() / 1_000_000 + " ms, mean: " + latency.getMean() / 1_000 + " µs, p99: " + latency.getPercentile(99) / 1_000 + " µs, rows written: " + getRowsWritten() + ", rows read: " + getRowsRead() + ", batches: " + getBatches() + ")";
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected StatementStatistics(@Nonnull String fingerprint, @Nonnull String unit) {
+        this.fingerprint = fingerprint;
+        this.unit = unit;
+    }
+    
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.tracing;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * The calling site is the first stack frame outside of the Java runtime and the database layers that only pass statements through,
+ * which identifies the code that caused a statement or transaction.
+ * Since determining the calling site requires a stack walk, it should only be done for sampled or exceptional events.
+ */
+@Utility
+public abstract class CallingSite {
+    
+    /**
+     * Returns whether the given class belongs to the Java runtime or a layer that only passes statements through.
+     */
+    @Pure
+    private static boolean isSkipped(@Nonnull String className) {
+        return className.startsWith("java.") || className.startsWith("sun.")
+                || className.startsWith("net.digitalid.database.interfaces.")
+                || className.startsWith("net.digitalid.database.conversion.")
+                || className.startsWith("net.digitalid.database.jdbc.")
+                || className.startsWith("net.digitalid.database.android.");
+    }
+    
+    /**
+     * Returns the calling site of the current thread as class, method and line number.
+     */
+    @Pure
+    public static @Nonnull String get() {
+        for (@Nonnull StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            if (!isSkipped(element.getClassName())) {
+                return element.getClassName().replace("net.digitalid.", "") + "." + element.getMethodName() + ":" + element.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+    
+}
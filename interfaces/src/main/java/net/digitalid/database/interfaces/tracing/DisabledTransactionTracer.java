@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.tracing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.interfaces.Transaction;
+
+/**
+ * This transaction tracer discards all events.
+ */
+@Immutable
+public final class DisabledTransactionTracer implements TransactionTracer {
+    
+    /**
+     * Stores the only instance of this class.
+     */
+    public static final @Nonnull DisabledTransactionTracer INSTANCE = new DisabledTransactionTracer();
+    
+    private DisabledTransactionTracer() {}
+    
+    @Pure
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+    
+    @Impure
+    @Override
+    public @Nullable String sampleOrigin() {
+        return null;
+    }
+    
+    @Impure
+    @Override
+    public void transactionBegan(@Nonnull Transaction transaction, @Nullable String origin) {}
+    
+    @Impure
+    @Override
+    public void transactionEnded(@Nonnull Transaction transaction, boolean committed, long nanoseconds, int statements, @Nullable String origin) {}
+    
+}
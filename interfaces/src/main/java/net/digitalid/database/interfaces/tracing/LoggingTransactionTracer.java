@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.interfaces.Transaction;
+
+/**
+ * This transaction tracer logs the begin of a transaction as verbose and its end with the duration, statement count and origin as debugging.
+ * The origin of a transaction is determined with a stack walk for the configured fraction of the transactions.
+ */
+@Mutable
+@ThreadSafe
+public class LoggingTransactionTracer implements TransactionTracer {
+    
+    /* -------------------------------------------------- Sampling Rate -------------------------------------------------- */
+    
+    private final double samplingRate;
+    
+    /**
+     * Returns the fraction of the transactions whose origin is determined, which is between 0 and 1.
+     */
+    @Pure
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+    
+    /* -------------------------------------------------- Enabled -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+    
+    /* -------------------------------------------------- Origin -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public @Nullable String sampleOrigin() {
+        if (samplingRate <= 0 || samplingRate < 1 && ThreadLocalRandom.current().nextDouble() >= samplingRate) { return null; }
+        return CallingSite.get();
+    }
+    
+    /* -------------------------------------------------- Events -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void transactionBegan(@Nonnull Transaction transaction, @Nullable String origin) {
+        Log.verbose("Began a database transaction from $.", origin == null ? "an unsampled origin" : origin);
+    }
+    
+    @Impure
+    @Override
+    public void transactionEnded(@Nonnull Transaction transaction, boolean committed, long nanoseconds, int statements, @Nullable String origin) {
+        Log.debugging("$ the database transaction from $ after $ µs and $ statements.", committed ? "Committed" : "Rolled back", origin == null ? "an unsampled origin" : origin, nanoseconds / 1_000, statements);
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a logging transaction tracer that determines the origin for the given fraction of the transactions.
+     */
+    public LoggingTransactionTracer(double samplingRate) {
+        this.samplingRate = Math.min(1, Math.max(0, samplingRate));
+    }
+    
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.tracing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.interfaces.Transaction;
+
+/**
+ * A transaction tracer receives an event when a transaction executes its first statement and when it is committed or rolled back.
+ * Transactions without statements are not traced. The origin of a transaction is only determined if the tracer {@link #sampleOrigin() samples} it,
+ * which allows to restrict the expensive stack walks to a fraction of the transactions.
+ * 
+ * @see LoggingTransactionTracer
+ */
+@Mutable
+@ThreadSafe
+public interface TransactionTracer {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the tracer to which all transactions are reported, which is disabled by default.
+     */
+    public static final @Nonnull Configuration<TransactionTracer> instance = Configuration.<TransactionTracer>with(DisabledTransactionTracer.INSTANCE);
+    
+    /* -------------------------------------------------- Enabled -------------------------------------------------- */
+    
+    /**
+     * Returns whether this tracer records anything so that transactions do not track their statements otherwise.
+     */
+    @Pure
+    public boolean isEnabled();
+    
+    /* -------------------------------------------------- Origin -------------------------------------------------- */
+    
+    /**
+     * Returns the site from which the current transaction was started or null if the origin of the current transaction is not sampled.
+     * This method is called when a transaction executes its first statement.
+     */
+    @Impure
+    public @Nullable String sampleOrigin();
+    
+    /* -------------------------------------------------- Events -------------------------------------------------- */
+    
+    /**
+     * Traces that the given transaction began with its first statement from the given origin.
+     */
+    @Impure
+    public void transactionBegan(@Nonnull Transaction transaction, @Nullable String origin);
+    
+    /**
+     * Traces that the given transaction was committed or rolled back after the given number of nanoseconds and statements.
+     */
+    @Impure
+    public void transactionEnded(@Nonnull Transaction transaction, boolean committed, @NonNegative long nanoseconds, @Positive int statements, @Nullable String origin);
+    
+}
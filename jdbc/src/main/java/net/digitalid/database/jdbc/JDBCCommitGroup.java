@@ -0,0 +1,415 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
+
+/**
+ * A commit group lets concurrent implicit read-write transactions share a single physical commit.
+ * The members of a group execute their statements one after the other on a shared connection, each of them after a savepoint
+ * so that a member can be rolled back without affecting the others. The first member that commits becomes the leader of the batch
+ * and commits the shared connection once the group commit window has elapsed or the batch is full. The other members wait for
+ * this physical commit so that each of them still learns whether its own commit succeeded or failed.
+ * <p>
+ * <em>Important:</em> A member has exclusive access to the shared connection from its first statement until its commit or rollback,
+ * which is why only short transactions should be executed while group commit is enabled.
+ */
+@Mutable
+@ThreadSafe
+public class JDBCCommitGroup {
+    
+    /* -------------------------------------------------- Batch -------------------------------------------------- */
+    
+    /**
+     * A batch collects the members of a commit group that are committed together on the same connection.
+     */
+    static class Batch {
+        
+        private final @Nonnull JDBCPooledConnection pooledConnection;
+        
+        /**
+         * Counts the members that have requested to commit and are waiting for the physical commit.
+         */
+        private int committedMembers = 0;
+        
+        private final @Nonnull CountDownLatch completion = new CountDownLatch(1);
+        
+        private volatile @Nullable SQLException failure;
+        
+        /**
+         * Stores whether the outcome of this batch is decided by a physical commit or rollback, which is guarded by this batch.
+         */
+        private boolean claimed = false;
+        
+        /**
+         * Stores whether this batch was given up because it could not be committed in time, which is guarded by this batch.
+         */
+        private boolean abandoned = false;
+        
+        /**
+         * Stores whether the connection of this batch has been returned to the pool, which is guarded by the permit.
+         */
+        private boolean released = false;
+        
+        Batch(@Nonnull JDBCPooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+        
+        /**
+         * Claims this batch for its physical commit or rollback and returns whether the claim succeeded, which is not the case if it was abandoned.
+         */
+        @Impure
+        synchronized boolean claim() {
+            if (!abandoned) { claimed = true; }
+            return claimed;
+        }
+        
+        /**
+         * Abandons this batch with the given failure and returns whether it succeeded, which is not the case if the batch was claimed already.
+         * The waiting members are notified immediately, whereas the shared connection is only rolled back by the next holder of the permit.
+         */
+        @Impure
+        synchronized boolean abandon(@Nonnull SQLException failure) {
+            if (claimed || abandoned) { return false; }
+            this.abandoned = true;
+            this.failure = failure;
+            completion.countDown();
+            return true;
+        }
+        
+        /**
+         * Returns whether this batch was abandoned.
+         */
+        @Pure
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull JDBCDatabase database;
+    
+    private final @NonNegative long window;
+    
+    private final @Positive int maximumSize;
+    
+    private final @Positive long timeout;
+    
+    /**
+     * Grants a single member at a time access to the shared connection.
+     * (A semaphore is used instead of a lock because a transaction may be handed off to another thread before it is committed.)
+     */
+    private final @Nonnull Semaphore permit = new Semaphore(1, true);
+    
+    /**
+     * Stores the batch that new members join or null if a new batch has to be started, which is guarded by the permit.
+     */
+    private @Nullable Batch currentBatch;
+    
+    /* -------------------------------------------------- Join -------------------------------------------------- */
+    
+    /**
+     * Lets the given transaction join the current batch of this group, which starts a new batch with a connection from the pool if necessary.
+     * The transaction keeps the exclusive access to the shared connection until it is committed or rolled back.
+     */
+    @Impure
+    @NonCommitting
+    void join(@Nonnull JDBCTransaction transaction) throws DatabaseException {
+        try {
+            if (!permit.tryAcquire(timeout, TimeUnit.MILLISECONDS)) { throw DatabaseExceptionBuilder.withCause(new SQLException("Could not join the commit group within " + timeout + " ms.")).build(); }
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw DatabaseExceptionBuilder.withCause(new SQLException("Interrupted while waiting to join the commit group.", exception)).build();
+        }
+        try {
+            @Nullable Batch batch = currentBatch;
+            if (batch != null && batch.isAbandoned()) {
+                discard(batch);
+                batch = null;
+            }
+            if (batch == null) {
+                final @Nonnull JDBCPooledConnection pooledConnection = database.getPool().borrow();
+                try {
+                    pooledConnection.configure(database.getEffectiveIsolationLevel(false), false, SQLDialect.instance.get().supportsReadOnlyTransactions());
+                } catch (@Nonnull SQLException exception) {
+                    database.getPool().release(pooledConnection, false);
+                    throw exception;
+                }
+                batch = new Batch(pooledConnection);
+                currentBatch = batch;
+            }
+            final @Nullable Savepoint savepoint = batch.committedMembers == 0 ? null : batch.pooledConnection.getConnection().setSavepoint();
+            transaction.setCommitBatch(batch, savepoint);
+            transaction.setPooledConnection(batch.pooledConnection);
+        } catch (@Nonnull SQLException exception) {
+            permit.release();
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        } catch (@Nonnull DatabaseException | RuntimeException exception) {
+            permit.release();
+            throw exception;
+        }
+    }
+    
+    /* -------------------------------------------------- Commit -------------------------------------------------- */
+    
+    /**
+     * Commits the given member transaction together with the other members of its batch and waits for the physical commit.
+     * The leader of the batch waits at most the timeout for the permit after the window has elapsed and every member waits
+     * at most the window and the timeout for the physical commit to begin, after which the batch is abandoned and rolled back.
+     * 
+     * @throws DatabaseException if the physical commit failed or did not happen in time, in which case the changes of the transaction have been rolled back.
+     */
+    @Impure
+    @Committing
+    void commit(@Nonnull JDBCTransaction transaction) throws DatabaseException {
+        final @Nonnull Batch batch = transaction.getCommitBatch();
+        final @Nullable Savepoint savepoint = transaction.getSavepoint();
+        transaction.setCommitBatch(null, null);
+        transaction.setPooledConnection(null);
+        
+        if (savepoint != null && !batch.isAbandoned()) { releaseSavepoint(batch, savepoint); }
+        batch.committedMembers++;
+        final boolean leader = batch.committedMembers == 1;
+        if (batch.isAbandoned()) {
+            discard(batch);
+            permit.release();
+        } else if (batch.committedMembers >= maximumSize) {
+            flush(batch);
+            permit.release();
+        } else {
+            permit.release();
+            if (leader) {
+                try {
+                    // The leader stops waiting early if the batch is flushed by a member that filled it.
+                    batch.completion.await(window, TimeUnit.MILLISECONDS);
+                } catch (@Nonnull InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                if (batch.completion.getCount() > 0) { flushAfterWindow(batch); }
+            }
+        }
+        
+        awaitCompletion(batch);
+        
+        final @Nullable SQLException failure = batch.failure;
+        if (failure != null) { throw DatabaseExceptionBuilder.withCause(failure).build(); }
+    }
+    
+    /**
+     * Flushes the given batch once its window has elapsed, which abandons the batch if the permit cannot be acquired within the timeout
+     * because a member keeps the shared connection for too long.
+     */
+    @Impure
+    @Committing
+    private void flushAfterWindow(@Nonnull Batch batch) {
+        boolean acquired = false;
+        try {
+            acquired = permit.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (acquired) {
+            try {
+                if (currentBatch == batch) { flush(batch); }
+            } finally {
+                permit.release();
+            }
+        } else {
+            batch.abandon(new SQLException("The commit group could not be committed because a member kept the shared connection for more than " + timeout + " ms."));
+        }
+    }
+    
+    /**
+     * Waits until the given batch is completed, which abandons the batch if its physical commit has not begun within the window and the timeout.
+     * Once the physical commit has begun, its outcome is awaited without a bound as the connection then belongs to the committing thread.
+     */
+    @Impure
+    private void awaitCompletion(@Nonnull Batch batch) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window + timeout);
+        boolean interrupted = false;
+        while (batch.completion.getCount() > 0) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 && batch.abandon(new SQLException("The commit group was not committed within " + (window + timeout) + " ms."))) { break; }
+            try {
+                if (remaining > 0) { batch.completion.await(remaining, TimeUnit.NANOSECONDS); }
+                else { batch.completion.await(); }
+            } catch (@Nonnull InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) { Thread.currentThread().interrupt(); }
+    }
+    
+    /**
+     * Commits the shared connection of the given batch and completes the batch, which requires the permit.
+     */
+    @Impure
+    @Committing
+    private void flush(@Nonnull Batch batch) {
+        if (currentBatch == batch) { currentBatch = null; }
+        if (!batch.claim()) {
+            discard(batch);
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            batch.pooledConnection.getConnection().commit();
+            DatabaseMetrics.instance.get().recordCommit(System.nanoTime() - start, false);
+            complete(batch, null, true);
+        } catch (@Nonnull SQLException exception) {
+            DatabaseMetrics.instance.get().recordCommit(System.nanoTime() - start, true);
+            fail(batch, exception);
+        }
+    }
+    
+    /**
+     * Rolls back the shared connection of the given batch and completes the batch with the given failure, which requires the permit.
+     */
+    @Impure
+    @Committing
+    private void fail(@Nonnull Batch batch, @Nonnull SQLException failure) {
+        if (currentBatch == batch) { currentBatch = null; }
+        if (!batch.claim()) {
+            discard(batch);
+            return;
+        }
+        try {
+            batch.pooledConnection.getConnection().rollback();
+        } catch (@Nonnull SQLException rollbackException) {
+            Log.warning("Could not roll back the commit group after a failure.", rollbackException);
+        }
+        complete(batch, failure, false);
+    }
+    
+    /**
+     * Rolls back the shared connection of the given abandoned batch and returns it to the pool unless this has been done already, which requires the permit.
+     * The members of an abandoned batch have been notified of the failure already.
+     */
+    @Impure
+    @Committing
+    private void discard(@Nonnull Batch batch) {
+        if (currentBatch == batch) { currentBatch = null; }
+        if (batch.released) { return; }
+        boolean reusable = false;
+        try {
+            batch.pooledConnection.getConnection().rollback();
+            reusable = true;
+        } catch (@Nonnull SQLException exception) {
+            Log.warning("Could not roll back an abandoned commit group.", exception);
+        }
+        batch.released = true;
+        batch.pooledConnection.checkForLeaks();
+        database.getPool().release(batch.pooledConnection, reusable);
+    }
+    
+    /**
+     * Returns the connection of the given batch to the pool and notifies the waiting members.
+     */
+    @Impure
+    private void complete(@Nonnull Batch batch, @Nullable SQLException failure, boolean reusable) {
+        batch.failure = failure;
+        batch.released = true;
+        batch.pooledConnection.checkForLeaks();
+        database.getPool().release(batch.pooledConnection, reusable);
+        batch.completion.countDown();
+    }
+    
+    /* -------------------------------------------------- Savepoints -------------------------------------------------- */
+    
+    /**
+     * Releases the given savepoint of a member on the shared connection of the given batch once the member no longer needs it,
+     * which requires the permit. Otherwise, the savepoints of all members would pile up on the connection until the physical commit.
+     * As the savepoint is no longer needed anyway, a failure to release it is only logged.
+     */
+    @Impure
+    private static void releaseSavepoint(@Nonnull Batch batch, @Nonnull Savepoint savepoint) {
+        try {
+            batch.pooledConnection.getConnection().releaseSavepoint(savepoint);
+        } catch (@Nonnull SQLException exception) {
+            Log.debugging("Could not release the savepoint of a member of the commit group.", exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Rollback -------------------------------------------------- */
+    
+    /**
+     * Rolls back the changes of the given member transaction without affecting the other members of its batch.
+     */
+    @Impure
+    @Committing
+    void rollback(@Nonnull JDBCTransaction transaction) {
+        final @Nonnull Batch batch = transaction.getCommitBatch();
+        final @Nullable Savepoint savepoint = transaction.getSavepoint();
+        transaction.setCommitBatch(null, null);
+        transaction.setPooledConnection(null);
+        
+        final long start = System.nanoTime();
+        try {
+            if (batch.isAbandoned()) {
+                discard(batch);
+            } else if (savepoint != null) {
+                batch.pooledConnection.getConnection().rollback(savepoint);
+                releaseSavepoint(batch, savepoint);
+            } else {
+                // Without a savepoint, the transaction is the first member of the batch and nobody waits for the batch yet.
+                batch.pooledConnection.getConnection().rollback();
+                currentBatch = null;
+                batch.claim();
+                complete(batch, null, true);
+            }
+        } catch (@Nonnull SQLException exception) {
+            Log.error("Could not roll back a member of the commit group.", exception);
+            fail(batch, exception);
+        } finally {
+            DatabaseMetrics.instance.get().recordRollback(System.nanoTime() - start);
+            permit.release();
+        }
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    JDBCCommitGroup(@Nonnull JDBCDatabase database, @NonNegative long window, @Positive int maximumSize, @Positive long timeout) {
+        this.database = database;
+        this.window = window;
+        this.maximumSize = maximumSize;
+        this.timeout = timeout;
+    }
+    
+}
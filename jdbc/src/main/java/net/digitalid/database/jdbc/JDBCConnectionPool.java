@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
+
+/**
+ * A connection pool keeps a bounded number of JDBC connections open so that they can be reused across transactions.
+ * Idle connections are kept in a stack so that the most recently used connection is handed out first,
+ * which allows the least recently used connections to expire after the idle timeout.
+ * A connection is only validated when it is borrowed if it was idle for longer than the validation interval,
+ * and a background keepalive validates and evicts the idle connections periodically.
+ */
+@Mutable
+@ThreadSafe
+public class JDBCConnectionPool implements AutoCloseable {
+    
+    /* -------------------------------------------------- Database -------------------------------------------------- */
+    
+    private final @Nonnull JDBCDatabase database;
+    
+    /* -------------------------------------------------- Limits -------------------------------------------------- */
+    
+    private final @Positive int maximumSize;
+    
+    /**
+     * Returns the maximum number of connections that are borrowed at the same time.
+     */
+    @Pure
+    public @Positive int getMaximumSize() {
+        return maximumSize;
+    }
+    
+    private final @Positive long borrowTimeout;
+    
+    /**
+     * Returns the number of milliseconds to wait for an available connection before giving up.
+     */
+    @Pure
+    public @Positive long getBorrowTimeout() {
+        return borrowTimeout;
+    }
+    
+    private final @NonNegative long idleTimeout;
+    
+    /**
+     * Returns the number of milliseconds after which an unused connection is closed or zero if idle connections are kept forever.
+     */
+    @Pure
+    public @NonNegative long getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    private final @NonNegative long maximumLifetime;
+    
+    /**
+     * Returns the number of milliseconds after which a connection is replaced or zero if connections are never replaced.
+     */
+    @Pure
+    public @NonNegative long getMaximumLifetime() {
+        return maximumLifetime;
+    }
+    
+    private final @NonNegative int statementCacheSize;
+    
+    /**
+     * Returns the maximum number of prepared statements that are cached per connection or zero if the statements are not cached.
+     */
+    @Pure
+    public @NonNegative int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    /* -------------------------------------------------- Validation -------------------------------------------------- */
+    
+    private final @NonNegative long validationInterval;
+    
+    /**
+     * Returns the number of milliseconds a connection may be idle before it is validated when it is borrowed or zero if it is validated every time.
+     */
+    @Pure
+    public @NonNegative long getValidationInterval() {
+        return validationInterval;
+    }
+    
+    private final @NonNegative long keepaliveInterval;
+    
+    /**
+     * Returns the number of milliseconds after which idle connections are validated in the background or zero if there is no background validation.
+     */
+    @Pure
+    public @NonNegative long getKeepaliveInterval() {
+        return keepaliveInterval;
+    }
+    
+    /* -------------------------------------------------- Leak Detection -------------------------------------------------- */
+    
+    private final @NonNegative long leakDetectionThreshold;
+    
+    /**
+     * Returns the number of milliseconds after which a statement that is still open is reported as a potential leak or zero if leak detection is disabled.
+     */
+    @Pure
+    public @NonNegative long getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    /**
+     * Limits the number of connections that are borrowed at the same time.
+     */
+    private final @Nonnull Semaphore permits;
+    
+    /**
+     * Stores the idle connections with the most recently used connection at the front.
+     */
+    private final @Nonnull BlockingDeque<@Nonnull JDBCPooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    
+    private volatile boolean closed = false;
+    
+    /**
+     * Returns whether this pool has been closed.
+     */
+    @Pure
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Returns the number of connections that are currently idle.
+     */
+    @Pure
+    public @NonNegative int getIdleCount() {
+        return idleConnections.size();
+    }
+    
+    /**
+     * Returns the number of connections that are currently borrowed.
+     */
+    @Pure
+    public @NonNegative int getActiveCount() {
+        return maximumSize - permits.availablePermits();
+    }
+    
+    /* -------------------------------------------------- Statement Cache Counters -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong statementCacheHits = new AtomicLong();
+    
+    /**
+     * Returns how many times a cached prepared statement was reused across all connections of this pool.
+     */
+    @Pure
+    public @NonNegative long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+    
+    @Impure
+    void recordStatementCacheHit() {
+        statementCacheHits.incrementAndGet();
+    }
+    
+    private final @Nonnull AtomicLong statementCacheMisses = new AtomicLong();
+    
+    /**
+     * Returns how many times a statement had to be prepared because it was not cached across all connections of this pool.
+     */
+    @Pure
+    public @NonNegative long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+    
+    @Impure
+    void recordStatementCacheMiss() {
+        statementCacheMisses.incrementAndGet();
+    }
+    
+    /* -------------------------------------------------- Borrowing -------------------------------------------------- */
+    
+    /**
+     * Borrows a connection from this pool and opens a new one if no valid idle connection is available.
+     * The returned connection has to be {@link #release(net.digitalid.database.jdbc.JDBCPooledConnection, boolean) released} again.
+     *
+     * @throws DatabaseException if no connection became available within the borrow timeout or a new connection could not be opened.
+     */
+    @Impure
+    @NonCommitting
+    public @Nonnull JDBCPooledConnection borrow() throws DatabaseException {
+        if (closed) { throw DatabaseExceptionBuilder.withCause(new SQLException("The connection pool has already been closed.")).build(); }
+        final long start = System.nanoTime();
+        try {
+            final boolean acquired = permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS);
+            DatabaseMetrics.instance.get().recordConnectionWait(System.nanoTime() - start);
+            if (!acquired) {
+                throw DatabaseExceptionBuilder.withCause(new SQLTransientConnectionException("No database connection became available within " + borrowTimeout + " ms.")).build();
+            }
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw DatabaseExceptionBuilder.withCause(new SQLTransientConnectionException("The thread was interrupted while waiting for a database connection.", exception)).build();
+        }
+        
+        try {
+            final long now = System.currentTimeMillis();
+            @Nullable JDBCPooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (pooledConnection.isExpired(now, idleTimeout, maximumLifetime)) {
+                    pooledConnection.closeQuietly();
+                } else if (pooledConnection.needsValidation(now, validationInterval) && !pooledConnection.validate(now)) {
+                    Log.debugging("The database connection is no longer valid and is thus replaced.");
+                    pooledConnection.closeQuietly();
+                } else {
+                    return pooledConnection;
+                }
+            }
+            Log.verbose("Opening a new database connection.");
+            final @Nonnull Connection connection = database.openConnection();
+            return new JDBCPooledConnection(connection, this, connection.getTransactionIsolation());
+        } catch (@Nonnull SQLException exception) {
+            permits.release();
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Releasing -------------------------------------------------- */
+    
+    /**
+     * Returns the given connection to this pool.
+     * If the connection is not reusable (e.g. because it failed), it is closed instead.
+     */
+    @Impure
+    public void release(@Nonnull JDBCPooledConnection pooledConnection, boolean reusable) {
+        try {
+            pooledConnection.touch();
+            if (!reusable || closed || pooledConnection.isExpired(pooledConnection.getLastUseTime(), idleTimeout, maximumLifetime)) {
+                pooledConnection.closeQuietly();
+            } else {
+                idleConnections.offerFirst(pooledConnection);
+                if (closed && idleConnections.remove(pooledConnection)) { pooledConnection.closeQuietly(); }
+            }
+        } finally {
+            permits.release();
+        }
+        evictExpiredConnections();
+    }
+    
+    /* -------------------------------------------------- Eviction -------------------------------------------------- */
+    
+    /**
+     * Closes all idle connections that exceeded the idle timeout or the maximum lifetime.
+     */
+    @Impure
+    public void evictExpiredConnections() {
+        if (idleTimeout == 0 && maximumLifetime == 0) { return; }
+        final long now = System.currentTimeMillis();
+        final @Nonnull Iterator<@Nonnull JDBCPooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext()) {
+            final @Nonnull JDBCPooledConnection pooledConnection = iterator.next();
+            if (pooledConnection.isExpired(now, idleTimeout, maximumLifetime) && idleConnections.remove(pooledConnection)) {
+                Log.verbose("Closing an expired database connection.");
+                pooledConnection.closeQuietly();
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Keepalive -------------------------------------------------- */
+    
+    /**
+     * Runs the keepalive in the background or is null if the keepalive interval is zero.
+     */
+    private final @Nullable ScheduledExecutorService keepaliveExecutor;
+    
+    /**
+     * Closes the expired idle connections and validates the idle connections that were neither used nor validated within the keepalive interval.
+     * This method is called periodically by a background thread so that borrowing a connection rarely needs a round trip to the database.
+     * A connection that is being validated is taken out of the idle connections, which is why the keepalive holds a permit meanwhile
+     * so that a concurrent borrower cannot open a new connection beyond the maximum size. If all permits are taken, the validation is postponed.
+     */
+    @Impure
+    public void keepAlive() {
+        try {
+            evictExpiredConnections();
+            final long now = System.currentTimeMillis();
+            final @Nonnull Iterator<@Nonnull JDBCPooledConnection> iterator = idleConnections.descendingIterator();
+            while (iterator.hasNext()) {
+                final @Nonnull JDBCPooledConnection pooledConnection = iterator.next();
+                if (pooledConnection.needsValidation(now, keepaliveInterval)) {
+                    if (!permits.tryAcquire()) { break; }
+                    try {
+                        if (idleConnections.remove(pooledConnection)) {
+                            if (pooledConnection.validate(now)) {
+                                idleConnections.offerLast(pooledConnection);
+                                if (closed && idleConnections.remove(pooledConnection)) { pooledConnection.closeQuietly(); }
+                            } else {
+                                Log.debugging("Closing an idle database connection that is no longer valid.");
+                                pooledConnection.closeQuietly();
+                            }
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                }
+            }
+        } catch (@Nonnull RuntimeException exception) {
+            Log.warning("The keepalive of the connection pool failed.", exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes all idle connections, stops the keepalive and marks this pool as closed.
+     * Borrowed connections are closed as soon as they are released.
+     */
+    @Impure
+    @Override
+    public void close() {
+        closed = true;
+        if (keepaliveExecutor != null) { keepaliveExecutor.shutdownNow(); }
+        @Nullable JDBCPooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            pooledConnection.closeQuietly();
+        }
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected JDBCConnectionPool(@Nonnull JDBCDatabase database, @Positive int maximumSize, @Positive long borrowTimeout, @NonNegative long idleTimeout, @NonNegative long maximumLifetime, @NonNegative int statementCacheSize, @NonNegative long validationInterval, @NonNegative long keepaliveInterval, @NonNegative long leakDetectionThreshold) {
+        this.database = database;
+        this.maximumSize = maximumSize;
+        this.borrowTimeout = borrowTimeout;
+        this.idleTimeout = idleTimeout;
+        this.maximumLifetime = maximumLifetime;
+        this.statementCacheSize = statementCacheSize;
+        this.validationInterval = validationInterval;
+        this.keepaliveInterval = keepaliveInterval;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+        this.permits = new Semaphore(maximumSize, true);
+        if (keepaliveInterval > 0) {
+            this.keepaliveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final @Nonnull Thread thread = new Thread(runnable, "DatabaseConnectionKeepalive");
+                thread.setDaemon(true);
+                return thread;
+            });
+            keepaliveExecutor.scheduleWithFixedDelay(this::keepAlive, keepaliveInterval, keepaliveInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.keepaliveExecutor = null;
+        }
+    }
+    
+}
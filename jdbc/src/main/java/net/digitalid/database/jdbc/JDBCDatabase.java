@@ -21,6 +21,7 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -33,9 +34,11 @@ import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
-import net.digitalid.utility.logging.Caller;
 import net.digitalid.utility.logging.Log;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.annotations.sql.SQLStatement;
@@ -54,8 +57,10 @@ import net.digitalid.database.dialect.statement.update.SQLUpdateStatement;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.Transaction;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
 import net.digitalid.database.jdbc.encoder.JDBCActionEncoderBuilder;
 import net.digitalid.database.jdbc.encoder.JDBCQueryEncoderBuilder;
 
@@ -94,55 +99,233 @@ public abstract class JDBCDatabase extends Database {
     @Pure
     protected abstract @Nullable String getPassword();
     
-    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    /* -------------------------------------------------- Isolation -------------------------------------------------- */
+    
+    /**
+     * Returns the isolation level as defined in {@link Connection} for read-write transactions or null to use the {@link SQLDialect#getIsolationLevel() default of the dialect}.
+     */
+    @Pure
+    protected abstract @Nullable Integer getIsolationLevel();
+    
+    /**
+     * Returns the isolation level as defined in {@link Connection} for read-only transactions or null to use the {@link SQLDialect#getReadOnlyIsolationLevel() default of the dialect}.
+     */
+    @Pure
+    protected abstract @Nullable Integer getReadOnlyIsolationLevel();
+    
+    /**
+     * Returns the isolation level that is used for read-only or read-write transactions.
+     */
+    @Pure
+    protected int getEffectiveIsolationLevel(boolean readOnly) {
+        final @Nullable Integer isolationLevel = readOnly ? getReadOnlyIsolationLevel() : getIsolationLevel();
+        if (isolationLevel != null) { return isolationLevel; }
+        else if (readOnly) { return SQLDialect.instance.get().getReadOnlyIsolationLevel(); }
+        else { return SQLDialect.instance.get().getIsolationLevel(); }
+    }
+    
+    /* -------------------------------------------------- Pool Settings -------------------------------------------------- */
     
     /**
-     * Stores the database connection of the current thread.
+     * Returns the maximum number of connections that are open at the same time.
      */
-    private final @Nonnull ThreadLocal<Connection> connection = new ThreadLocal<>();
+    @Pure
+    @Default("10")
+    protected abstract @Positive int getMaximumPoolSize();
     
     /**
-     * Sets a new database connection for the current thread.
+     * Returns the number of milliseconds to wait for an available connection before a transaction cannot be started.
+     */
+    @Pure
+    @Default("30000")
+    protected abstract @Positive long getBorrowTimeout();
+    
+    /**
+     * Returns the number of milliseconds after which an unused connection is closed or zero if idle connections are never closed.
+     */
+    @Pure
+    @Default("600000")
+    protected abstract @NonNegative long getIdleTimeout();
+    
+    /**
+     * Returns the number of milliseconds after which a connection is replaced or zero if connections are never replaced.
+     */
+    @Pure
+    @Default("1800000")
+    protected abstract @NonNegative long getMaximumLifetime();
+    
+    /**
+     * Returns the maximum number of prepared statements that are cached per connection or zero if the statements are not cached.
+     */
+    @Pure
+    @Default("64")
+    protected abstract @NonNegative int getStatementCacheSize();
+    
+    /**
+     * Returns the number of milliseconds a connection may be idle before it is validated when a transaction begins or zero if it is validated every time.
+     */
+    @Pure
+    @Default("500")
+    protected abstract @NonNegative long getValidationInterval();
+    
+    /**
+     * Returns the number of milliseconds after which idle connections are validated in the background or zero if there is no background validation.
+     */
+    @Pure
+    @Default("60000")
+    protected abstract @NonNegative long getKeepaliveInterval();
+    
+    /**
+     * Returns the number of milliseconds after which a statement or result set that is still open is reported together with its allocation site or zero if leak detection is disabled.
+     * Statements that are still open when the transaction is committed or rolled back are reported as well.
+     */
+    @Pure
+    @Default("0")
+    protected abstract @NonNegative long getLeakDetectionThreshold();
+    
+    /* -------------------------------------------------- Group Commit -------------------------------------------------- */
+    
+    /**
+     * Returns the number of milliseconds during which the commits of concurrent implicit read-write transactions are collected
+     * in order to share a single physical commit or zero if group commit is disabled.
+     * 
+     * @see JDBCCommitGroup
+     */
+    @Pure
+    @Default("0")
+    protected abstract @NonNegative long getGroupCommitWindow();
+    
+    /**
+     * Returns the maximum number of transactions that share a physical commit, which is committed before the window elapses when it is full.
+     */
+    @Pure
+    @Default("64")
+    protected abstract @Positive int getMaximumGroupCommitSize();
+    
+    /**
+     * Stores the commit group, which is created lazily like the pool.
+     */
+    private volatile @Nullable JDBCCommitGroup commitGroup;
+    
+    /**
+     * Returns the group through which implicit read-write transactions are committed if group commit is enabled.
+     */
+    @Pure
+    protected @Nonnull JDBCCommitGroup getCommitGroup() {
+        @Nullable JDBCCommitGroup result = commitGroup;
+        if (result == null) {
+            synchronized (this) {
+                result = commitGroup;
+                if (result == null) {
+                    result = new JDBCCommitGroup(this, getGroupCommitWindow(), getMaximumGroupCommitSize(), getBorrowTimeout());
+                    commitGroup = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Lets the current transaction join the commit group if group commit is enabled and the current transaction
+     * is an implicit read-write transaction which is about to execute its first statement.
+     * Transactions that start with a query keep their own connection so that reading does not block the group.
      */
     @Impure
     @NonCommitting
-    protected void setConnection() throws DatabaseException {
-        try {
-            final @Nonnull Connection connection;
-            if (getUser() == null || getPassword() == null) { connection = DriverManager.getConnection(getURL()); }
-            else { connection = DriverManager.getConnection(getURL(), getUser(), getPassword()); }
-            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE); // The isolation was Connection.TRANSACTION_READ_COMMITTED but SQLite does not support this.
-            connection.setAutoCommit(false);
-            this.connection.set(connection);
-        } catch (@Nonnull SQLException exception) {
-            throw DatabaseExceptionBuilder.withCause(exception).build();
+    protected void joinCommitGroup() throws DatabaseException {
+        if (getGroupCommitWindow() > 0) {
+            final @Nonnull JDBCTransaction transaction = (JDBCTransaction) getCurrentTransaction();
+            if (transaction.isImplicit() && !transaction.isReadOnly() && transaction.getPooledConnection() == null) { getCommitGroup().join(transaction); }
+        }
+    }
+    
+    /* -------------------------------------------------- Slow Statement Log -------------------------------------------------- */
+    
+    /**
+     * Returns the number of milliseconds after which an executed statement is logged as slow or zero if slow statements are not logged.
+     */
+    @Pure
+    @Default("0")
+    protected abstract @NonNegative long getSlowStatementThreshold();
+    
+    /**
+     * Returns whether the slow statement log only includes the types and sizes of the parameters but not their values.
+     */
+    @Pure
+    @Default("true")
+    protected abstract boolean isRedactingSlowStatementParameters();
+    
+    /**
+     * Stores the slow statement log, which is created lazily like the pool.
+     */
+    private volatile @Nullable JDBCSlowStatementLog slowStatementLog;
+    
+    /**
+     * Returns the log to which slow statements are reported.
+     */
+    @Pure
+    protected @Nonnull JDBCSlowStatementLog getSlowStatementLog() {
+        @Nullable JDBCSlowStatementLog result = slowStatementLog;
+        if (result == null) {
+            result = getSlowStatementThreshold() > 0 ? new JDBCSlowStatementLog(getSlowStatementThreshold(), isRedactingSlowStatementParameters()) : JDBCSlowStatementLog.DISABLED;
+            slowStatementLog = result;
         }
+        return result;
     }
     
+    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    
     /**
-     * Checks that the database connection of the current thread is valid.
+     * Opens a new database connection, which is then managed by the connection pool.
      */
     @Impure
     @NonCommitting
-    protected void checkConnection() throws DatabaseException {
-        final @Nullable Connection connection = this.connection.get();
-        if (connection == null) {
-            setConnection();
-        } else {
-            try {
-                if (!connection.isValid(1)) {
-                    Log.debugging("The database connection is no longer valid and is thus replaced.");
-                    connection.close();
-                    setConnection();
+    protected @Nonnull Connection openConnection() throws SQLException {
+        final @Nonnull Connection connection;
+        if (getUser() == null || getPassword() == null) { connection = DriverManager.getConnection(getURL()); }
+        else { connection = DriverManager.getConnection(getURL(), getUser(), getPassword()); }
+        connection.setTransactionIsolation(getEffectiveIsolationLevel(false));
+        connection.setAutoCommit(false);
+        return connection;
+    }
+    
+    /**
+     * Stores the pool from which the connections are borrowed.
+     * (The pool is created lazily because the generated subclass provides the settings only after construction.)
+     */
+    private volatile @Nullable JDBCConnectionPool pool;
+    
+    /**
+     * Returns the pool from which the connections are borrowed.
+     */
+    @Pure
+    protected @Nonnull JDBCConnectionPool getPool() {
+        @Nullable JDBCConnectionPool result = pool;
+        if (result == null) {
+            synchronized (this) {
+                result = pool;
+                if (result == null) {
+                    result = new JDBCConnectionPool(this, getMaximumPoolSize(), getBorrowTimeout(), getIdleTimeout(), getMaximumLifetime(), getStatementCacheSize(), getValidationInterval(), getKeepaliveInterval(), getLeakDetectionThreshold());
+                    pool = result;
                 }
-            } catch (@Nonnull SQLException exception) {
-                throw DatabaseExceptionBuilder.withCause(exception).build();
             }
         }
+        return result;
     }
     
     /**
-     * Returns the database connection of the current thread.
+     * Returns the pooled connection of the current transaction and borrows a new connection if necessary.
+     */
+    @Impure
+    @NonCommitting
+    protected @Nonnull JDBCPooledConnection getPooledConnection() throws DatabaseException {
+        final @Nonnull JDBCTransaction transaction = (JDBCTransaction) getCurrentTransaction();
+        final @Nullable JDBCPooledConnection pooledConnection = transaction.getPooledConnection();
+        return pooledConnection != null ? pooledConnection : begin(transaction);
+    }
+    
+    /**
+     * Returns the database connection of the current transaction.
      * <p>
      * <em>Important:</em> Do not commit, roll back or close
      * the current connection as it will be reused later on!
@@ -150,39 +333,110 @@ public abstract class JDBCDatabase extends Database {
     @Impure
     @NonCommitting
     protected @Nonnull Connection getConnection() throws DatabaseException {
-        if (!transaction.get()) { begin(); }
-        return connection.get();
+        return getPooledConnection().getConnection();
     }
     
-    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    /**
+     * Returns the connection of the given transaction to the pool.
+     */
+    @Impure
+    private void releaseConnection(@Nonnull JDBCTransaction transaction, @Nonnull JDBCPooledConnection pooledConnection, boolean reusable) {
+        transaction.setPooledConnection(null);
+        pooledConnection.checkForLeaks();
+        getPool().release(pooledConnection, reusable);
+    }
+    
+    /* -------------------------------------------------- Statement Cache -------------------------------------------------- */
     
     /**
-     * Stores whether the database connection of the current thread is in a transaction.
+     * Returns how many times a cached prepared statement was reused.
      */
-    private final @Nonnull ThreadLocal<Boolean> transaction = new ThreadLocal<Boolean>() {
-        @Override protected @Nonnull Boolean initialValue() { return Boolean.FALSE; }
-    };
+    @Pure
+    public long getStatementCacheHits() {
+        final @Nullable JDBCConnectionPool pool = this.pool;
+        return pool == null ? 0 : pool.getStatementCacheHits();
+    }
     
     /**
-     * Begins a new transaction.
+     * Returns how many times a statement had to be prepared because it was not cached.
+     */
+    @Pure
+    public long getStatementCacheMisses() {
+        final @Nullable JDBCConnectionPool pool = this.pool;
+        return pool == null ? 0 : pool.getStatementCacheMisses();
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    protected @Nonnull JDBCTransaction createTransaction(boolean implicit, boolean readOnly) {
+        return new JDBCTransaction(this, implicit, readOnly);
+    }
+    
+    @Pure
+    @Override
+    protected boolean hasPendingStatements(@Nonnull Transaction transaction) {
+        return ((JDBCTransaction) transaction).getPooledConnection() != null || ((JDBCTransaction) transaction).isInCommitGroup();
+    }
+    
+    /**
+     * Begins the given transaction by borrowing a connection from the pool and configuring it according to the read-only mode of the transaction.
      */
     @Impure
     @NonCommitting
-    protected void begin() throws DatabaseException {
-        checkConnection();
-        transaction.set(Boolean.TRUE);
+    protected @Nonnull JDBCPooledConnection begin(@Nonnull JDBCTransaction transaction) throws DatabaseException {
+        final @Nonnull JDBCPooledConnection pooledConnection = getPool().borrow();
+        try {
+            pooledConnection.configure(getEffectiveIsolationLevel(transaction.isReadOnly()), transaction.isReadOnly(), SQLDialect.instance.get().supportsReadOnlyTransactions());
+        } catch (@Nonnull SQLException exception) {
+            getPool().release(pooledConnection, false);
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+        transaction.setPooledConnection(pooledConnection);
+        return pooledConnection;
+    }
+    
+    @Impure
+    @Override
+    @NonCommitting
+    protected void beginReadOnlyTransaction() throws DatabaseException {
+        if (((JDBCTransaction) getCurrentTransaction()).getPooledConnection() != null) { throw DatabaseExceptionBuilder.withCause(new SQLException("A read-only transaction can only be begun before the first statement of the transaction.")).build(); }
+        super.beginReadOnlyTransaction();
     }
     
     @Impure
     @Override
     @Committing
     protected void commitTransaction() throws DatabaseException {
+        final @Nullable JDBCTransaction transaction = (JDBCTransaction) getBoundTransaction();
+        if (transaction != null && transaction.isInCommitGroup()) {
+            try {
+                getCommitGroup().commit(transaction);
+            } catch (@Nonnull DatabaseException exception) {
+                runRunnablesAfterRollback();
+                throw exception;
+            }
+            runRunnablesAfterCommit();
+            return;
+        }
+        final @Nullable JDBCPooledConnection pooledConnection = transaction == null ? null : transaction.getPooledConnection();
+        final long start = System.nanoTime();
         try {
-            getConnection().commit();
-            transaction.set(Boolean.FALSE);
+            if (transaction != null && pooledConnection != null) {
+                pooledConnection.getConnection().commit();
+                DatabaseMetrics.instance.get().recordCommit(System.nanoTime() - start, false);
+                releaseConnection(transaction, pooledConnection, true);
+            }
             runRunnablesAfterCommit();
-            Log.debugging("Committed the database transaction from $ through $.", Caller.get(6).replace("net.digitalid.", ""), Caller.get(5).replace("net.digitalid.", ""));
         } catch (@Nonnull SQLException exception) {
+            DatabaseMetrics.instance.get().recordCommit(System.nanoTime() - start, true);
+            try {
+                pooledConnection.getConnection().rollback();
+            } catch (@Nonnull SQLException rollbackException) {
+                Log.warning("Could not roll back the transaction after a failed commit.", rollbackException);
+            }
+            releaseConnection(transaction, pooledConnection, false);
             runRunnablesAfterRollback();
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
@@ -192,11 +446,29 @@ public abstract class JDBCDatabase extends Database {
     @Override
     @Committing
     protected void rollbackTransaction() {
+        final @Nullable JDBCTransaction transaction = (JDBCTransaction) getBoundTransaction();
+        if (transaction != null && transaction.isInCommitGroup()) {
+            try {
+                getCommitGroup().rollback(transaction);
+            } finally {
+                runRunnablesAfterRollback();
+            }
+            return;
+        }
+        final @Nullable JDBCPooledConnection pooledConnection = transaction == null ? null : transaction.getPooledConnection();
         try {
-            getConnection().rollback();
-            transaction.set(Boolean.FALSE);
-            Log.debugging("Rolled back the database transaction from $ through $.", Caller.get(6).replace("net.digitalid.", ""), Caller.get(5).replace("net.digitalid.", ""));
-        } catch (@Nonnull SQLException | DatabaseException exception) {
+            if (transaction != null && pooledConnection != null) {
+                boolean reusable = false;
+                final long start = System.nanoTime();
+                try {
+                    pooledConnection.getConnection().rollback();
+                    reusable = true;
+                } finally {
+                    DatabaseMetrics.instance.get().recordRollback(System.nanoTime() - start);
+                    releaseConnection(transaction, pooledConnection, reusable);
+                }
+            }
+        } catch (@Nonnull SQLException exception) {
             Log.error("Could not roll back the transaction.", exception);
         } finally {
             runRunnablesAfterRollback();
@@ -206,7 +478,14 @@ public abstract class JDBCDatabase extends Database {
     @Override
     @PureWithSideEffects
     public void close() throws Exception {
-        getConnection().close();
+        final @Nullable JDBCTransaction transaction = (JDBCTransaction) getBoundTransaction();
+        if (transaction != null && transaction.isInCommitGroup()) { getCommitGroup().rollback(transaction); }
+        if (transaction != null) {
+            final @Nullable JDBCPooledConnection pooledConnection = transaction.getPooledConnection();
+            if (pooledConnection != null) { releaseConnection(transaction, pooledConnection, false); }
+        }
+        final @Nullable JDBCConnectionPool pool = this.pool;
+        if (pool != null) { pool.close(); }
     }
     
     /* -------------------------------------------------- Executions -------------------------------------------------- */
@@ -218,9 +497,17 @@ public abstract class JDBCDatabase extends Database {
     protected void executeStatement(@Nonnull SQLStatementNode statement, @Nonnull Unit unit) throws DatabaseException {
         final @Nonnull String statementString = SQLDialect.unparse(statement, unit);
         Log.debugging("Executing $.", statementString);
-        try {
-            getConnection().createStatement().execute(statementString);
+        traceStatement();
+        final long start = System.nanoTime();
+        try (@Nonnull Statement jdbcStatement = getConnection().createStatement()) {
+            jdbcStatement.execute(statementString);
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statementString, unit, duration, -1, 1, false);
+            if (getSlowStatementLog().isSlow(duration)) { getSlowStatementLog().log(statementString, unit, duration, -1, 1, null); }
         } catch (@Nonnull SQLException exception) {
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statementString, unit, duration, -1, 1, true);
+            if (getSlowStatementLog().isSlow(duration)) { getSlowStatementLog().log(statementString, unit, duration, -1, 1, null); }
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
@@ -252,7 +539,25 @@ public abstract class JDBCDatabase extends Database {
     protected @Nonnull PreparedStatement prepare(@Nonnull String statement) throws DatabaseException {
         Log.debugging("Preparing $.", statement);
         try {
-            return getConnection().prepareStatement(statement);
+            final @Nonnull JDBCPooledConnection pooledConnection = getPooledConnection();
+            final @Nonnull PreparedStatement preparedStatement = pooledConnection.getConnection().prepareStatement(statement);
+            pooledConnection.track(preparedStatement, false);
+            return preparedStatement;
+        } catch (@Nonnull SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Returns a cached prepared statement for the given statement or null if no cached statement is available.
+     */
+    @Pure
+    protected @Nullable PreparedStatement prepareCached(@Nonnull String statement) throws DatabaseException {
+        try {
+            final @Nonnull JDBCPooledConnection pooledConnection = getPooledConnection();
+            final @Nullable PreparedStatement preparedStatement = pooledConnection.prepareCached(statement);
+            if (preparedStatement != null) { pooledConnection.track(preparedStatement, true); }
+            return preparedStatement;
         } catch (@Nonnull SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
@@ -263,8 +568,21 @@ public abstract class JDBCDatabase extends Database {
      */
     @PureWithSideEffects
     protected @Nonnull SQLActionEncoder getActionEncoder(@Nonnull SQLTableStatement tableStatement, @Nonnull Unit unit) throws DatabaseException {
+        return getActionEncoder(SQLDialect.unparse(tableStatement, unit), 0, unit);
+    }
+    
+    /**
+     * Returns an action encoder for the given unparsed statement on the given unit.
+     * The parameter count is not needed as the prepared statement determines its parameters itself.
+     */
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLActionEncoder getActionEncoder(@Nonnull @SQLStatement String statement, @NonNegative int parameterCount, @Nonnull Unit unit) throws DatabaseException {
+        traceStatement();
+        joinCommitGroup();
+        final @Nullable PreparedStatement cachedStatement = prepareCached(statement);
         // FIXME: The converter generator does not recognize that the sql encoder implementation already implements the methods getRepresentation(), isHashing(), isCompressing() and isEncryption().
-        return JDBCActionEncoderBuilder.withPreparedStatement(prepare(SQLDialect.unparse(tableStatement, unit))).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
+        return JDBCActionEncoderBuilder.withPreparedStatement(cachedStatement != null ? cachedStatement : prepare(statement)).withCached(cachedStatement != null).withStatement(statement).withUnit(unit).withSlowStatementLog(getSlowStatementLog()).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
     }
     
     @Override
@@ -288,8 +606,20 @@ public abstract class JDBCDatabase extends Database {
     @Override
     @PureWithSideEffects
     public @Nonnull SQLQueryEncoder getEncoder(@Nonnull SQLSelectStatement selectStatement, @Nonnull Unit unit) throws DatabaseException {
+        return getQueryEncoder(SQLDialect.unparse(selectStatement, unit), 0, unit);
+    }
+    
+    /**
+     * Returns a query encoder for the given unparsed query on the given unit.
+     * The parameter count is not needed as the prepared statement determines its parameters itself.
+     */
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLQueryEncoder getQueryEncoder(@Nonnull @SQLStatement String query, @NonNegative int parameterCount, @Nonnull Unit unit) throws DatabaseException {
+        traceStatement();
+        final @Nullable PreparedStatement cachedStatement = prepareCached(query);
         // FIXME: The converter generator does not recognize that the sql encoder implementation already implements the methods getRepresentation(), isHashing(), isCompressing() and isEncryption().
-        return JDBCQueryEncoderBuilder.withPreparedStatement(prepare(SQLDialect.unparse(selectStatement, unit))).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
+        return JDBCQueryEncoderBuilder.withPreparedStatement(cachedStatement != null ? cachedStatement : prepare(query)).withCached(cachedStatement != null).withStatement(query).withUnit(unit).withSlowStatementLog(getSlowStatementLog()).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
     }
     
     /* -------------------------------------------------- Testing -------------------------------------------------- */
@@ -298,8 +628,14 @@ public abstract class JDBCDatabase extends Database {
     @PureWithSideEffects
     public @Nonnull ResultSet executeQuery(@Nonnull @SQLStatement String query) throws DatabaseException {
         Log.debugging("Executing $.", query);
+        traceStatement();
         try {
-            return getConnection().createStatement().executeQuery(query);
+            final @Nonnull JDBCPooledConnection pooledConnection = getPooledConnection();
+            final @Nonnull Statement statement = pooledConnection.getConnection().createStatement();
+            pooledConnection.track(statement, false);
+            // The statement is closed together with the returned result set.
+            statement.closeOnCompletion();
+            return statement.executeQuery(query);
         } catch (@Nonnull SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
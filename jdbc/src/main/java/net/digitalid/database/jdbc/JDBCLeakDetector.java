@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A leak detector tracks the statements and result sets that were opened on a {@link JDBCPooledConnection pooled connection}
+ * together with the stack trace of their allocation and reports those that are still open when the transaction ends
+ * or that stay open for longer than the leak detection threshold.
+ * A cached statement is considered to be open as long as its current result set is open because the statement itself is owned by the cache.
+ * Leaks are only reported and not closed since the detector cannot know whether a result set is still being used.
+ */
+@Mutable
+@ThreadSafe
+public class JDBCLeakDetector {
+    
+    /* -------------------------------------------------- Threshold -------------------------------------------------- */
+    
+    private final @Positive long threshold;
+    
+    /**
+     * Returns the number of milliseconds after which a statement that is still open is reported as a potential leak.
+     */
+    @Pure
+    public @Positive long getThreshold() {
+        return threshold;
+    }
+    
+    /* -------------------------------------------------- Allocations -------------------------------------------------- */
+    
+    /**
+     * An allocation records where and when a statement was opened.
+     */
+    private static final class Allocation {
+        
+        private final @Nonnull Throwable site = new Throwable("Allocation site of the leaked statement");
+        
+        private final long time = System.currentTimeMillis();
+        
+        private final boolean cached;
+        
+        private boolean reported = false;
+        
+        private Allocation(boolean cached) {
+            this.cached = cached;
+        }
+        
+    }
+    
+    private final @Nonnull Map<@Nonnull Statement, @Nonnull Allocation> allocations = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the number of tracked statements that have not yet been found to be closed.
+     */
+    @Pure
+    public int getTrackedCount() {
+        return allocations.size();
+    }
+    
+    /* -------------------------------------------------- Tracking -------------------------------------------------- */
+    
+    /**
+     * Tracks the given statement, which is owned by the statement cache of the connection if the given flag is set.
+     * Tracking a statement also reports the statements that have been open for longer than the threshold.
+     */
+    @Impure
+    public void track(@Nonnull Statement statement, boolean cached) {
+        allocations.put(statement, new Allocation(cached));
+        reportLeaks(false);
+    }
+    
+    /**
+     * Returns whether the given statement (or its current result set if the statement is cached) is still open.
+     */
+    @Pure
+    private static boolean isOpen(@Nonnull Statement statement, boolean cached) {
+        try {
+            if (statement.isClosed()) { return false; }
+            if (!cached) { return true; }
+            final @Nullable ResultSet resultSet = statement.getResultSet();
+            return resultSet != null && !resultSet.isClosed();
+        } catch (@Nonnull SQLException exception) {
+            return false;
+        }
+    }
+    
+    /* -------------------------------------------------- Reporting -------------------------------------------------- */
+    
+    /**
+     * Removes the statements that have been closed in the meantime and reports the ones that are still open.
+     * At the end of a transaction, all open statements are reported and forgotten.
+     * Otherwise, only the statements that have been open for longer than the threshold are reported, each of them once.
+     */
+    @Impure
+    public void reportLeaks(boolean endOfTransaction) {
+        final long now = System.currentTimeMillis();
+        final @Nonnull Iterator<Map.@Nonnull Entry<@Nonnull Statement, @Nonnull Allocation>> iterator = allocations.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.@Nonnull Entry<@Nonnull Statement, @Nonnull Allocation> entry = iterator.next();
+            final @Nonnull Allocation allocation = entry.getValue();
+            if (!isOpen(entry.getKey(), allocation.cached)) {
+                iterator.remove();
+            } else if (endOfTransaction) {
+                iterator.remove();
+                if (!allocation.reported) { Log.warning("A database statement is still open at the end of the transaction after " + (now - allocation.time) + " ms.", allocation.site); }
+            } else if (!allocation.reported && now - allocation.time > threshold) {
+                allocation.reported = true;
+                Log.warning("A database statement has been open for " + (now - allocation.time) + " ms, which exceeds the leak detection threshold.", allocation.site);
+            }
+        }
+    }
+    
+    /**
+     * Forgets all tracked statements without reporting them.
+     */
+    @Impure
+    public void clear() {
+        allocations.clear();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected JDBCLeakDetector(@Positive long threshold) {
+        this.threshold = threshold;
+    }
+    
+}
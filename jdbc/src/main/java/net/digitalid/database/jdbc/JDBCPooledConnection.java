@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A pooled connection wraps a JDBC connection together with the timestamps the {@link JDBCConnectionPool pool} needs for eviction
+ * and a bounded cache of the prepared statements that were executed on the connection.
+ */
+@Mutable
+@ThreadSafe
+public class JDBCPooledConnection {
+    
+    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    
+    private final @Nonnull Connection connection;
+    
+    /**
+     * Returns the wrapped JDBC connection.
+     * <p>
+     * <em>Important:</em> Do not close the returned connection as it is owned by the pool!
+     */
+    @Pure
+    public @Nonnull Connection getConnection() {
+        return connection;
+    }
+    
+    /* -------------------------------------------------- Creation Time -------------------------------------------------- */
+    
+    private final long creationTime;
+    
+    /**
+     * Returns the time in milliseconds at which the connection was opened.
+     */
+    @Pure
+    public long getCreationTime() {
+        return creationTime;
+    }
+    
+    /* -------------------------------------------------- Last Use -------------------------------------------------- */
+    
+    private volatile long lastUseTime;
+    
+    /**
+     * Returns the time in milliseconds at which the connection was last returned to the pool.
+     */
+    @Pure
+    public long getLastUseTime() {
+        return lastUseTime;
+    }
+    
+    /**
+     * Records that the connection has just been used.
+     */
+    @Impure
+    void touch() {
+        this.lastUseTime = System.currentTimeMillis();
+    }
+    
+    /* -------------------------------------------------- Validation -------------------------------------------------- */
+    
+    private volatile long lastValidationTime;
+    
+    /**
+     * Returns the time in milliseconds at which the connection was last validated successfully.
+     */
+    @Pure
+    public long getLastValidationTime() {
+        return lastValidationTime;
+    }
+    
+    /**
+     * Returns whether this connection was neither used nor validated within the given validation interval.
+     * A connection that has just been returned to the pool after a successful transaction is known to be valid.
+     */
+    @Pure
+    boolean needsValidation(long now, long validationInterval) {
+        return now - Math.max(lastUseTime, lastValidationTime) > validationInterval;
+    }
+    
+    /**
+     * Validates the wrapped connection with a round trip to the database and returns whether it is still valid.
+     */
+    @Impure
+    boolean validate(long now) {
+        try {
+            if (connection.isValid(1)) {
+                this.lastValidationTime = now;
+                return true;
+            }
+        } catch (@Nonnull SQLException exception) {
+            Log.debugging("Could not validate a pooled database connection.", exception);
+        }
+        return false;
+    }
+    
+    /* -------------------------------------------------- Expiration -------------------------------------------------- */
+    
+    /**
+     * Returns whether this connection was idle for longer than the given idle timeout or is older than the given maximum lifetime.
+     * A timeout of zero means that the corresponding limit is disabled.
+     */
+    @Pure
+    boolean isExpired(long now, long idleTimeout, long maximumLifetime) {
+        return idleTimeout > 0 && now - lastUseTime > idleTimeout || maximumLifetime > 0 && now - creationTime > maximumLifetime;
+    }
+    
+    /* -------------------------------------------------- Transaction Mode -------------------------------------------------- */
+    
+    private int isolationLevel;
+    
+    private boolean readOnly = false;
+    
+    /**
+     * Sets the given isolation level and read-only mode on the wrapped connection if they differ from the current ones.
+     * This method may only be called when no transaction is in progress on the connection.
+     */
+    @Impure
+    void configure(int isolationLevel, boolean readOnly, boolean readOnlySupported) throws SQLException {
+        if (readOnlySupported && this.readOnly != readOnly) {
+            connection.setReadOnly(readOnly);
+            this.readOnly = readOnly;
+        }
+        if (this.isolationLevel != isolationLevel) {
+            connection.setTransactionIsolation(isolationLevel);
+            this.isolationLevel = isolationLevel;
+        }
+    }
+    
+    /* -------------------------------------------------- Statement Cache -------------------------------------------------- */
+    
+    private final @Nonnull JDBCConnectionPool pool;
+    
+    /**
+     * Stores the cached prepared statements by their SQL string in access order so that the least recently used statement is evicted first.
+     */
+    private final @Nonnull Map<@Nonnull String, @Nonnull PreparedStatement> statementCache = new LinkedHashMap<@Nonnull String, @Nonnull PreparedStatement>(16, 0.75f, true) {
+        
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<@Nonnull String, @Nonnull PreparedStatement> eldest) {
+            if (size() > pool.getStatementCacheSize()) {
+                closeQuietly(eldest.getValue());
+                return true;
+            } else {
+                return false;
+            }
+        }
+        
+    };
+    
+    /**
+     * Returns a prepared statement for the given SQL string from the cache of this connection or prepares and caches a new one.
+     * The parameters of a reused statement are cleared. Cached statements must not be closed by the caller.
+     * Returns null if the cache is disabled or if the cached statement still has an open result set,
+     * in which case the caller has to prepare an uncached statement itself.
+     */
+    @Impure
+    synchronized @Nullable PreparedStatement prepareCached(@Nonnull String sql) throws SQLException {
+        if (pool.getStatementCacheSize() == 0) { return null; }
+        @Nullable PreparedStatement preparedStatement = statementCache.get(sql);
+        if (preparedStatement != null && !preparedStatement.isClosed()) {
+            final @Nullable ResultSet resultSet = preparedStatement.getResultSet();
+            if (resultSet != null && !resultSet.isClosed()) { return null; }
+            preparedStatement.clearParameters();
+            pool.recordStatementCacheHit();
+            return preparedStatement;
+        }
+        pool.recordStatementCacheMiss();
+        preparedStatement = connection.prepareStatement(sql);
+        statementCache.put(sql, preparedStatement);
+        return preparedStatement;
+    }
+    
+    /**
+     * Closes the given statement and logs a failure instead of propagating it.
+     */
+    @Impure
+    private static void closeQuietly(@Nonnull PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.close();
+        } catch (@Nonnull SQLException exception) {
+            Log.warning("Could not close a cached prepared statement.", exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Leak Detection -------------------------------------------------- */
+    
+    /**
+     * Tracks the statements of this connection or is null if leak detection is disabled.
+     */
+    private final @Nullable JDBCLeakDetector leakDetector;
+    
+    /**
+     * Returns the leak detector of this connection or null if leak detection is disabled.
+     */
+    @Pure
+    public @Nullable JDBCLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+    
+    /**
+     * Tracks the given statement if leak detection is enabled.
+     */
+    @Impure
+    void track(@Nonnull Statement statement, boolean cached) {
+        if (leakDetector != null) { leakDetector.track(statement, cached); }
+    }
+    
+    /**
+     * Reports the statements that are still open if leak detection is enabled.
+     * This method is called when the transaction on this connection ends.
+     */
+    @Impure
+    void checkForLeaks() {
+        if (leakDetector != null) { leakDetector.reportLeaks(true); }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the cached statements and the wrapped connection and logs a failure instead of propagating it.
+     */
+    @Impure
+    synchronized void closeQuietly() {
+        if (leakDetector != null) { leakDetector.clear(); }
+        for (@Nonnull PreparedStatement preparedStatement : statementCache.values()) { closeQuietly(preparedStatement); }
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (@Nonnull SQLException exception) {
+            Log.warning("Could not close a pooled database connection.", exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    JDBCPooledConnection(@Nonnull Connection connection, @Nonnull JDBCConnectionPool pool, int isolationLevel) {
+        this.connection = connection;
+        this.pool = pool;
+        this.creationTime = System.currentTimeMillis();
+        this.lastUseTime = creationTime;
+        this.lastValidationTime = creationTime;
+        this.isolationLevel = isolationLevel;
+        this.leakDetector = pool.getLeakDetectionThreshold() > 0 ? new JDBCLeakDetector(pool.getLeakDetectionThreshold()) : null;
+    }
+    
+}
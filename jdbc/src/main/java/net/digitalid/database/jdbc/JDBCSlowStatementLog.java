@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.interfaces.tracing.CallingSite;
+import net.digitalid.database.jdbc.encoder.JDBCParameterSummary;
+
+/**
+ * The slow statement log logs the statements whose execution took longer than a threshold
+ * together with their SQL string, a summary of their parameters, the number of affected rows and their {@link CallingSite calling site}.
+ * The parameters are only captured while the log is enabled and their values are only included if the log is not redacting.
+ */
+@Immutable
+public class JDBCSlowStatementLog {
+    
+    /**
+     * Stores a slow statement log that never logs anything.
+     */
+    public static final @Nonnull JDBCSlowStatementLog DISABLED = new JDBCSlowStatementLog(0, true);
+    
+    /* -------------------------------------------------- Threshold -------------------------------------------------- */
+    
+    private final @NonNegative long threshold;
+    
+    /**
+     * Returns the number of nanoseconds after which a statement is logged or zero if the log is disabled.
+     */
+    @Pure
+    public @NonNegative long getThreshold() {
+        return threshold;
+    }
+    
+    /**
+     * Returns whether this log is enabled.
+     */
+    @Pure
+    public boolean isEnabled() {
+        return threshold > 0;
+    }
+    
+    /**
+     * Returns whether a statement that took the given number of nanoseconds has to be logged.
+     */
+    @Pure
+    public boolean isSlow(long nanoseconds) {
+        return threshold > 0 && nanoseconds >= threshold;
+    }
+    
+    /* -------------------------------------------------- Redacting -------------------------------------------------- */
+    
+    private final boolean redacting;
+    
+    /**
+     * Returns whether only the types and sizes of the parameters are logged but not their values.
+     */
+    @Pure
+    public boolean isRedacting() {
+        return redacting;
+    }
+    
+    /* -------------------------------------------------- Logging -------------------------------------------------- */
+    
+    /**
+     * Logs that the given statement took the given number of nanoseconds on the given unit.
+     * 
+     * @param rows the number of affected rows or -1 if unknown.
+     * @param parameters the parameters of the (last row of the) statement or null if they were not captured.
+     */
+    @Impure
+    public void log(@Nonnull String statement, @Nonnull Unit unit, long nanoseconds, long rows, int batchSize, @Nullable JDBCParameterSummary parameters) {
+        Log.warning("Slow statement on $ took $ ms (rows: $, batch size: $) from $: $ with parameters $", unit.getName(), nanoseconds / 1_000_000, rows < 0 ? "unknown" : rows, batchSize, CallingSite.get(), statement, parameters == null ? "[]" : parameters);
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a slow statement log with the given threshold in milliseconds, where zero disables the log.
+     */
+    protected JDBCSlowStatementLog(@NonNegative long thresholdInMilliseconds, boolean redacting) {
+        this.threshold = thresholdInMilliseconds * 1_000_000;
+        this.redacting = redacting;
+    }
+    
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Savepoint;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.interfaces.Transaction;
+
+/**
+ * A JDBC transaction stores the pooled connection that it borrowed for its first statement until it is committed or rolled back.
+ * Since the connection belongs to the transaction and not to a thread, the work of a transaction can be handed off to other threads.
+ */
+@Mutable
+@ThreadSafe
+public class JDBCTransaction extends Transaction {
+    
+    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    
+    private volatile @Nullable JDBCPooledConnection pooledConnection;
+    
+    /**
+     * Returns the pooled connection of this transaction or null if no statement has been executed since the last commit or rollback.
+     */
+    @Pure
+    public @Nullable JDBCPooledConnection getPooledConnection() {
+        return pooledConnection;
+    }
+    
+    /**
+     * Sets the pooled connection of this transaction.
+     */
+    @Impure
+    void setPooledConnection(@Nullable JDBCPooledConnection pooledConnection) {
+        this.pooledConnection = pooledConnection;
+    }
+    
+    /* -------------------------------------------------- Commit Group -------------------------------------------------- */
+    
+    private volatile @Nullable JDBCCommitGroup.Batch commitBatch;
+    
+    private volatile @Nullable Savepoint savepoint;
+    
+    /**
+     * Returns whether this transaction is a member of a {@link JDBCCommitGroup commit group}.
+     */
+    @Pure
+    public boolean isInCommitGroup() {
+        return commitBatch != null;
+    }
+    
+    /**
+     * Returns the batch of the commit group which this transaction has joined or null if it is not a member of a commit group.
+     */
+    @Pure
+    @Nullable JDBCCommitGroup.Batch getCommitBatch() {
+        return commitBatch;
+    }
+    
+    /**
+     * Returns the savepoint to which this transaction is rolled back within its commit group or null if it is the first member of its batch.
+     */
+    @Pure
+    @Nullable Savepoint getSavepoint() {
+        return savepoint;
+    }
+    
+    /**
+     * Sets the batch of the commit group which this transaction has joined and the savepoint before its first statement.
+     */
+    @Impure
+    void setCommitBatch(@Nullable JDBCCommitGroup.Batch commitBatch, @Nullable Savepoint savepoint) {
+        this.commitBatch = commitBatch;
+        this.savepoint = savepoint;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected JDBCTransaction(@Nonnull JDBCDatabase database, boolean implicit, boolean readOnly) {
+        super(database, implicit, readOnly);
+    }
+    
+}
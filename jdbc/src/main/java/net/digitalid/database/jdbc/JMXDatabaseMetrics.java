@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
+import net.digitalid.database.interfaces.metrics.RecordingDatabaseMetrics;
+import net.digitalid.database.interfaces.metrics.StatementStatistics;
+
+/**
+ * These database metrics aggregate the reported operations in memory and expose them as an MBean,
+ * which can be inspected with tools like JConsole or scraped by a JMX exporter in production.
+ * 
+ * @see #register()
+ */
+@Mutable
+@ThreadSafe
+public class JMXDatabaseMetrics extends RecordingDatabaseMetrics implements JMXDatabaseMetricsMBean {
+    
+    /* -------------------------------------------------- Registration -------------------------------------------------- */
+    
+    /**
+     * Stores the name under which the metrics are registered.
+     */
+    public static final @Nonnull String OBJECT_NAME = "net.digitalid.database:type=DatabaseMetrics";
+    
+    /**
+     * Registers new metrics at the platform MBean server (replacing previously registered ones)
+     * and configures them as the {@link DatabaseMetrics#instance instance} to which all database operations are reported.
+     */
+    @Impure
+    public static @Nonnull JMXDatabaseMetrics register() {
+        final @Nonnull JMXDatabaseMetrics metrics = new JMXDatabaseMetrics();
+        try {
+            final @Nonnull MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final @Nonnull ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) { server.unregisterMBean(name); }
+            server.registerMBean(metrics, name);
+        } catch (@Nonnull JMException exception) {
+            Log.warning("Could not register the database metrics at the MBean server.", exception);
+        }
+        DatabaseMetrics.instance.set(metrics);
+        return metrics;
+    }
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    /**
+     * Stores the number of statements that are listed by {@link #getHotStatements()}.
+     */
+    private static final int HOT_STATEMENTS = 20;
+    
+    @Pure
+    @Override
+    public long getStatementCount() {
+        long result = 0;
+        for (@Nonnull StatementStatistics statistics : getStatementStatistics()) { result += statistics.getLatency().getCount(); }
+        return result;
+    }
+    
+    @Pure
+    @Override
+    public long getStatementFailureCount() {
+        long result = 0;
+        for (@Nonnull StatementStatistics statistics : getStatementStatistics()) { result += statistics.getFailures(); }
+        return result;
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull String[] getHotStatements() {
+        final @Nonnull List<@Nonnull StatementStatistics> hotStatements = getHotStatements(HOT_STATEMENTS);
+        final @Nonnull String[] result = new String[hotStatements.size()];
+        for (int i = 0; i < result.length; i++) { result[i] = hotStatements.get(i).toString(); }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public long getCommitCount() {
+        return getCommitLatency().getCount();
+    }
+    
+    @Pure
+    @Override
+    public long getCommitFailureCount() {
+        return getCommitFailures();
+    }
+    
+    @Pure
+    @Override
+    public long getCommitMeanMicros() {
+        return getCommitLatency().getMean() / 1_000;
+    }
+    
+    @Pure
+    @Override
+    public long getCommit99thPercentileMicros() {
+        return getCommitLatency().getPercentile(99) / 1_000;
+    }
+    
+    @Pure
+    @Override
+    public long getRollbackCount() {
+        return getRollbackLatency().getCount();
+    }
+    
+    @Pure
+    @Override
+    public long getRollbackMeanMicros() {
+        return getRollbackLatency().getMean() / 1_000;
+    }
+    
+    /* -------------------------------------------------- Connections -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public long getConnectionWaitCount() {
+        return getConnectionWait().getCount();
+    }
+    
+    @Pure
+    @Override
+    public long getConnectionWaitMeanMicros() {
+        return getConnectionWait().getMean() / 1_000;
+    }
+    
+    @Pure
+    @Override
+    public long getConnectionWaitMaximumMicros() {
+        return getConnectionWait().getMaximum() / 1_000;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected JMXDatabaseMetrics() {}
+    
+}
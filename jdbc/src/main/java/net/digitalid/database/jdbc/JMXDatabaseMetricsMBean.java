@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+
+/**
+ * This interface defines the attributes and operations of the {@link JMXDatabaseMetrics database metrics} that are exposed through JMX.
+ * The durations are given in microseconds.
+ */
+public interface JMXDatabaseMetricsMBean {
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    /**
+     * Returns the number of statements that were executed.
+     */
+    @Pure
+    public long getStatementCount();
+    
+    /**
+     * Returns the number of statements that failed.
+     */
+    @Pure
+    public long getStatementFailureCount();
+    
+    /**
+     * Returns a description of the statements that took the most time in total, one per element.
+     */
+    @Pure
+    public @Nonnull String[] getHotStatements();
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    /**
+     * Returns the number of commits.
+     */
+    @Pure
+    public long getCommitCount();
+    
+    /**
+     * Returns the number of commits that failed.
+     */
+    @Pure
+    public long getCommitFailureCount();
+    
+    /**
+     * Returns the average duration of a commit.
+     */
+    @Pure
+    public long getCommitMeanMicros();
+    
+    /**
+     * Returns an upper bound for the 99th percentile of the commit durations.
+     */
+    @Pure
+    public long getCommit99thPercentileMicros();
+    
+    /**
+     * Returns the number of rollbacks.
+     */
+    @Pure
+    public long getRollbackCount();
+    
+    /**
+     * Returns the average duration of a rollback.
+     */
+    @Pure
+    public long getRollbackMeanMicros();
+    
+    /* -------------------------------------------------- Connections -------------------------------------------------- */
+    
+    /**
+     * Returns how many times a connection was borrowed from the pool.
+     */
+    @Pure
+    public long getConnectionWaitCount();
+    
+    /**
+     * Returns the average time that a transaction waited for a connection.
+     */
+    @Pure
+    public long getConnectionWaitMeanMicros();
+    
+    /**
+     * Returns the longest time that a transaction waited for a connection.
+     */
+    @Pure
+    public long getConnectionWaitMaximumMicros();
+    
+    /* -------------------------------------------------- Operations -------------------------------------------------- */
+    
+    /**
+     * Discards everything that has been recorded so far.
+     */
+    @Impure
+    public void reset();
+    
+}
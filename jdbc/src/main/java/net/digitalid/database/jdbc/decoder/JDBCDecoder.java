@@ -23,15 +23,18 @@ import java.sql.SQLException;
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.contracts.Ensure;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.size.Size;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.SQLDecoder;
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
 import net.digitalid.database.jdbc.encoder.JDBCEncoder;
 
 /**
@@ -51,6 +54,23 @@ public abstract class JDBCDecoder extends SQLDecoder {
      */
     private final @Nonnull ResultSet resultSet;
     
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    /**
+     * The SQL string of the query that produced the result set.
+     */
+    private final @Nonnull String statement;
+    
+    /**
+     * The unit on which the query was executed.
+     */
+    private final @Nonnull Unit unit;
+    
+    /**
+     * Counts the rows that have been read, which are reported to the database metrics when this decoder is closed.
+     */
+    private long rowCount = 0;
+    
     /* -------------------------------------------------- Column Index -------------------------------------------------- */
     
     /**
@@ -63,8 +83,10 @@ public abstract class JDBCDecoder extends SQLDecoder {
     /**
      * Constructs a new JDBC decoder
      */
-    protected JDBCDecoder(@Nonnull ResultSet resultSet) {
+    protected JDBCDecoder(@Nonnull ResultSet resultSet, @Nonnull String statement, @Nonnull Unit unit) {
         this.resultSet = resultSet;
+        this.statement = statement;
+        this.unit = unit;
         this.columnIndex = 1;
     }
     
@@ -75,7 +97,10 @@ public abstract class JDBCDecoder extends SQLDecoder {
     public boolean moveToNextRow() throws DatabaseException {
         try {
             this.columnIndex = 1;
-            return resultSet.next();
+            clearNullBitmap();
+            final boolean result = resultSet.next();
+            if (result) { rowCount++; }
+            return result;
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
@@ -86,6 +111,7 @@ public abstract class JDBCDecoder extends SQLDecoder {
     public boolean moveToFirstRow() throws DatabaseException {
         try {
             this.columnIndex = 1;
+            clearNullBitmap();
             return resultSet.first();
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -98,6 +124,10 @@ public abstract class JDBCDecoder extends SQLDecoder {
     @Override
     public void close() throws DatabaseException {
         try {
+            if (rowCount > 0) {
+                DatabaseMetrics.instance.get().recordRowsRead(statement, unit, rowCount);
+                rowCount = 0;
+            }
             resultSet.close();
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -116,6 +146,28 @@ public abstract class JDBCDecoder extends SQLDecoder {
         }
     }
     
+    @Pure
+    @Override
+    protected int getColumnIndex() {
+        return columnIndex;
+    }
+    
+    @Impure
+    @Override
+    protected void skipColumns(int count) {
+        this.columnIndex += count;
+    }
+    
+    @Pure
+    @Override
+    protected boolean probeNull(int columnIndex) throws DatabaseException {
+        try {
+            return resultSet.getObject(columnIndex) == null;
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
     /* -------------------------------------------------- Decoding -------------------------------------------------- */
     
     @Impure
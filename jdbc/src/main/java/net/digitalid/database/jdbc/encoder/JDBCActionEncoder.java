@@ -20,14 +20,18 @@ import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.storage.interfaces.Unit;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
+import net.digitalid.database.jdbc.JDBCSlowStatementLog;
 
 /**
  * The JDBC action encoder collects values for the prepared statement and executes it.
@@ -36,8 +40,8 @@ import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 @GenerateSubclass
 public class JDBCActionEncoder extends JDBCEncoderSubclass implements SQLActionEncoder {
     
-    protected JDBCActionEncoder(@Nonnull PreparedStatement preparedStatement) {
-        super(preparedStatement);
+    protected JDBCActionEncoder(@Nonnull PreparedStatement preparedStatement, boolean cached, @Nonnull String statement, @Nonnull Unit unit, @Nonnull JDBCSlowStatementLog slowStatementLog) {
+        super(preparedStatement, cached, statement, unit, slowStatementLog);
     }
     
     /* -------------------------------------------------- Execution -------------------------------------------------- */
@@ -45,13 +49,64 @@ public class JDBCActionEncoder extends JDBCEncoderSubclass implements SQLActionE
     @Override
     @PureWithSideEffects
     public void execute() throws DatabaseException {
+        final long start = System.nanoTime();
         try {
             preparedStatement.execute();
+            final long duration = System.nanoTime() - start;
+            final int rows = preparedStatement.getUpdateCount();
+            DatabaseMetrics.instance.get().recordStatement(statement, unit, duration, rows, 1, false);
+            logIfSlow(duration, rows, 1);
             Log.verbose("Executed the prepared action statement.");
         } catch (SQLException exception) {
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statement, unit, duration, -1, 1, true);
+            logIfSlow(duration, -1, 1);
             Log.debugging("Failed to execute the prepared action statement.", exception);
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
     
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Stores the number of rows that were added to the batch since it was last executed.
+     */
+    private int batchSize = 0;
+    
+    @Impure
+    @Override
+    public void addBatch() throws DatabaseException {
+        try {
+            preparedStatement.addBatch();
+            resetParameterIndex();
+            batchSize++;
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public void executeBatch() throws DatabaseException {
+        if (batchSize == 0) { return; }
+        final long start = System.nanoTime();
+        try {
+            final @Nonnull int[] updateCounts = preparedStatement.executeBatch();
+            long rows = 0;
+            for (int updateCount : updateCounts) { if (updateCount > 0) { rows += updateCount; } }
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statement, unit, duration, rows, batchSize, false);
+            logIfSlow(duration, rows, batchSize);
+            Log.verbose("Executed the prepared action statement with a batch of $ rows.", batchSize);
+            batchSize = 0;
+        } catch (SQLException exception) {
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statement, unit, duration, -1, batchSize, true);
+            logIfSlow(duration, -1, batchSize);
+            Log.debugging("Failed to execute the prepared action statement with a batch.", exception);
+            batchSize = 0;
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
 }
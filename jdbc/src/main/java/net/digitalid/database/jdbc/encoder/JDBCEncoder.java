@@ -21,10 +21,12 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.size.MaxSize;
 import net.digitalid.utility.validation.annotations.size.Size;
 import net.digitalid.utility.validation.annotations.type.Mutable;
@@ -32,6 +34,7 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.encoder.SQLEncoderImplementation;
+import net.digitalid.database.jdbc.JDBCSlowStatementLog;
 
 /**
  * This classes uses the JDBC prepared statement to collect the values.
@@ -51,13 +54,64 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
      */
     private int parameterIndex = 1;
     
+    /**
+     * Stores whether the prepared statement is owned by the statement cache of the connection, in which case it must not be closed.
+     */
+    protected final boolean cached;
+    
+    /**
+     * The SQL string of the prepared statement, which is reported to the database metrics.
+     */
+    protected final @Nonnull String statement;
+    
+    /**
+     * The unit on which the prepared statement is executed.
+     */
+    protected final @Nonnull Unit unit;
+    
+    /* -------------------------------------------------- Slow Statement Log -------------------------------------------------- */
+    
+    /**
+     * The log to which the execution of the prepared statement is reported if it takes too long.
+     */
+    protected final @Nonnull JDBCSlowStatementLog slowStatementLog;
+    
+    /**
+     * Keeps the bound parameters for the slow statement log or is null if the log is disabled.
+     * Binding a parameter only stores a reference to its value, while the summary is only described if the statement turns out to be slow.
+     */
+    private final @Nullable JDBCParameterSummary parameters;
+    
+    /**
+     * Logs the execution of the prepared statement if it took longer than the threshold of the slow statement log.
+     * 
+     * @param rows the number of affected rows or -1 if unknown.
+     */
+    @Impure
+    protected void logIfSlow(long nanoseconds, long rows, int batchSize) {
+        if (slowStatementLog.isSlow(nanoseconds)) { slowStatementLog.log(statement, unit, nanoseconds, rows, batchSize, parameters); }
+    }
+    
     /* -------------------------------------------------- Constructor -------------------------------------------------- */
     
     /**
      * Builds a new JDBC encoder based on a prepared statement object.
      */
-    protected JDBCEncoder(@Nonnull PreparedStatement preparedStatement) {
+    protected JDBCEncoder(@Nonnull PreparedStatement preparedStatement, boolean cached, @Nonnull String statement, @Nonnull Unit unit, @Nonnull JDBCSlowStatementLog slowStatementLog) {
         this.preparedStatement = preparedStatement;
+        this.cached = cached;
+        this.statement = statement;
+        this.unit = unit;
+        this.slowStatementLog = slowStatementLog;
+        this.parameters = slowStatementLog.isEnabled() ? new JDBCParameterSummary(!slowStatementLog.isRedacting()) : null;
+    }
+    
+    /**
+     * Resets the parameter index so that the parameters of the prepared statement can be encoded again.
+     */
+    @Impure
+    protected void resetParameterIndex() {
+        this.parameterIndex = 1;
     }
     
     /* -------------------------------------------------- SQL Encoder -------------------------------------------------- */
@@ -66,6 +120,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeNull(int typeCode) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "NULL", 0, null); }
             preparedStatement.setNull(parameterIndex++, typeCode);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -76,7 +131,9 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void close() throws DatabaseException {
         try {
-            preparedStatement.close();
+            resetParameterIndex();
+            if (cached) { preparedStatement.clearParameters(); preparedStatement.clearBatch(); }
+            else { preparedStatement.close(); }
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
@@ -86,6 +143,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeBoolean(boolean value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "BOOLEAN", value ? 1 : 0, null); }
             preparedStatement.setBoolean(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -96,6 +154,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeInteger08(byte value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "INTEGER08", value, null); }
             preparedStatement.setByte(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -106,6 +165,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeInteger16(short value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "INTEGER16", value, null); }
             preparedStatement.setShort(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -116,6 +176,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeInteger32(int value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "INTEGER32", value, null); }
             preparedStatement.setInt(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -126,6 +187,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeInteger64(long value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "INTEGER64", value, null); }
             preparedStatement.setLong(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -136,6 +198,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeInteger(@Nonnull BigInteger value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "INTEGER", 0, value); }
             preparedStatement.setBytes(parameterIndex++, value.toByteArray());
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -146,6 +209,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeDecimal32(float value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "DECIMAL32", Float.floatToRawIntBits(value), null); }
             preparedStatement.setFloat(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -156,6 +220,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeDecimal64(double value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "DECIMAL64", Double.doubleToRawLongBits(value), null); }
             preparedStatement.setDouble(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -166,6 +231,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeString01(char value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "STRING01", value, null); }
             preparedStatement.setString(parameterIndex++, String.valueOf(value));
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -176,6 +242,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeString64(@Nonnull @MaxSize(64) String value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "STRING64", 0, value); }
             preparedStatement.setString(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -186,6 +253,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeString(@Nonnull String value) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "STRING", 0, value); }
             preparedStatement.setString(parameterIndex++, value);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -196,6 +264,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeBinary128(@Nonnull @Size(16) byte[] bytes) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "BINARY128", 0, bytes); }
             preparedStatement.setBytes(parameterIndex++, bytes);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -206,6 +275,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeBinary256(@Nonnull @Size(32) byte[] bytes) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "BINARY256", 0, bytes); }
             preparedStatement.setBytes(parameterIndex++, bytes);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -216,6 +286,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeBinary(@Nonnull byte[] bytes) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "BINARY", 0, bytes); }
             preparedStatement.setBytes(parameterIndex++, bytes);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
@@ -226,6 +297,7 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Override
     public void encodeBinaryStream(@Nonnull InputStream stream, int length) throws DatabaseException {
         try {
+            if (parameters != null) { parameters.record(parameterIndex, "BINARY_STREAM", length, null); }
             preparedStatement.setBinaryStream(parameterIndex++, stream, length);
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
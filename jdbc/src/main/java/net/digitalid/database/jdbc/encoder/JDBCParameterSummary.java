@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc.encoder;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A parameter summary keeps the parameters that are bound to a prepared statement so that the {@link net.digitalid.database.jdbc.JDBCSlowStatementLog slow statement log} can report their types and sizes (and optionally their values).
+ * Recording a parameter only stores its type name together with either its primitive value or a reference to its value,
+ * while the sizes and values are only described when the summary is converted to a string, which happens only for slow statements.
+ * For batches, the summary contains the parameters of the last row.
+ */
+@Mutable
+public class JDBCParameterSummary {
+    
+    /**
+     * Stores the number of characters after which string values are truncated.
+     */
+    private static final int MAXIMUM_VALUE_LENGTH = 32;
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    private int count = 0;
+    
+    private @Nonnull String[] types = new String[8];
+    
+    /**
+     * Stores the primitive values of the parameters, where floating-point numbers are stored as their raw bits and binary streams as their length.
+     */
+    private @Nonnull long[] primitives = new long[8];
+    
+    /**
+     * Stores the references to the values of the parameters that are not primitive.
+     */
+    private @Nonnull Object[] references = new Object[8];
+    
+    /**
+     * Stores whether the values of the parameters are included in the description.
+     */
+    private final boolean capturingValues;
+    
+    /**
+     * Records the parameter with the given index, type name and either primitive value or reference to the value.
+     * Recording the first parameter discards the parameters of the previous row.
+     */
+    @Impure
+    void record(@Positive int index, @Nonnull String type, long primitive, @Nullable Object reference) {
+        if (index == 1) { count = 0; }
+        if (count == types.length) {
+            types = Arrays.copyOf(types, count * 2);
+            primitives = Arrays.copyOf(primitives, count * 2);
+            references = Arrays.copyOf(references, count * 2);
+        }
+        types[count] = type;
+        primitives[count] = primitive;
+        references[count] = reference;
+        count++;
+    }
+    
+    /* -------------------------------------------------- Description -------------------------------------------------- */
+    
+    /**
+     * Returns the size in bytes or characters of the parameter at the given position.
+     */
+    @Pure
+    private @NonNegative int getSize(@NonNegative int position) {
+        switch (types[position]) {
+            case "NULL": return 0;
+            case "BOOLEAN": case "INTEGER08": case "STRING01": return 1;
+            case "INTEGER16": return 2;
+            case "INTEGER32": case "DECIMAL32": return 4;
+            case "INTEGER64": case "DECIMAL64": return 8;
+            case "INTEGER": return ((BigInteger) references[position]).bitLength() / 8 + 1;
+            case "STRING64": case "STRING": return ((String) references[position]).length();
+            case "BINARY_STREAM": return (int) primitives[position];
+            default: return ((byte[]) references[position]).length;
+        }
+    }
+    
+    /**
+     * Returns the value of the parameter at the given position or null if the value is not described, which is the case for null and binary values.
+     */
+    @Pure
+    private @Nullable Object getValue(@NonNegative int position) {
+        switch (types[position]) {
+            case "BOOLEAN": return primitives[position] != 0;
+            case "INTEGER08": case "INTEGER16": case "INTEGER32": case "INTEGER64": return primitives[position];
+            case "DECIMAL32": return Float.intBitsToFloat((int) primitives[position]);
+            case "DECIMAL64": return Double.longBitsToDouble(primitives[position]);
+            case "STRING01": return String.valueOf((char) primitives[position]);
+            case "INTEGER": case "STRING64": case "STRING": return references[position];
+            default: return null;
+        }
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        final @Nonnull StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) { result.append(", "); }
+            result.append(i + 1).append(": ").append(types[i]).append("(").append(getSize(i)).append(")");
+            final @Nullable Object value = capturingValues ? getValue(i) : null;
+            if (value instanceof String) {
+                final @Nonnull String string = (String) value;
+                result.append(" = '").append(string.length() > MAXIMUM_VALUE_LENGTH ? string.substring(0, MAXIMUM_VALUE_LENGTH) + "..." : string).append("'");
+            } else if (value != null) {
+                result.append(" = ").append(value);
+            }
+        }
+        return result.append("]").toString();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected JDBCParameterSummary(boolean capturingValues) {
+        this.capturingValues = capturingValues;
+    }
+    
+}
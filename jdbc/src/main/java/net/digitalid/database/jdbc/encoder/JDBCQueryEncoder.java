@@ -21,15 +21,20 @@ import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.SQLDecoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
+import net.digitalid.database.interfaces.metrics.DatabaseMetrics;
+import net.digitalid.database.jdbc.JDBCSlowStatementLog;
 import net.digitalid.database.jdbc.decoder.JDBCDecoderBuilder;
 
 /**
@@ -40,23 +45,76 @@ import net.digitalid.database.jdbc.decoder.JDBCDecoderBuilder;
 @GenerateSubclass
 public class JDBCQueryEncoder extends JDBCEncoderSubclass implements SQLQueryEncoder {
     
-    protected JDBCQueryEncoder(@Nonnull PreparedStatement preparedStatement) {
-        super(preparedStatement);
+    protected JDBCQueryEncoder(@Nonnull PreparedStatement preparedStatement, boolean cached, @Nonnull String statement, @Nonnull Unit unit, @Nonnull JDBCSlowStatementLog slowStatementLog) {
+        super(preparedStatement, cached, statement, unit, slowStatementLog);
     }
     
     /* -------------------------------------------------- Execution -------------------------------------------------- */
-       
+    
+    /**
+     * Stores whether the query has been executed, in which case an uncached statement is owned by the returned decoder.
+     */
+    private boolean executed = false;
+    
     @Override
     @PureWithSideEffects
     public @Nonnull SQLDecoder execute() throws DatabaseException {
+        final long start = System.nanoTime();
         try {
             final @Nonnull ResultSet resultSet = preparedStatement.executeQuery();
+            if (!cached) { preparedStatement.closeOnCompletion(); }
+            this.executed = true;
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statement, unit, duration, -1, 1, false);
+            logIfSlow(duration, -1, 1);
             Log.verbose("Executed the prepared query statement.");
-            return JDBCDecoderBuilder.withResultSet(resultSet).build();
+            return JDBCDecoderBuilder.withResultSet(resultSet).withStatement(statement).withUnit(unit).build();
         } catch (SQLException exception) {
+            final long duration = System.nanoTime() - start;
+            DatabaseMetrics.instance.get().recordStatement(statement, unit, duration, -1, 1, true);
+            logIfSlow(duration, -1, 1);
             Log.debugging("Failed to execute the prepared query statement.", exception);
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
     
+    /**
+     * Stores the fetch size that a cached statement had before it was changed by this encoder or -1 if it was not changed.
+     */
+    private int previousFetchSize = -1;
+    
+    @Impure
+    @Override
+    public void setFetchSize(@NonNegative int fetchSize) throws DatabaseException {
+        try {
+            if (cached && previousFetchSize < 0) { previousFetchSize = preparedStatement.getFetchSize(); }
+            preparedStatement.setFetchSize(fetchSize);
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes this encoder without closing the result set of an executed query.
+     * An uncached statement is closed together with its result set when the returned decoder is closed,
+     * whereas a cached statement gets its previous fetch size back so that later queries which reuse it do not inherit the fetch size.
+     * The fetch size of the result set of an executed query is not affected by this.
+     */
+    @Impure
+    @Override
+    public void close() throws DatabaseException {
+        if (previousFetchSize >= 0) {
+            try {
+                preparedStatement.setFetchSize(previousFetchSize);
+                previousFetchSize = -1;
+            } catch (SQLException exception) {
+                throw DatabaseExceptionBuilder.withCause(exception).build();
+            }
+        }
+        if (executed && !cached) { resetParameterIndex(); }
+        else { super.close(); }
+    }
+    
 }
@@ -15,6 +15,8 @@
  */
 package net.digitalid.database.mysql;
 
+import java.sql.Connection;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.method.Pure;
@@ -28,12 +30,12 @@ import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.initialization.annotations.Initialize;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
 import net.digitalid.database.dialect.identifier.SQLIdentifier;
 import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
@@ -60,8 +62,9 @@ public abstract class MySQLDialect extends SQLDialect {
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
+    @Override
     @TODO(task = "It might be necessary to use BINARY(17) instead of BINARY(16) for BINARY128 and BINARY(33) instead of BINARY(32) for BINARY256.", date = "2017-03-07", author = Author.KASPAR_ETTER)
-    protected void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    public void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         type.unparse(this, unit, string);
         if (type.getType() == CustomType.STRING64 || type.getType() == CustomType.STRING128 || type.getType() == CustomType.STRING) {
             string.append(" COLLATE utf16_bin");
@@ -69,13 +72,15 @@ public abstract class MySQLDialect extends SQLDialect {
     }
     
     @Pure
-    protected void unparse(@Nonnull SQLIdentifier identifier, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLIdentifier identifier, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         string.append("`").append(identifier.getString()).append("`");
     }
     
     @Pure
+    @Override
     @TODO(task = "Should we throw an exception in the other cases?", date = "2017-03-07", author = Author.KASPAR_ETTER)
-    protected void unparse(@Nonnull SQLConflictClause conflictClause, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    public void unparse(@Nonnull SQLConflictClause conflictClause, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         if (conflictClause == SQLConflictClause.REPLACE) { string.append("REPLACE"); }
         else if (conflictClause == SQLConflictClause.IGNORE) { string.append("INSERT IGNORE"); }
         else { string.append("INSERT"); }
@@ -83,12 +88,24 @@ public abstract class MySQLDialect extends SQLDialect {
     
     @Pure
     @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLType) { unparse((SQLType) node, unit, string); }
-        else if (node instanceof SQLIdentifier) { unparse((SQLIdentifier) node, unit, string); }
-        else if (node instanceof SQLConflictClause) { unparse((SQLConflictClause) node, unit, string); }
-        else if (node instanceof SQLCurrentTime) { string.append("UNIX_TIMESTAMP(SYSDATE()) * 1000 + MICROSECOND(SYSDATE(3)) DIV 1000"); } // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
-        else { super.unparse(node, unit, string); }
+    public void unparse(@Nonnull SQLCurrentTime currentTime, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("UNIX_TIMESTAMP(SYSDATE()) * 1000 + MICROSECOND(SYSDATE(3)) DIV 1000"); // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public int getIsolationLevel() {
+        return Connection.TRANSACTION_READ_COMMITTED;
+    }
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Positive int getMaximumParameterCount() {
+        return 65535;
     }
     
     /* -------------------------------------------------- TODO -------------------------------------------------- */
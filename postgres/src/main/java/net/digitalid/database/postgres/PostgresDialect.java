@@ -15,10 +15,12 @@
  */
 package net.digitalid.database.postgres;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
@@ -39,7 +41,6 @@ import net.digitalid.utility.validation.annotations.type.Stateless;
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
 import net.digitalid.database.dialect.statement.table.create.SQLType;
 
@@ -64,7 +65,8 @@ public abstract class PostgresDialect extends SQLDialect {
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
-    protected void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         if (type.getType() == CustomType.INTEGER08) {
             string.append("SMALLINT");
         } else if (type.getType() == CustomType.DECIMAL32) {
@@ -86,10 +88,31 @@ public abstract class PostgresDialect extends SQLDialect {
     
     @Pure
     @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLType) { unparse((SQLType) node, unit, string); }
-        else if (node instanceof SQLCurrentTime) { string.append("ROUND(EXTRACT(EPOCH FROM CLOCK_TIMESTAMP()) * 1000)"); } // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
-        else { super.unparse(node, unit, string); }
+    public void unparse(@Nonnull SQLCurrentTime currentTime, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("ROUND(EXTRACT(EPOCH FROM CLOCK_TIMESTAMP()) * 1000)"); // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
+    }
+    
+    @Pure
+    @Override
+    public void unparseLimit(@Nullable Integer limit, @Nullable Integer offset, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        if (limit == null && offset != null) { string.append(" LIMIT ALL OFFSET ").append(offset); }
+        else { super.unparseLimit(limit, offset, string); }
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public int getIsolationLevel() {
+        return Connection.TRANSACTION_READ_COMMITTED;
+    }
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Positive int getMaximumParameterCount() {
+        return 32767;
     }
     
     /* -------------------------------------------------- TODO -------------------------------------------------- */
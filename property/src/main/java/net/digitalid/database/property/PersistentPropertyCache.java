@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * The persistent property cache bounds the memory that is used by the loaded state of persistent properties.
+ * If the total weight of the loaded properties exceeds the maximum weight, the least recently used properties are evicted,
+ * which means that they release their state and reload it from the database on their next access.
+ * Optionally, the state of a property expires after a time to live so that it is reloaded even if it was used recently.
+ * <p>
+ * <em>Important:</em> Evicting a property never empties a set or map that it has handed out. While the cache is bounded,
+ * set and map properties return copies of their state. A property whose own set or map was returned while the cache was unbounded is no longer evicted.
+ * Properties with observers are not evicted either so that they can notify their observers when they are reset.
+ */
+@Mutable
+@ThreadSafe
+public class PersistentPropertyCache {
+    
+    /* -------------------------------------------------- Instance -------------------------------------------------- */
+    
+    /**
+     * Stores the cache that bounds the loaded state of all persistent properties, which is unbounded by default.
+     */
+    public static final @Nonnull Configuration<PersistentPropertyCache> instance = Configuration.with(new PersistentPropertyCache(Long.MAX_VALUE, 0, Weigher.ELEMENTS));
+    
+    /* -------------------------------------------------- Cacheable -------------------------------------------------- */
+    
+    /**
+     * A cacheable property can release its loaded state when it is evicted from the cache.
+     */
+    public static interface Cacheable {
+        
+        /**
+         * Returns the number of elements in the loaded state of this property.
+         */
+        @Pure
+        public @NonNegative int getElementCount();
+        
+        /**
+         * Releases the loaded state of this property so that it is reloaded on the next access and returns whether this was possible.
+         * A property that is currently locked by a thread, whose state may still be referenced by a reader or that has observers is not evicted.
+         */
+        @Impure
+        public boolean evict();
+        
+    }
+    
+    /* -------------------------------------------------- Weigher -------------------------------------------------- */
+    
+    /**
+     * A weigher determines how much of the maximum weight of the cache is used by a loaded property.
+     */
+    public static interface Weigher {
+        
+        /**
+         * Weighs each property by the number of its elements so that large sets and maps are evicted earlier.
+         */
+        public static final @Nonnull Weigher ELEMENTS = property -> Math.max(1, property.getElementCount());
+        
+        /**
+         * Weighs each property equally so that the maximum weight limits the number of loaded properties.
+         */
+        public static final @Nonnull Weigher PROPERTIES = property -> 1;
+        
+        /**
+         * Returns the weight of the given property.
+         */
+        @Pure
+        public @Positive long weigh(@Nonnull Cacheable property);
+        
+    }
+    
+    /* -------------------------------------------------- Settings -------------------------------------------------- */
+    
+    private final @Positive long maximumWeight;
+    
+    /**
+     * Returns the maximum total weight of the loaded properties.
+     */
+    @Pure
+    public @Positive long getMaximumWeight() {
+        return maximumWeight;
+    }
+    
+    private final @NonNegative long timeToLive;
+    
+    /**
+     * Returns the number of milliseconds after which the state of a property expires or zero if the state never expires.
+     */
+    @Pure
+    public @NonNegative long getTimeToLive() {
+        return timeToLive;
+    }
+    
+    private final @Nonnull Weigher weigher;
+    
+    /**
+     * Returns the weigher that determines the weight of the loaded properties.
+     */
+    @Pure
+    public @Nonnull Weigher getWeigher() {
+        return weigher;
+    }
+    
+    /**
+     * Returns whether this cache bounds or expires the loaded properties.
+     * An unbounded cache only counts the hits and misses and does not reference the properties.
+     */
+    @Pure
+    public boolean isBounded() {
+        return maximumWeight < Long.MAX_VALUE || timeToLive > 0;
+    }
+    
+    /* -------------------------------------------------- Entries -------------------------------------------------- */
+    
+    /**
+     * A key identifies a property by its identity as properties of equal subjects are equal but cache their state separately.
+     */
+    private static class Key {
+        
+        private final @Nonnull Cacheable property;
+        
+        private Key(@Nonnull Cacheable property) {
+            this.property = property;
+        }
+        
+        @Pure
+        @Override
+        public boolean equals(@Nullable Object object) {
+            return object instanceof Key && ((Key) object).property == property;
+        }
+        
+        @Pure
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(property);
+        }
+        
+    }
+    
+    /**
+     * An entry stores the weight of a loaded property and the time at which it was loaded.
+     */
+    private static class Entry {
+        
+        private long weight;
+        
+        private long loadTime;
+        
+        private Entry(long weight, long loadTime) {
+            this.weight = weight;
+            this.loadTime = loadTime;
+        }
+        
+    }
+    
+    /**
+     * Stores the entries of the loaded properties in access order so that the least recently used property is evicted first.
+     */
+    private final @Nonnull Map<@Nonnull Key, @Nonnull Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    
+    /**
+     * Stores the entries of the properties that could not be evicted because they were locked and are skipped in the current eviction.
+     */
+    private final @Nonnull Map<@Nonnull Key, @Nonnull Entry> skippedEntries = new LinkedHashMap<>();
+    
+    private long totalWeight = 0;
+    
+    /**
+     * Returns the total weight of the properties that are currently loaded.
+     */
+    @Pure
+    public synchronized @NonNegative long getTotalWeight() {
+        return totalWeight;
+    }
+    
+    /**
+     * Returns the number of properties that are currently loaded.
+     */
+    @Pure
+    public synchronized @NonNegative int size() {
+        return entries.size();
+    }
+    
+    /* -------------------------------------------------- Recording -------------------------------------------------- */
+    
+    /**
+     * Records that the given property has just been loaded from the database and evicts other properties if the maximum weight is exceeded.
+     */
+    @Impure
+    public void recordLoad(@Nonnull Cacheable property) {
+        misses.incrementAndGet();
+        if (isBounded()) {
+            synchronized (this) {
+                put(property, System.currentTimeMillis());
+                evict(property);
+            }
+        }
+    }
+    
+    /**
+     * Records that the loaded state of the given property has been modified, which can change its weight.
+     */
+    @Impure
+    public void recordUpdate(@Nonnull Cacheable property) {
+        if (isBounded()) {
+            synchronized (this) {
+                final @Nullable Entry entry = entries.get(new Key(property));
+                put(property, entry != null ? entry.loadTime : System.currentTimeMillis());
+                evict(property);
+            }
+        }
+    }
+    
+    /**
+     * Records an access to the loaded state of the given property and returns whether the state is still valid.
+     * If the state has expired, the property is removed from the cache and has to be reloaded by the caller.
+     */
+    @Impure
+    public boolean recordAccess(@Nonnull Cacheable property) {
+        if (isBounded()) {
+            synchronized (this) {
+                final @Nullable Entry entry = entries.get(new Key(property));
+                if (entry == null) {
+                    put(property, System.currentTimeMillis());
+                    evict(property);
+                } else if (timeToLive > 0 && System.currentTimeMillis() - entry.loadTime > timeToLive) {
+                    remove(property);
+                    expirations.incrementAndGet();
+                    return false;
+                }
+            }
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Records that the given property has released its loaded state on its own.
+     */
+    @Impure
+    public void recordReset(@Nonnull Cacheable property) {
+        if (isBounded()) {
+            synchronized (this) { remove(property); }
+        }
+    }
+    
+    /* -------------------------------------------------- Eviction -------------------------------------------------- */
+    
+    /**
+     * Adds or replaces the entry of the given property with its current weight and the given load time.
+     */
+    @Impure
+    private void put(@Nonnull Cacheable property, long loadTime) {
+        final long weight = weigher.weigh(property);
+        final @Nullable Entry previousEntry = entries.put(new Key(property), new Entry(weight, loadTime));
+        totalWeight += weight - (previousEntry != null ? previousEntry.weight : 0);
+    }
+    
+    /**
+     * Removes the entry of the given property if it is cached.
+     */
+    @Impure
+    private void remove(@Nonnull Cacheable property) {
+        final @Nullable Entry entry = entries.remove(new Key(property));
+        if (entry != null) { totalWeight -= entry.weight; }
+    }
+    
+    /**
+     * Evicts the least recently used properties except the given one until the total weight no longer exceeds the maximum weight.
+     * Properties that are locked by a thread are skipped and stay in the cache.
+     */
+    @Impure
+    private void evict(@Nonnull Cacheable currentProperty) {
+        if (totalWeight <= maximumWeight) { return; }
+        final @Nonnull Iterator<@Nonnull Map.Entry<@Nonnull Key, @Nonnull Entry>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maximumWeight && iterator.hasNext()) {
+            final @Nonnull Map.Entry<@Nonnull Key, @Nonnull Entry> entry = iterator.next();
+            final @Nonnull Cacheable property = entry.getKey().property;
+            if (property == currentProperty) { continue; }
+            iterator.remove();
+            if (property.evict()) {
+                totalWeight -= entry.getValue().weight;
+                evictions.incrementAndGet();
+            } else {
+                skippedEntries.put(entry.getKey(), entry.getValue());
+            }
+        }
+        entries.putAll(skippedEntries);
+        skippedEntries.clear();
+    }
+    
+    /**
+     * Evicts all properties that are not locked by a thread.
+     */
+    @Impure
+    public synchronized void evictAll() {
+        final @Nonnull Iterator<@Nonnull Map.Entry<@Nonnull Key, @Nonnull Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final @Nonnull Map.Entry<@Nonnull Key, @Nonnull Entry> entry = iterator.next();
+            if (entry.getKey().property.evict()) {
+                iterator.remove();
+                totalWeight -= entry.getValue().weight;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong hits = new AtomicLong();
+    
+    /**
+     * Returns the number of accesses that found the state of a property loaded.
+     */
+    @Pure
+    public @NonNegative long getHitCount() {
+        return hits.get();
+    }
+    
+    private final @Nonnull AtomicLong misses = new AtomicLong();
+    
+    /**
+     * Returns the number of times that the state of a property had to be loaded from the database.
+     */
+    @Pure
+    public @NonNegative long getMissCount() {
+        return misses.get();
+    }
+    
+    private final @Nonnull AtomicLong evictions = new AtomicLong();
+    
+    /**
+     * Returns the number of properties that were evicted because the maximum weight was exceeded.
+     */
+    @Pure
+    public @NonNegative long getEvictionCount() {
+        return evictions.get();
+    }
+    
+    private final @Nonnull AtomicLong expirations = new AtomicLong();
+    
+    /**
+     * Returns the number of properties whose state expired because their time to live was exceeded.
+     */
+    @Pure
+    public @NonNegative long getExpirationCount() {
+        return expirations.get();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a new persistent property cache with the given maximum weight, time to live in milliseconds and weigher.
+     */
+    public PersistentPropertyCache(@Positive long maximumWeight, @NonNegative long timeToLive, @Nonnull Weigher weigher) {
+        this.maximumWeight = maximumWeight;
+        this.timeToLive = timeToLive;
+        this.weigher = weigher;
+    }
+    
+}
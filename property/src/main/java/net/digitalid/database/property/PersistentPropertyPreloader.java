@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.conversion.WhereCondition;
+import net.digitalid.database.conversion.WhereConditionBuilder;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.property.subject.Subject;
+
+/**
+ * The persistent property preloader loads a property of many subjects with as few queries as possible instead of one query per subject.
+ * 
+ * @see SQL#selectAllMatchingAny(net.digitalid.utility.storage.Table, java.lang.Object, net.digitalid.utility.storage.interfaces.Unit, java.lang.Iterable)
+ */
+@Utility
+public abstract class PersistentPropertyPreloader {
+    
+    /* -------------------------------------------------- Preloadable -------------------------------------------------- */
+    
+    /**
+     * A preloadable property can be loaded from entries that were retrieved for several subjects at once.
+     */
+    public static interface Preloadable<@Unspecifiable ENTRY extends PersistentPropertyEntry<?>> {
+        
+        /**
+         * Returns whether the state of this property has already been loaded from the database.
+         */
+        @Pure
+        public boolean isLoaded();
+        
+        /**
+         * Loads the state of this property from the given entries, which are all entries of its subject in its table, unless it has already been loaded.
+         * 
+         * @param sequence the sequence number of the {@link WriteBehindQueue#beginLoad() load} during which the entries were retrieved.
+         */
+        @Pure
+        @LockNotHeldByCurrentThread
+        public void preload(@Nonnull @NonNullableElements List<ENTRY> entries, long sequence);
+        
+    }
+    
+    /* -------------------------------------------------- Preloading -------------------------------------------------- */
+    
+    /**
+     * Loads the property with the given table of each of the given subjects that has not yet been loaded.
+     * The entries of all subjects in the same unit are retrieved together in chunks that respect the parameter limit of the dialect.
+     * The recovered entries are assigned to the given subjects by {@link Object#equals(java.lang.Object) equality}.
+     */
+    @Pure
+    @NonCommitting
+    @SuppressWarnings("unchecked")
+    public static <@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable ENTRY extends PersistentPropertyEntry<SUBJECT>> void preload(@Nonnull PersistentPropertyTable<UNIT, SUBJECT, ENTRY> table, @Nonnull @NonNullableElements Iterable<? extends SUBJECT> subjects) throws DatabaseException, RecoveryException {
+        final @Nonnull Map<@Nonnull UNIT, @Nonnull Map<@Nonnull SUBJECT, @Nonnull Preloadable<ENTRY>>> propertiesByUnit = new LinkedHashMap<>();
+        for (@Nonnull SUBJECT subject : subjects) {
+            if (!subject.hasProperty(table)) { continue; }
+            final @Nonnull PersistentProperty<?, ?> property = subject.getProperty(table);
+            if (!(property instanceof Preloadable) || ((Preloadable<?>) property).isLoaded()) { continue; }
+            @Nullable Map<@Nonnull SUBJECT, @Nonnull Preloadable<ENTRY>> properties = propertiesByUnit.get(subject.getUnit());
+            if (properties == null) {
+                properties = new LinkedHashMap<>();
+                propertiesByUnit.put(subject.getUnit(), properties);
+            }
+            properties.put(subject, (Preloadable<ENTRY>) property);
+        }
+        
+        final @Nonnull Converter<SUBJECT, ?> subjectConverter = table.getParentModule().getSubjectTable();
+        final @Nonnull String prefix = subjectConverter.getTypeName().toLowerCase();
+        final boolean writtenBehind = table.isWrittenBehind();
+        final long sequence = writtenBehind ? WriteBehindQueue.instance.get().beginLoad() : 0;
+        try {
+            for (@Nonnull Map.Entry<@Nonnull UNIT, @Nonnull Map<@Nonnull SUBJECT, @Nonnull Preloadable<ENTRY>>> unitEntry : propertiesByUnit.entrySet()) {
+                final @Nonnull UNIT unit = unitEntry.getKey();
+                final @Nonnull Map<@Nonnull SUBJECT, @Nonnull Preloadable<ENTRY>> properties = unitEntry.getValue();
+                final @Nonnull List<@Nonnull WhereCondition<SUBJECT>> whereConditions = new ArrayList<>(properties.size());
+                for (@Nonnull SUBJECT subject : properties.keySet()) {
+                    whereConditions.add(WhereConditionBuilder.withConverter(subjectConverter).withObject(subject).withPrefix(prefix).build());
+                }
+                final @Nonnull Map<@Nonnull SUBJECT, @Nonnull List<ENTRY>> entriesBySubject = new HashMap<>();
+                for (@Nonnull ENTRY entry : SQL.selectAllMatchingAny(table, unit, unit, whereConditions)) {
+                    @Nullable List<ENTRY> entries = entriesBySubject.get(entry.getSubject());
+                    if (entries == null) {
+                        entries = new ArrayList<>();
+                        entriesBySubject.put(entry.getSubject(), entries);
+                    }
+                    entries.add(entry);
+                }
+                for (@Nonnull Map.Entry<@Nonnull SUBJECT, @Nonnull Preloadable<ENTRY>> propertyEntry : properties.entrySet()) {
+                    final @Nullable List<ENTRY> entries = entriesBySubject.get(propertyEntry.getKey());
+                    propertyEntry.getValue().preload(entries != null ? entries : Collections.<ENTRY>emptyList(), sequence);
+                }
+            }
+        } finally {
+            if (writtenBehind) { WriteBehindQueue.instance.get().endLoad(sequence); }
+        }
+    }
+    
+}
@@ -53,4 +53,13 @@ public interface PersistentPropertyTable<@Unspecifiable UNIT extends Unit, @Unsp
     @Override
     public @Nonnull SubjectModule<UNIT, SUBJECT> getParentModule();
     
+    /* -------------------------------------------------- Write-Behind -------------------------------------------------- */
+    
+    /**
+     * Returns whether the writes of the properties stored in this table are {@link WriteBehindQueue queued} and persisted in the background
+     * instead of being executed within the transaction that modifies the property.
+     */
+    @Pure
+    public boolean isWrittenBehind();
+    
 }
@@ -0,0 +1,546 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.conversion.WhereConditionBuilder;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.subject.Subject;
+
+/**
+ * The write-behind queue collects the writes of the properties whose {@link PersistentPropertyTable#isWrittenBehind() table is written behind}
+ * and persists them in batched transactions on a background thread. Repeated writes to the same entry are coalesced so that only the last one is persisted.
+ * The queue is flushed every flush interval, whenever it reaches its maximum size and when the virtual machine shuts down.
+ * Failed flushes are retried later, but the queue never grows beyond its maximum size: new writes are rejected while the queue is full and cannot be flushed.
+ * If the transaction of a background flush fails, its writes are retried per subject and then one by one so that a single failing write does not hold back the others.
+ * A write that fails {@link #maximumAttempts} times in such a retry is dropped and logged as an error.
+ * <p>
+ * <em>Important:</em> Writes that are still queued are lost if the process is killed, which is why only non-critical properties should be written behind.
+ */
+@Mutable
+@ThreadSafe
+public class WriteBehindQueue implements AutoCloseable {
+    
+    /* -------------------------------------------------- Instance -------------------------------------------------- */
+    
+    /**
+     * Stores the queue to which the writes of the properties are added that are written behind.
+     */
+    public static final @Nonnull Configuration<WriteBehindQueue> instance = Configuration.with(new WriteBehindQueue(10000, 1000));
+    
+    /**
+     * Stores the number of times that a write may fail on its own before it is dropped.
+     */
+    public static final @Nonnull Configuration<@Nonnull @Positive Integer> maximumAttempts = Configuration.with(10);
+    
+    /* -------------------------------------------------- Pending Write -------------------------------------------------- */
+    
+    /**
+     * A pending write stores an entry that is inserted or deleted when the queue is flushed.
+     */
+    @Mutable
+    public static class PendingWrite<ENTRY extends PersistentPropertyEntry<?>> {
+        
+        private final @Nonnull PersistentPropertyTable<?, ?, ENTRY> table;
+        
+        private final @Nonnull ENTRY entry;
+        
+        /**
+         * Returns the entry which is inserted or deleted.
+         */
+        @Pure
+        public @Nonnull ENTRY getEntry() {
+            return entry;
+        }
+        
+        private final boolean removal;
+        
+        /**
+         * Returns whether the entry is deleted instead of inserted.
+         */
+        @Pure
+        public boolean isRemoval() {
+            return removal;
+        }
+        
+        /**
+         * Stores the number of times that this write failed on its own.
+         */
+        private @NonNegative int failures = 0;
+        
+        /**
+         * Inserts or deletes the entry within the current transaction.
+         */
+        @Impure
+        @NonCommitting
+        private void write() throws DatabaseException {
+            if (removal) { SQL.delete(table, entry.getSubject().getUnit(), WhereConditionBuilder.withConverter(table).withObject(entry).build()); }
+            else { SQL.insertOrReplace(table, entry, entry.getSubject().getUnit()); }
+        }
+        
+        private PendingWrite(@Nonnull PersistentPropertyTable<?, ?, ENTRY> table, @Nonnull ENTRY entry, boolean removal) {
+            this.table = table;
+            this.entry = entry;
+            this.removal = removal;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Settings -------------------------------------------------- */
+    
+    private final @Positive int maximumSize;
+    
+    /**
+     * Returns the number of pending writes at which the queue is flushed before more writes are accepted, which is also the bound on the number of pending writes.
+     */
+    @Pure
+    public @Positive int getMaximumSize() {
+        return maximumSize;
+    }
+    
+    private final @Positive long flushInterval;
+    
+    /**
+     * Returns the number of milliseconds between two flushes of the queue.
+     */
+    @Pure
+    public @Positive long getFlushInterval() {
+        return flushInterval;
+    }
+    
+    /* -------------------------------------------------- Pending Writes -------------------------------------------------- */
+    
+    /**
+     * Stores the pending writes by the table and subject of their entries and then by the key of the element that is written.
+     */
+    private @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> pendingWrites = new LinkedHashMap<>();
+    
+    /**
+     * Stores the writes that are currently being flushed so that properties that are loaded in the meantime still see them.
+     */
+    private @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> flushingWrites = Collections.emptyMap();
+    
+    /**
+     * Stores the writes of the committed flushes by their sequence number as long as loads are in progress that started before these flushes were committed.
+     */
+    private final @Nonnull NavigableMap<@Nonnull Long, @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>>> flushedWrites = new TreeMap<>();
+    
+    /**
+     * Stores the sequence number of the last committed flush.
+     */
+    private long flushSequence = 0;
+    
+    /**
+     * Counts the loads that are in progress by the sequence number of the last committed flush when they started.
+     */
+    private final @Nonnull NavigableMap<@Nonnull Long, @Nonnull Integer> activeLoads = new TreeMap<>();
+    
+    private @NonNegative int size = 0;
+    
+    /**
+     * Returns the number of writes that have not yet been flushed.
+     */
+    @Pure
+    public synchronized @NonNegative int size() {
+        return size;
+    }
+    
+    /**
+     * Adds the insertion or deletion of the given entry into or from the given table to this queue.
+     * A pending write to the element with the given key of the same subject and table is replaced.
+     * The element key is the value of a set property, the key of a map property and null for a value property.
+     * 
+     * @throws DatabaseException if the queue is full and cannot be flushed, in which case the write is rejected.
+     */
+    @Impure
+    public <ENTRY extends PersistentPropertyEntry<?>> void enqueue(@Nonnull PersistentPropertyTable<?, ?, ENTRY> table, @Nonnull ENTRY entry, @Nullable Object elementKey, boolean removal) throws DatabaseException {
+        final @Nonnull List<@Nonnull Object> groupKey = Arrays.<Object>asList(table, entry.getSubject());
+        while (true) {
+            final boolean accepted;
+            final boolean full;
+            synchronized (this) {
+                @Nullable Map<Object, @Nonnull PendingWrite<?>> writes = pendingWrites.get(groupKey);
+                accepted = size < maximumSize || writes != null && writes.containsKey(elementKey);
+                if (accepted) {
+                    if (writes == null) {
+                        writes = new LinkedHashMap<>();
+                        pendingWrites.put(groupKey, writes);
+                    }
+                    if (writes.put(elementKey, new PendingWrite<>(table, entry, removal)) == null) { size++; }
+                    startFlusher();
+                }
+                full = size >= maximumSize;
+            }
+            if (accepted) {
+                if (full) {
+                    try {
+                        flushInBackground();
+                    } catch (@Nonnull DatabaseException exception) {
+                        Log.error("Could not flush the full write-behind queue.", exception);
+                    }
+                }
+                return;
+            }
+            // The queue is still full because its last flush failed, which is why a new write is only accepted after a successful flush.
+            flushInBackground();
+        }
+    }
+    
+    /* -------------------------------------------------- Loading -------------------------------------------------- */
+    
+    /**
+     * Registers a load of properties from the database and returns the sequence number of the last committed flush, which has to be passed to
+     * {@link #getPendingWrites(net.digitalid.database.property.PersistentPropertyTable, net.digitalid.database.property.subject.Subject, long)} and {@link #endLoad(long)}.
+     * The writes of the flushes that are committed from now on remain visible to the load until it ends as the load might have read the database before.
+     */
+    @Impure
+    public synchronized long beginLoad() {
+        final @Nullable Integer count = activeLoads.get(flushSequence);
+        activeLoads.put(flushSequence, count == null ? 1 : count + 1);
+        return flushSequence;
+    }
+    
+    /**
+     * Deregisters a load that was registered with the given sequence number and discards the flushed writes that no load in progress can miss anymore.
+     */
+    @Impure
+    public synchronized void endLoad(long sequence) {
+        final @Nullable Integer count = activeLoads.get(sequence);
+        if (count == null) { return; }
+        if (count > 1) { activeLoads.put(sequence, count - 1); }
+        else { activeLoads.remove(sequence); }
+        discardFlushedWrites();
+    }
+    
+    /**
+     * Discards the writes of the committed flushes that every load in progress started after.
+     */
+    @Impure
+    private void discardFlushedWrites() {
+        if (activeLoads.isEmpty()) { flushedWrites.clear(); }
+        else { flushedWrites.headMap(activeLoads.firstKey(), true).clear(); }
+    }
+    
+    /**
+     * Returns the writes to the given table for the given subject that a load which started at the given sequence number might miss in the order in which they have to be applied.
+     * These are the writes that are pending or being flushed as well as the writes of the flushes that were committed after the load started.
+     * Properties apply these writes after loading their state from the database, where reapplying a write that the load has already seen is harmless.
+     */
+    @Pure
+    @SuppressWarnings("unchecked")
+    public synchronized <ENTRY extends PersistentPropertyEntry<?>> @Nonnull List<@Nonnull PendingWrite<ENTRY>> getPendingWrites(@Nonnull PersistentPropertyTable<?, ?, ENTRY> table, @Nonnull Subject<?> subject, long sequence) {
+        if (size == 0 && flushingWrites.isEmpty() && flushedWrites.isEmpty()) { return Collections.emptyList(); }
+        final @Nonnull List<@Nonnull Object> groupKey = Arrays.<Object>asList(table, subject);
+        final @Nonnull List<@Nonnull PendingWrite<ENTRY>> result = new ArrayList<>();
+        for (@Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> flushed : flushedWrites.tailMap(sequence, false).values()) {
+            final @Nullable Map<Object, @Nonnull PendingWrite<?>> writes = flushed.get(groupKey);
+            if (writes != null) { for (@Nonnull PendingWrite<?> write : writes.values()) { result.add((PendingWrite<ENTRY>) write); } }
+        }
+        final @Nullable Map<Object, @Nonnull PendingWrite<?>> flushing = flushingWrites.get(groupKey);
+        if (flushing != null) { for (@Nonnull PendingWrite<?> write : flushing.values()) { result.add((PendingWrite<ENTRY>) write); } }
+        final @Nullable Map<Object, @Nonnull PendingWrite<?>> pending = pendingWrites.get(groupKey);
+        if (pending != null) { for (@Nonnull PendingWrite<?> write : pending.values()) { result.add((PendingWrite<ENTRY>) write); } }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Flushing -------------------------------------------------- */
+    
+    /**
+     * Ensures that only one flush is in progress at a time.
+     */
+    private final @Nonnull Object flushLock = new Object();
+    
+    /**
+     * Persists all pending writes within a single transaction.
+     * If the transaction fails, the writes are requeued unless they have been replaced by newer writes in the meantime.
+     * <p>
+     * <em>Important:</em> If a transaction is bound to the current thread, the writes are performed within that transaction.
+     */
+    @Impure
+    @Committing
+    public void flush() throws DatabaseException {
+        flush(false);
+    }
+    
+    /**
+     * Persists all pending writes within a single transaction.
+     * If the transaction fails and the writes are isolated, they are retried per group and the writes of a failing group one by one.
+     * In this case, the writes that still fail are requeued until they have failed {@link #maximumAttempts} times, after which they are dropped.
+     * The other writes are flushed, but the flush still fails as long as some of the writes were requeued.
+     * Otherwise, all writes are requeued unless they have been replaced by newer writes in the meantime.
+     * <p>
+     * <em>Important:</em> The writes may only be isolated if no transaction is bound to the current thread, as the retries would join that transaction otherwise.
+     */
+    @Impure
+    @Committing
+    private void flush(boolean isolated) throws DatabaseException {
+        synchronized (flushLock) {
+            final @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> writes;
+            synchronized (this) {
+                if (size == 0) { return; }
+                writes = pendingWrites;
+                flushingWrites = writes;
+                pendingWrites = new LinkedHashMap<>();
+                size = 0;
+            }
+            final @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> failedWrites = new LinkedHashMap<>();
+            final @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> retriedWrites = new LinkedHashMap<>();
+            boolean written = false;
+            try {
+                try {
+                    Database.inTransaction(transaction -> {
+                        for (@Nonnull Map<Object, @Nonnull PendingWrite<?>> group : writes.values()) {
+                            for (@Nonnull PendingWrite<?> write : group.values()) { write.write(); }
+                        }
+                        return null;
+                    });
+                } catch (@Nonnull DatabaseException | RuntimeException exception) {
+                    if (!isolated) { throw exception; }
+                    Log.warning("Could not flush the write-behind queue in a single transaction, which is why its writes are retried in isolation.", exception);
+                    writeIsolated(writes, failedWrites, retriedWrites);
+                }
+                written = true;
+            } finally {
+                synchronized (this) {
+                    if (written) {
+                        // The writes that failed in isolation were not flushed and are requeued unless they were dropped.
+                        for (@Nonnull Map.Entry<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> group : failedWrites.entrySet()) {
+                            final @Nonnull Map<Object, @Nonnull PendingWrite<?>> flushedGroup = writes.get(group.getKey());
+                            flushedGroup.keySet().removeAll(group.getValue().keySet());
+                            if (flushedGroup.isEmpty()) { writes.remove(group.getKey()); }
+                        }
+                        requeue(retriedWrites);
+                        flushSequence++;
+                        // Loads that are in progress might have read the database before this flush was committed.
+                        if (!activeLoads.isEmpty()) { flushedWrites.put(flushSequence, writes); }
+                    } else {
+                        requeue(writes);
+                    }
+                    flushingWrites = Collections.emptyMap();
+                }
+            }
+            if (!retriedWrites.isEmpty()) { throw DatabaseExceptionBuilder.withCause(new SQLException("Some writes of the write-behind queue failed in isolation and were requeued.")).build(); }
+        }
+    }
+    
+    /**
+     * Performs each group of the given writes in its own transaction and the writes of a failing group one by one.
+     * The writes that fail on their own are added to the given failed writes and, unless they have failed too often, to the given retried writes.
+     */
+    @Impure
+    @Committing
+    private static void writeIsolated(@Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> writes, @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> failedWrites, @Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> retriedWrites) {
+        for (@Nonnull Map.Entry<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> group : writes.entrySet()) {
+            try {
+                Database.inTransaction(transaction -> {
+                    for (@Nonnull PendingWrite<?> write : group.getValue().values()) { write.write(); }
+                    return null;
+                });
+            } catch (@Nonnull DatabaseException | RuntimeException groupException) {
+                for (@Nonnull Map.Entry<Object, @Nonnull PendingWrite<?>> entry : group.getValue().entrySet()) {
+                    final @Nonnull PendingWrite<?> write = entry.getValue();
+                    try {
+                        Database.inTransaction(transaction -> { write.write(); return null; });
+                    } catch (@Nonnull DatabaseException | RuntimeException exception) {
+                        write.failures++;
+                        putWrite(failedWrites, group.getKey(), entry.getKey(), write);
+                        if (write.failures < maximumAttempts.get()) {
+                            putWrite(retriedWrites, group.getKey(), entry.getKey(), write);
+                        } else {
+                            Log.error("Dropped a write to the table $ after $ failed attempts.", exception, write.table.getName(), write.failures);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Puts the given write with the given group and element key into the given writes.
+     */
+    @Impure
+    private static void putWrite(@Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> writes, @Nonnull List<@Nonnull Object> groupKey, @Nullable Object elementKey, @Nonnull PendingWrite<?> write) {
+        @Nullable Map<Object, @Nonnull PendingWrite<?>> group = writes.get(groupKey);
+        if (group == null) {
+            group = new LinkedHashMap<>();
+            writes.put(groupKey, group);
+        }
+        group.put(elementKey, write);
+    }
+    
+    /**
+     * Adds the given writes that could not be flushed back to the pending writes unless they have been replaced in the meantime.
+     */
+    @Impure
+    private void requeue(@Nonnull Map<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> writes) {
+        for (@Nonnull Map.Entry<@Nonnull List<@Nonnull Object>, @Nonnull Map<Object, @Nonnull PendingWrite<?>>> group : writes.entrySet()) {
+            final @Nullable Map<Object, @Nonnull PendingWrite<?>> newerWrites = pendingWrites.get(group.getKey());
+            if (newerWrites != null) {
+                for (@Nonnull Map.Entry<Object, @Nonnull PendingWrite<?>> write : group.getValue().entrySet()) {
+                    if (!newerWrites.containsKey(write.getKey())) {
+                        newerWrites.put(write.getKey(), write.getValue());
+                        size++;
+                    }
+                }
+            } else {
+                pendingWrites.put(group.getKey(), group.getValue());
+                size += group.getValue().size();
+            }
+        }
+    }
+    
+    /**
+     * Flushes this queue with isolated retries and logs a failure instead of propagating it.
+     */
+    @Impure
+    @Committing
+    private void flushQuietly() {
+        try {
+            flush(true);
+        } catch (@Nonnull DatabaseException | RuntimeException exception) {
+            Log.error("Could not flush the write-behind queue.", exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Flusher -------------------------------------------------- */
+    
+    /**
+     * Stores the executor that flushes the queue periodically or null if no write has been queued yet.
+     */
+    private @Nullable ScheduledExecutorService flusher;
+    
+    /**
+     * Stores the shutdown hook that flushes the remaining writes or null if the flusher has not been started.
+     */
+    private @Nullable Thread shutdownHook;
+    
+    /**
+     * Starts the background thread that flushes the queue periodically and registers a shutdown hook that flushes the remaining writes.
+     */
+    @Impure
+    private synchronized void startFlusher() {
+        if (flusher == null) {
+            final @Nonnull ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final @Nonnull Thread thread = new Thread(runnable, "PersistentPropertyWriteBehind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+            final @Nonnull Thread hook = new Thread(this::flushQuietly, "PersistentPropertyWriteBehindShutdown");
+            Runtime.getRuntime().addShutdownHook(hook);
+            this.flusher = executor;
+            this.shutdownHook = hook;
+        }
+    }
+    
+    /**
+     * Flushes the queue with isolated retries on the background thread, where no transaction is bound, and waits until the flush is done.
+     * 
+     * @throws DatabaseException if the flush failed, in which case the writes have been requeued.
+     */
+    @Impure
+    @Committing
+    private void flushInBackground() throws DatabaseException {
+        final @Nullable ScheduledExecutorService executor;
+        synchronized (this) { executor = flusher; }
+        if (executor == null) { return; }
+        try {
+            executor.submit(() -> { flush(true); return null; }).get();
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw DatabaseExceptionBuilder.withCause(new SQLException("Interrupted while flushing the write-behind queue.", exception)).build();
+        } catch (@Nonnull ExecutionException exception) {
+            final @Nonnull Throwable cause = exception.getCause();
+            if (cause instanceof DatabaseException) { throw (DatabaseException) cause; }
+            throw DatabaseExceptionBuilder.withCause(new SQLException("Could not flush the write-behind queue.", cause)).build();
+        }
+    }
+    
+    /**
+     * Flushes the remaining writes, stops the background thread and removes the shutdown hook.
+     * Writes that are queued afterwards start a new background thread, which is why a closed queue should no longer be used.
+     * 
+     * @throws DatabaseException if the final flush failed, in which case the remaining writes stay queued.
+     */
+    @Impure
+    @Override
+    @Committing
+    public void close() throws DatabaseException {
+        final @Nullable Thread hook;
+        synchronized (this) {
+            hook = shutdownHook;
+            shutdownHook = null;
+        }
+        if (hook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (@Nonnull IllegalStateException exception) {
+                // The virtual machine is already shutting down, in which case the hook flushes the remaining writes.
+            }
+        }
+        try {
+            flushInBackground();
+        } finally {
+            final @Nullable ScheduledExecutorService executor;
+            synchronized (this) {
+                executor = flusher;
+                flusher = null;
+            }
+            if (executor != null) { executor.shutdown(); }
+        }
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a new write-behind queue with the given maximum size and flush interval in milliseconds.
+     */
+    public WriteBehindQueue(@Positive int maximumSize, @Positive long flushInterval) {
+        this.maximumSize = maximumSize;
+        this.flushInterval = flushInterval;
+    }
+    
+}
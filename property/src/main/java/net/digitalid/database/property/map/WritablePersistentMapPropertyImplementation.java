@@ -15,6 +15,7 @@
  */
 package net.digitalid.database.property.map;
 
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
@@ -31,7 +32,6 @@ import net.digitalid.utility.annotations.ownership.NonCapturable;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
-import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.collections.map.FreezableMap;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
 import net.digitalid.utility.contracts.Validate;
@@ -53,6 +53,9 @@ import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.PersistentPropertyPreloader;
+import net.digitalid.database.property.WriteBehindQueue;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.property.subject.SubjectUtility;
 
@@ -62,7 +65,7 @@ import net.digitalid.database.property.subject.SubjectUtility;
 @ThreadSafe
 @GenerateBuilder
 @GenerateSubclass
-public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable KEY, @Unspecifiable VALUE, @Unspecifiable READONLY_MAP extends ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_MAP extends FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>> extends WritableMapPropertyImplementation<KEY, VALUE, READONLY_MAP, DatabaseException, RecoveryException, PersistentMapObserver<SUBJECT, KEY, VALUE, READONLY_MAP>, ReadOnlyPersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP>> implements WritablePersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP, FREEZABLE_MAP> {
+public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable KEY, @Unspecifiable VALUE, @Unspecifiable READONLY_MAP extends ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_MAP extends FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>> extends WritableMapPropertyImplementation<KEY, VALUE, READONLY_MAP, DatabaseException, RecoveryException, PersistentMapObserver<SUBJECT, KEY, VALUE, READONLY_MAP>, ReadOnlyPersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP>> implements WritablePersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP, FREEZABLE_MAP>, PersistentPropertyPreloader.Preloadable<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>>, PersistentPropertyCache.Cacheable {
     
     /* -------------------------------------------------- Validators -------------------------------------------------- */
     
@@ -102,37 +105,142 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     @NonCommitting
     protected void load(final boolean locking) throws DatabaseException, RecoveryException {
         if (locking) { lock.lock(); }
+        final boolean writtenBehind = getTable().isWrittenBehind();
+        final long sequence = writtenBehind ? WriteBehindQueue.instance.get().beginLoad() : 0;
         try {
-            getMap().clear();
             final @Nonnull String prefix = getTable().getParentModule().getSubjectTable().getTypeName().toLowerCase();
             final @Nonnull @NonNullableElements WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(getTable().getParentModule().getSubjectTable()).withObject(getSubject()).withPrefix(prefix).build();
-            final @Nonnull @NonNullableElements FreezableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> entries = SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition);
-            for (@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry : entries) {
-                getMap().put(entry.getKey(), entry.getValue());
-            }
-            this.loaded = true;
+            load(SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition), sequence);
         } finally {
+            if (writtenBehind) { WriteBehindQueue.instance.get().endLoad(sequence); }
             if (locking) { lock.unlock(); }
         }
     }
     
+    /**
+     * Loads the key-value pairs of this property from the given entries.
+     * 
+     * @param sequence the sequence number of the {@link WriteBehindQueue#beginLoad() load} during which the entries were retrieved.
+     */
+    @Pure
+    protected void load(@Nonnull @NonNullableElements Iterable<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> entries, long sequence) {
+        getMap().clear();
+        for (@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry : entries) {
+            getMap().put(entry.getKey(), entry.getValue());
+        }
+        if (getTable().isWrittenBehind()) {
+            for (@Nonnull WriteBehindQueue.PendingWrite<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> pendingWrite : WriteBehindQueue.instance.get().getPendingWrites(getTable(), getSubject(), sequence)) {
+                if (pendingWrite.isRemoval()) { getMap().remove(pendingWrite.getEntry().getKey()); }
+                else { getMap().put(pendingWrite.getEntry().getKey(), pendingWrite.getEntry().getValue()); }
+            }
+        }
+        this.loaded = true;
+        PersistentPropertyCache.instance.get().recordLoad(this);
+    }
+    
+    /* -------------------------------------------------- Caching -------------------------------------------------- */
+    
+    /**
+     * Returns whether the key-value pairs of this property are loaded and have not expired, which is recorded as an access in the {@link PersistentPropertyCache cache}.
+     * The expiration is not checked while the current thread holds the lock so that observers can access this property without a reentrance.
+     */
+    @Pure
+    protected boolean isCached() {
+        return loaded && (lock.isHeldByCurrentThread() || PersistentPropertyCache.instance.get().recordAccess(this));
+    }
+    
+    @Pure
+    @Override
+    public int getElementCount() {
+        return getMap().size();
+    }
+    
+    /**
+     * Stores whether the map of this property has been handed out by {@link #get()}, which means that it may still be referenced by a reader and must no longer be cleared.
+     */
+    private volatile boolean handedOut = false;
+    
+    /**
+     * Releases the key-value pairs of this property unless the map has been handed out to a reader, which then keeps the property loaded.
+     * A property with observers is not evicted either, as its {@link #reset()} has to reload its state in order to notify them about changes.
+     */
+    @Impure
+    @Override
+    public boolean evict() {
+        if (handedOut || !observers.isEmpty() || lock.isHeldByCurrentThread() || !lock.tryLock()) { return false; }
+        try {
+            getMap().clear();
+            this.loaded = false;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Preloading -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    @Pure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void preload(@Nonnull @NonNullableElements List<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> entries, long sequence) {
+        lock.lock();
+        try {
+            if (!loaded) { load(entries, sequence); }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /* -------------------------------------------------- Getters -------------------------------------------------- */
     
+    /**
+     * Returns the map of this property itself if the {@link PersistentPropertyCache cache} is unbounded and a copy of it otherwise.
+     * The copy is taken while holding the lock so that the map cannot be evicted in the meantime, and the property stays evictable afterwards.
+     */
     @Pure
     @Override
     @NonCommitting
     @SuppressWarnings("unchecked")
     public @Nonnull @NonFrozen READONLY_MAP get() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
-        return (READONLY_MAP) getMap();
+        final @Nonnull PersistentPropertyCache cache = PersistentPropertyCache.instance.get();
+        if (!cache.isBounded()) {
+            if (!isCached()) { load(true); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
+            this.handedOut = true;
+            return (READONLY_MAP) getMap();
+        }
+        final boolean locking = !lock.isHeldByCurrentThread();
+        if (locking) { lock.lock(); }
+        try {
+            if (!loaded || locking && !cache.recordAccess(this)) { load(false); }
+            return (READONLY_MAP) getMap().clone();
+        } finally {
+            if (locking) { lock.unlock(); }
+        }
     }
     
     @Pure
     @Override
     @NonCommitting
     public @NonCapturable @Nullable @Valid VALUE get(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
-        return getMap().get(key);
+        final @Nonnull PersistentPropertyCache cache = PersistentPropertyCache.instance.get();
+        if (!cache.isBounded()) {
+            if (!isCached()) { load(true); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
+            return getMap().get(key);
+        }
+        final boolean locking = !lock.isHeldByCurrentThread();
+        if (locking) { lock.lock(); }
+        try {
+            if (!loaded || locking && !cache.recordAccess(this)) { load(false); }
+            return getMap().get(key);
+        } finally {
+            if (locking) { lock.unlock(); }
+        }
     }
     
     /* -------------------------------------------------- Operations -------------------------------------------------- */
@@ -144,14 +252,16 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     public boolean add(@Captured @Nonnull @Valid("key") KEY key, @Captured @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
+            if (!isCached()) { load(false); }
             if (getMap().containsKey(key)) {
                 Database.commit();
                 return false;
             } else {
                 final @Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = new PersistentMapPropertyEntrySubclass<>(getSubject(), key, value);
-                SQL.insertOrAbort(getTable(), entry, getSubject().getUnit());
+                if (getTable().isWrittenBehind()) { WriteBehindQueue.instance.get().enqueue(getTable(), entry, key, false); }
+                else { SQL.insertOrAbort(getTable(), entry, getSubject().getUnit()); }
                 getMap().put(key, value);
+                PersistentPropertyCache.instance.get().recordUpdate(this);
                 Database.commit();
                 notifyObservers(key, value, true);
                 return true;
@@ -168,12 +278,14 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     public @Capturable @Nullable @Valid VALUE remove(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
+            if (!isCached()) { load(false); }
             final @Nullable VALUE value = getMap().get(key);
             if (value != null) {
                 final @Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = new PersistentMapPropertyEntrySubclass<>(getSubject(), key, value); // TODO: The value should actually not be necessary.
-                SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build());
+                if (getTable().isWrittenBehind()) { WriteBehindQueue.instance.get().enqueue(getTable(), entry, key, true); }
+                else { SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build()); }
                 getMap().remove(key);
+                PersistentPropertyCache.instance.get().recordUpdate(this);
                 Database.commit();
                 notifyObservers(key, value, false);
                 return value;
@@ -198,6 +310,7 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
             if (loaded) {
                 if (observers.isEmpty()) {
                     this.loaded = false;
+                    PersistentPropertyCache.instance.get().recordReset(this);
                 } else {
                     final @Nonnull FreezableMap<KEY, VALUE> oldMap = getMap().clone();
                     load(false);
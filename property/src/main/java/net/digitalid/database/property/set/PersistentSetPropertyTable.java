@@ -76,6 +76,13 @@ public abstract class PersistentSetPropertyTable<@Unspecifiable UNIT extends Uni
     @Pure
     public abstract @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> getValueConverter();
     
+    /* -------------------------------------------------- Write-Behind -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    @Default("false")
+    public abstract boolean isWrittenBehind();
+    
     /* -------------------------------------------------- Type -------------------------------------------------- */
     
     @Pure
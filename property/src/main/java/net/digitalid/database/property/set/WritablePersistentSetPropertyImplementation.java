@@ -15,6 +15,8 @@
  */
 package net.digitalid.database.property.set;
 
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
@@ -26,7 +28,6 @@ import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
-import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.collections.set.FreezableSet;
 import net.digitalid.utility.collections.set.ReadOnlySet;
 import net.digitalid.utility.contracts.Validate;
@@ -48,6 +49,9 @@ import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.PersistentPropertyPreloader;
+import net.digitalid.database.property.WriteBehindQueue;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.property.subject.SubjectUtility;
 
@@ -59,7 +63,7 @@ import net.digitalid.database.property.subject.SubjectUtility;
 @ThreadSafe
 @GenerateBuilder
 @GenerateSubclass
-public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable VALUE, @Unspecifiable READONLY_SET extends ReadOnlySet<@Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_SET extends FreezableSet<@Nonnull @Valid VALUE>> extends WritableSetPropertyImplementation<VALUE, READONLY_SET, DatabaseException, RecoveryException, PersistentSetObserver<SUBJECT, VALUE, READONLY_SET>, ReadOnlyPersistentSetProperty<SUBJECT, VALUE, READONLY_SET>> implements WritablePersistentSetProperty<SUBJECT, VALUE, READONLY_SET, FREEZABLE_SET> {
+public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable VALUE, @Unspecifiable READONLY_SET extends ReadOnlySet<@Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_SET extends FreezableSet<@Nonnull @Valid VALUE>> extends WritableSetPropertyImplementation<VALUE, READONLY_SET, DatabaseException, RecoveryException, PersistentSetObserver<SUBJECT, VALUE, READONLY_SET>, ReadOnlyPersistentSetProperty<SUBJECT, VALUE, READONLY_SET>> implements WritablePersistentSetProperty<SUBJECT, VALUE, READONLY_SET, FREEZABLE_SET>, PersistentPropertyPreloader.Preloadable<PersistentSetPropertyEntry<SUBJECT, VALUE>>, PersistentPropertyCache.Cacheable {
     
     /* -------------------------------------------------- Validator -------------------------------------------------- */
     
@@ -93,29 +97,123 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     @NonCommitting
     protected void load(final boolean locking) throws DatabaseException, RecoveryException {
         if (locking) { lock.lock(); }
+        final boolean writtenBehind = getTable().isWrittenBehind();
+        final long sequence = writtenBehind ? WriteBehindQueue.instance.get().beginLoad() : 0;
         try {
-            getSet().clear();
             final @Nonnull String prefix = getTable().getParentModule().getSubjectTable().getTypeName().toLowerCase();
             final @Nonnull WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(getTable().getParentModule().getSubjectTable()).withObject(getSubject()).withPrefix(prefix).build();
-            final @Nonnull @NonNullableElements FreezableList<PersistentSetPropertyEntry<SUBJECT, VALUE>> entries = SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition);
-            for (@Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry : entries) {
-                getSet().add(entry.getValue());
-            }
-            this.loaded = true;
+            load(SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition), sequence);
         } finally {
+            if (writtenBehind) { WriteBehindQueue.instance.get().endLoad(sequence); }
             if (locking) { lock.unlock(); }
         }
     }
     
+    /**
+     * Loads the values of this property from the given entries.
+     * 
+     * @param sequence the sequence number of the {@link WriteBehindQueue#beginLoad() load} during which the entries were retrieved.
+     */
+    @Pure
+    protected void load(@Nonnull @NonNullableElements Iterable<PersistentSetPropertyEntry<SUBJECT, VALUE>> entries, long sequence) {
+        getSet().clear();
+        for (@Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry : entries) {
+            getSet().add(entry.getValue());
+        }
+        if (getTable().isWrittenBehind()) {
+            for (@Nonnull WriteBehindQueue.PendingWrite<PersistentSetPropertyEntry<SUBJECT, VALUE>> pendingWrite : WriteBehindQueue.instance.get().getPendingWrites(getTable(), getSubject(), sequence)) {
+                if (pendingWrite.isRemoval()) { getSet().remove(pendingWrite.getEntry().getValue()); }
+                else { getSet().add(pendingWrite.getEntry().getValue()); }
+            }
+        }
+        this.loaded = true;
+        PersistentPropertyCache.instance.get().recordLoad(this);
+    }
+    
+    /* -------------------------------------------------- Caching -------------------------------------------------- */
+    
+    /**
+     * Returns whether the values of this property are loaded and have not expired, which is recorded as an access in the {@link PersistentPropertyCache cache}.
+     * The expiration is not checked while the current thread holds the lock so that observers can access this property without a reentrance.
+     */
+    @Pure
+    protected boolean isCached() {
+        return loaded && (lock.isHeldByCurrentThread() || PersistentPropertyCache.instance.get().recordAccess(this));
+    }
+    
+    @Pure
+    @Override
+    public int getElementCount() {
+        return getSet().size();
+    }
+    
+    /**
+     * Stores whether the set of this property has been handed out by {@link #get()}, which means that it may still be referenced by a reader and must no longer be cleared.
+     */
+    private volatile boolean handedOut = false;
+    
+    /**
+     * Releases the values of this property unless the set has been handed out to a reader, which then keeps the property loaded.
+     * A property with observers is not evicted either, as its {@link #reset()} has to reload its state in order to notify them about changes.
+     */
+    @Impure
+    @Override
+    public boolean evict() {
+        if (handedOut || !observers.isEmpty() || lock.isHeldByCurrentThread() || !lock.tryLock()) { return false; }
+        try {
+            getSet().clear();
+            this.loaded = false;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Preloading -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    @Pure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void preload(@Nonnull @NonNullableElements List<PersistentSetPropertyEntry<SUBJECT, VALUE>> entries, long sequence) {
+        lock.lock();
+        try {
+            if (!loaded) { load(entries, sequence); }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /* -------------------------------------------------- Getter -------------------------------------------------- */
     
+    /**
+     * Returns the set of this property itself if the {@link PersistentPropertyCache cache} is unbounded and a copy of it otherwise.
+     * The copy is taken while holding the lock so that the set cannot be evicted in the meantime, and the property stays evictable afterwards.
+     */
     @Pure
     @Override
     @NonCommitting
     @SuppressWarnings("unchecked")
     public @Nonnull @NonFrozen @NonNullableElements READONLY_SET get() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as add(value), remove(value) and reset() that call external code ensure that the set is loaded.
-        return (READONLY_SET) getSet();
+        final @Nonnull PersistentPropertyCache cache = PersistentPropertyCache.instance.get();
+        if (!cache.isBounded()) {
+            if (!isCached()) { load(true); } // This should never trigger a reentrance exception as add(value), remove(value) and reset() that call external code ensure that the set is loaded.
+            this.handedOut = true;
+            return (READONLY_SET) getSet();
+        }
+        final boolean locking = !lock.isHeldByCurrentThread();
+        if (locking) { lock.lock(); }
+        try {
+            if (!loaded || locking && !cache.recordAccess(this)) { load(false); }
+            return (READONLY_SET) getSet().clone();
+        } finally {
+            if (locking) { lock.unlock(); }
+        }
     }
     
     /* -------------------------------------------------- Operations -------------------------------------------------- */
@@ -127,14 +225,16 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     public boolean add(@Captured @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
+            if (!isCached()) { load(false); }
             if (getSet().contains(value)) {
                 Database.commit();
                 return false;
             } else {
                 final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
-                SQL.insertOrAbort(getTable(), entry, getSubject().getUnit());
+                if (getTable().isWrittenBehind()) { WriteBehindQueue.instance.get().enqueue(getTable(), entry, value, false); }
+                else { SQL.insertOrAbort(getTable(), entry, getSubject().getUnit()); }
                 getSet().add(value);
+                PersistentPropertyCache.instance.get().recordUpdate(this);
                 Database.commit();
                 notifyObservers(value, true);
                 return true;
@@ -151,11 +251,13 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     public boolean remove(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
+            if (!isCached()) { load(false); }
             if (getSet().contains(value)) {
                 final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
-                SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build());
+                if (getTable().isWrittenBehind()) { WriteBehindQueue.instance.get().enqueue(getTable(), entry, value, true); }
+                else { SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build()); }
                 getSet().remove(value);
+                PersistentPropertyCache.instance.get().recordUpdate(this);
                 Database.commit();
                 notifyObservers(value, false);
                 return true;
@@ -180,6 +282,7 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
             if (loaded) {
                 if (observers.isEmpty()) {
                     this.loaded = false;
+                    PersistentPropertyCache.instance.get().recordReset(this);
                 } else {
                     final @Nonnull FreezableSet<VALUE> oldSet = getSet().clone();
                     load(false);
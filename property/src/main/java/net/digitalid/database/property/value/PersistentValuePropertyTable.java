@@ -86,6 +86,13 @@ public abstract class PersistentValuePropertyTable<@Unspecifiable UNIT extends U
     @Pure
     public abstract @Valid VALUE getDefaultValue();
     
+    /* -------------------------------------------------- Write-Behind -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    @Default("false")
+    public abstract boolean isWrittenBehind();
+    
     /* -------------------------------------------------- Type -------------------------------------------------- */
     
     @Pure
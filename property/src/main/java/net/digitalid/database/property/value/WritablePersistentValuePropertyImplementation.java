@@ -15,6 +15,7 @@
  */
 package net.digitalid.database.property.value;
 
+import java.util.List;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
@@ -39,6 +40,7 @@ import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.time.Time;
 import net.digitalid.utility.time.TimeBuilder;
 import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
@@ -49,6 +51,9 @@ import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.PersistentPropertyPreloader;
+import net.digitalid.database.property.WriteBehindQueue;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.property.subject.SubjectUtility;
 
@@ -58,7 +63,7 @@ import net.digitalid.database.property.subject.SubjectUtility;
 @ThreadSafe
 @GenerateBuilder
 @GenerateSubclass
-public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Specifiable VALUE> extends WritableValuePropertyImplementation<VALUE, DatabaseException, RecoveryException, PersistentValueObserver<SUBJECT, VALUE>, ReadOnlyPersistentValueProperty<SUBJECT, VALUE>> implements WritablePersistentValueProperty<SUBJECT, VALUE> {
+public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Specifiable VALUE> extends WritableValuePropertyImplementation<VALUE, DatabaseException, RecoveryException, PersistentValueObserver<SUBJECT, VALUE>, ReadOnlyPersistentValueProperty<SUBJECT, VALUE>> implements WritablePersistentValueProperty<SUBJECT, VALUE>, PersistentPropertyPreloader.Preloadable<PersistentValuePropertyEntry<SUBJECT, VALUE>>, PersistentPropertyCache.Cacheable {
     
     /* -------------------------------------------------- Validator -------------------------------------------------- */
     
@@ -87,23 +92,96 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     @NonCommitting
     protected void load(final boolean locking) throws DatabaseException, RecoveryException {
         if (locking) { lock.lock(); }
+        final boolean writtenBehind = getTable().isWrittenBehind();
+        final long sequence = writtenBehind ? WriteBehindQueue.instance.get().beginLoad() : 0;
         try {
             final @Nonnull Converter<SUBJECT, ?> subjectConverter = getTable().getParentModule().getSubjectTable();
             final @Nonnull WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(subjectConverter).withObject(getSubject()).withPrefix(subjectConverter.getTypeName().toLowerCase()).build();
-            final @Nullable PersistentValuePropertyEntry<SUBJECT, VALUE> entry = SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition);
-            if (entry != null) {
-                this.time = entry.getTime();
-                this.value = entry.getValue();
-            } else {
-                this.time = null;
-                this.value = getTable().getDefaultValue();
-            }
-            this.loaded = true;
+            load(SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition), sequence);
         } finally {
+            if (writtenBehind) { WriteBehindQueue.instance.get().endLoad(sequence); }
             if (locking) { lock.unlock(); }
         }
     }
     
+    /**
+     * Loads the time and value of this property from the given entry or the default value if the entry is null.
+     * 
+     * @param sequence the sequence number of the {@link WriteBehindQueue#beginLoad() load} during which the entry was retrieved.
+     */
+    @Pure
+    protected void load(@Nullable PersistentValuePropertyEntry<SUBJECT, VALUE> entry, long sequence) {
+        if (entry != null) {
+            this.time = entry.getTime();
+            this.value = entry.getValue();
+        } else {
+            this.time = null;
+            this.value = getTable().getDefaultValue();
+        }
+        if (getTable().isWrittenBehind()) {
+            for (@Nonnull WriteBehindQueue.PendingWrite<PersistentValuePropertyEntry<SUBJECT, VALUE>> pendingWrite : WriteBehindQueue.instance.get().getPendingWrites(getTable(), getSubject(), sequence)) {
+                this.time = pendingWrite.getEntry().getTime();
+                this.value = pendingWrite.getEntry().getValue();
+            }
+        }
+        this.loaded = true;
+        PersistentPropertyCache.instance.get().recordLoad(this);
+    }
+    
+    /* -------------------------------------------------- Caching -------------------------------------------------- */
+    
+    /**
+     * Returns whether the time and value of this property are loaded and have not expired, which is recorded as an access in the {@link PersistentPropertyCache cache}.
+     * The expiration is not checked while the current thread holds the lock so that observers can access this property without a reentrance.
+     */
+    @Pure
+    protected boolean isCached() {
+        return loaded && (lock.isHeldByCurrentThread() || PersistentPropertyCache.instance.get().recordAccess(this));
+    }
+    
+    @Pure
+    @Override
+    public int getElementCount() {
+        return 1;
+    }
+    
+    /**
+     * Marks this property as no longer loaded so that its time and value are reloaded on the next access.
+     * The time and value are kept because {@link #get()} and {@link #getTime()} read them without holding the lock after checking that they are cached.
+     * A property with observers is not evicted, as its {@link #reset()} has to reload its value in order to notify them about a change.
+     */
+    @Impure
+    @Override
+    public boolean evict() {
+        if (!observers.isEmpty() || lock.isHeldByCurrentThread() || !lock.tryLock()) { return false; }
+        try {
+            this.loaded = false;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Preloading -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    @Pure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void preload(@Nonnull @NonNullableElements List<PersistentValuePropertyEntry<SUBJECT, VALUE>> entries, long sequence) {
+        lock.lock();
+        try {
+            if (!loaded) { load(entries.isEmpty() ? null : entries.get(0), sequence); }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /* -------------------------------------------------- Time -------------------------------------------------- */
     
     protected @Nullable Time time;
@@ -112,7 +190,7 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     @Override
     @NonCommitting
     public @Nullable Time getTime() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the time is loaded.
+        if (!isCached()) { load(true); } // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the time is loaded.
         return time;
     }
     
@@ -124,7 +202,7 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     @Override
     @NonCommitting
     public @Valid VALUE get() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the value is loaded.
+        if (!isCached()) { load(true); } // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the value is loaded.
         return value;
     }
     
@@ -135,12 +213,13 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     public @Capturable @Valid VALUE set(@Captured @Valid VALUE newValue) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
+            if (!isCached()) { load(false); }
             final @Valid VALUE oldValue = value;
             if (!Objects.equals(newValue, oldValue)) {
                 final @Nonnull Time newTime = TimeBuilder.build();
                 final @Nonnull PersistentValuePropertyEntry<SUBJECT, VALUE> entry = new PersistentValuePropertyEntrySubclass<>(getSubject(), newTime, newValue);
-                SQL.insertOrReplace(getTable(), entry, getSubject().getUnit());
+                if (getTable().isWrittenBehind()) { WriteBehindQueue.instance.get().enqueue(getTable(), entry, null, false); }
+                else { SQL.insertOrReplace(getTable(), entry, getSubject().getUnit()); }
                 this.time = newTime;
                 this.value = newValue;
                 Database.commit();
@@ -161,7 +240,7 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     public @Nonnull Pair<@Valid VALUE, @Nullable Time> getValueWithTimeOfLastModification() throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
+            if (!isCached()) { load(false); }
             return Pair.of(value, time);
         } finally {
             lock.unlock();
@@ -180,6 +259,7 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
             if (loaded) {
                 if (observers.isEmpty()) {
                     this.loaded = false;
+                    PersistentPropertyCache.instance.get().recordReset(this);
                 } else {
                     final @Valid VALUE oldValue = value;
                     load(false);
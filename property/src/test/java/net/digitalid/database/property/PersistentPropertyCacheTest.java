@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.testing.UtilityTest;
+
+import org.junit.Test;
+
+class TestCacheable implements PersistentPropertyCache.Cacheable {
+    
+    int elementCount;
+    
+    boolean loaded = true;
+    
+    TestCacheable(int elementCount) {
+        this.elementCount = elementCount;
+    }
+    
+    @Override
+    public int getElementCount() {
+        return elementCount;
+    }
+    
+    @Override
+    public boolean evict() {
+        this.loaded = false;
+        return true;
+    }
+    
+}
+
+public class PersistentPropertyCacheTest extends UtilityTest {
+    
+    @Test
+    public void testEvictionOfLeastRecentlyUsedProperty() {
+        final @Nonnull PersistentPropertyCache cache = new PersistentPropertyCache(10, 0, PersistentPropertyCache.Weigher.ELEMENTS);
+        final @Nonnull TestCacheable first = new TestCacheable(4);
+        final @Nonnull TestCacheable second = new TestCacheable(4);
+        final @Nonnull TestCacheable third = new TestCacheable(4);
+        cache.recordLoad(first);
+        cache.recordLoad(second);
+        assertThat(cache.recordAccess(first)).as("the access to the first property").isTrue();
+        cache.recordLoad(third);
+        
+        assertThat(second.loaded).as("whether the least recently used property is still loaded").isFalse();
+        assertThat(first.loaded && third.loaded).as("whether the other properties are still loaded").isTrue();
+        assertThat(cache.getTotalWeight()).as("the total weight").isEqualTo(8);
+        assertThat(cache.getHitCount()).as("the hit count").isEqualTo(1);
+        assertThat(cache.getMissCount()).as("the miss count").isEqualTo(3);
+        assertThat(cache.getEvictionCount()).as("the eviction count").isEqualTo(1);
+    }
+    
+    @Test
+    public void testUpdatedWeight() {
+        final @Nonnull PersistentPropertyCache cache = new PersistentPropertyCache(10, 0, PersistentPropertyCache.Weigher.ELEMENTS);
+        final @Nonnull TestCacheable first = new TestCacheable(2);
+        final @Nonnull TestCacheable second = new TestCacheable(2);
+        cache.recordLoad(first);
+        cache.recordLoad(second);
+        second.elementCount = 9;
+        cache.recordUpdate(second);
+        
+        assertThat(first.loaded).as("whether the other property is still loaded").isFalse();
+        assertThat(cache.getTotalWeight()).as("the total weight").isEqualTo(9);
+    }
+    
+    @Test
+    public void testExpiration() throws InterruptedException {
+        final @Nonnull PersistentPropertyCache cache = new PersistentPropertyCache(Long.MAX_VALUE, 1, PersistentPropertyCache.Weigher.PROPERTIES);
+        final @Nonnull TestCacheable property = new TestCacheable(1);
+        cache.recordLoad(property);
+        Thread.sleep(10);
+        
+        assertThat(cache.recordAccess(property)).as("whether the expired property is still valid").isFalse();
+        assertThat(cache.getExpirationCount()).as("the expiration count").isEqualTo(1);
+        assertThat(cache.size()).as("the number of cached properties").isEqualTo(0);
+    }
+    
+}
@@ -15,6 +15,8 @@
  */
 package net.digitalid.database.property.value;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
@@ -30,6 +32,7 @@ import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.time.TimeBuilder;
 import net.digitalid.utility.validation.annotations.generation.Default;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
@@ -38,6 +41,7 @@ import net.digitalid.database.annotations.constraints.PrimaryKey;
 import net.digitalid.database.conversion.SQL;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentPropertyCache;
 import net.digitalid.database.property.annotations.GeneratePersistentProperty;
 import net.digitalid.database.property.map.WritablePersistentSimpleMapProperty;
 import net.digitalid.database.property.set.WritablePersistentSimpleSetProperty;
@@ -134,4 +138,40 @@ public class ValuePropertyTest extends DatabaseTest {
         assertThat(grades).as("grades").hasSize(2).containsKey(1).containsEntry(1, 5).containsEntry(2, 2);
     }
     
+    @Test
+    public void testEvictionKeepsHandedOutSet() throws DatabaseException, RecoveryException {
+        final @Nonnull Student student = StudentBuilder.withKey(125).build();
+        SQL.insertOrAbort(StudentConverter.INSTANCE, student, Unit.DEFAULT);
+        student.friends().add(friend);
+        final @Nonnull @NonFrozen ReadOnlySet<@Nonnull @Valid Student> friends = student.friends().get();
+        assertThat(((PersistentPropertyCache.Cacheable) student.friends()).evict()).as("whether the property with a handed out set was evicted").isFalse();
+        assertThat(friends).as("friends").extracting("key").containsExactly(124l);
+    }
+    
+    @Test
+    public void testEvictionReloadsMap() throws DatabaseException, RecoveryException {
+        final @Nonnull Student student = StudentBuilder.withKey(126).build();
+        SQL.insertOrAbort(StudentConverter.INSTANCE, student, Unit.DEFAULT);
+        student.grades().add(3, 4);
+        assertThat(((PersistentPropertyCache.Cacheable) student.grades()).evict()).as("whether the property without readers was evicted").isTrue();
+        assertThat(((PersistentPropertyCache.Cacheable) student.grades()).getElementCount()).as("the number of loaded grades").isEqualTo(0);
+        assertThat(student.grades().get(3)).as("the reloaded grade").isEqualTo(4);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvictionKeepsObservedValue() throws DatabaseException, RecoveryException {
+        final @Nonnull Student student = StudentBuilder.withKey(127).build();
+        SQL.insertOrAbort(StudentConverter.INSTANCE, student, Unit.DEFAULT);
+        student.name().set("before");
+        final @Nonnull List<@Nonnull String> notifiedValues = new ArrayList<>();
+        student.name().register((property, oldValue, newValue) -> notifiedValues.add(newValue));
+        assertThat(((PersistentPropertyCache.Cacheable) student.name()).evict()).as("whether the observed property was evicted").isFalse();
+        
+        final @Nonnull PersistentValuePropertyTable<Unit, Student, String, ?> table = ((WritablePersistentValuePropertyImplementation<Unit, Student, String>) student.name()).getTable();
+        SQL.insertOrReplace(table, new PersistentValuePropertyEntrySubclass<>(student, TimeBuilder.build(), "after"), Unit.DEFAULT);
+        student.name().reset();
+        assertThat(notifiedValues).as("the values that the observer was notified about").containsExactly("after");
+    }
+    
 }
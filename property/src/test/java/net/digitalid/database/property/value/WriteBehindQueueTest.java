@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property.value;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.time.TimeBuilder;
+
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.WriteBehindQueue;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WriteBehindQueueTest extends DatabaseTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    private static final @Nonnull Student student = StudentBuilder.withKey(200).build();
+    
+    /**
+     * Returns a table with the given name that is written behind and stores strings like the given table.
+     */
+    @Pure
+    private static <PROVIDED> @Nonnull PersistentValuePropertyTable<Unit, Student, String, PROVIDED> createWrittenBehindTable(@Nonnull String name, @Nonnull PersistentValuePropertyTable<Unit, Student, String, PROVIDED> table) {
+        return PersistentValuePropertyTableBuilder.<Unit, Student, String, PROVIDED>withName(name).withParentModule(StudentSubclass.MODULE).withValueConverter(table.getValueConverter()).withDefaultValue("default").withWrittenBehind(true).build();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static final @Nonnull PersistentValuePropertyTable<Unit, Student, String, ?> NICKNAME_TABLE = createWrittenBehindTable("nickname", ((WritablePersistentValuePropertyImplementation<Unit, Student, String>) student.name()).getTable());
+    
+    @SuppressWarnings("unchecked")
+    private static final @Nonnull PersistentValuePropertyTable<Unit, Student, String, ?> MISSING_TABLE = createWrittenBehindTable("missingnickname", ((WritablePersistentValuePropertyImplementation<Unit, Student, String>) student.name()).getTable());
+    
+    private static final @Nonnull WritablePersistentValueProperty<Student, String> nickname = WritablePersistentValuePropertyImplementationBuilder.<Unit, Student, String>withSubject(student).withTable(NICKNAME_TABLE).build();
+    
+    @Impure
+    @BeforeClass
+    public static void createTables() throws Exception {
+        SQL.createTable(StudentConverter.INSTANCE, Unit.DEFAULT);
+        StudentSubclass.MODULE.accept(table -> SQL.createTable(table, Unit.DEFAULT));
+        SQL.createTable(NICKNAME_TABLE, Unit.DEFAULT);
+        SQL.insertOrReplace(StudentConverter.INSTANCE, student, Unit.DEFAULT);
+        Database.commit();
+    }
+    
+    /**
+     * Returns a new entry of the nickname property with the given value.
+     */
+    @Pure
+    private static @Nonnull PersistentValuePropertyEntry<Student, String> entry(@Nonnull String value) {
+        return new PersistentValuePropertyEntrySubclass<>(student, TimeBuilder.build(), value);
+    }
+    
+    /**
+     * Returns the writes to the given table that a load which starts now would have to apply.
+     */
+    @Pure
+    private static @Nonnull List<WriteBehindQueue.PendingWrite<PersistentValuePropertyEntry<Student, String>>> getPendingWrites(@Nonnull WriteBehindQueue queue, @Nonnull PersistentValuePropertyTable<Unit, Student, String, ?> table) {
+        final long sequence = queue.beginLoad();
+        try {
+            return queue.getPendingWrites(table, student, sequence);
+        } finally {
+            queue.endLoad(sequence);
+        }
+    }
+    
+    /* -------------------------------------------------- Tests -------------------------------------------------- */
+    
+    @Test
+    public void testCoalescingOfWritesToTheSameElement() throws Exception {
+        try (@Nonnull WriteBehindQueue queue = new WriteBehindQueue(10, 60_000)) {
+            queue.enqueue(NICKNAME_TABLE, entry("first"), null, false);
+            queue.enqueue(NICKNAME_TABLE, entry("second"), null, false);
+            
+            assertThat(queue.size()).as("the number of pending writes").isEqualTo(1);
+            final @Nonnull List<WriteBehindQueue.PendingWrite<PersistentValuePropertyEntry<Student, String>>> pendingWrites = getPendingWrites(queue, NICKNAME_TABLE);
+            assertThat(pendingWrites).as("the pending writes").hasSize(1);
+            assertThat(pendingWrites.get(0).getEntry().getValue()).as("the coalesced value").isEqualTo("second");
+            
+            queue.flush();
+            nickname.reset();
+            assertThat(nickname.get()).as("the persisted value").isEqualTo("second");
+        }
+    }
+    
+    @Test
+    public void testFlushAfterInterval() throws Exception {
+        try (@Nonnull WriteBehindQueue queue = new WriteBehindQueue(10, 50)) {
+            queue.enqueue(NICKNAME_TABLE, entry("flushed"), null, false);
+            for (int i = 0; i < 100 && queue.size() > 0; i++) { Thread.sleep(50); }
+            
+            assertThat(queue.size()).as("the number of pending writes after the flush interval").isEqualTo(0);
+            nickname.reset();
+            assertThat(nickname.get()).as("the persisted value").isEqualTo("flushed");
+        }
+    }
+    
+    @Test
+    public void testRequeueAfterFailedFlush() throws Exception {
+        SQL.dropTable(MISSING_TABLE, Unit.DEFAULT);
+        try (@Nonnull WriteBehindQueue queue = new WriteBehindQueue(1, 60_000)) {
+            // The queue is full after this write, and its flush fails because the table does not exist.
+            queue.enqueue(MISSING_TABLE, entry("requeued"), null, false);
+            assertThat(queue.size()).as("the number of requeued writes").isEqualTo(1);
+            
+            // Writes to the same element are still coalesced into the full queue.
+            queue.enqueue(MISSING_TABLE, entry("replaced"), null, false);
+            assertThat(queue.size()).as("the number of requeued writes").isEqualTo(1);
+            
+            try {
+                queue.enqueue(NICKNAME_TABLE, entry("rejected"), null, false);
+                Assert.fail("A new write should be rejected while the full queue cannot be flushed.");
+            } catch (@Nonnull DatabaseException exception) {
+                // The rejection of the write is expected.
+            }
+            assertThat(queue.size()).as("the number of pending writes after the rejection").isEqualTo(1);
+            assertThat(getPendingWrites(queue, NICKNAME_TABLE)).as("the pending writes of the rejected write").isEmpty();
+            
+            SQL.createTable(MISSING_TABLE, Unit.DEFAULT);
+            queue.flush();
+            assertThat(queue.size()).as("the number of pending writes after a successful flush").isEqualTo(0);
+        }
+    }
+    
+    @Test
+    public void testDropOfRepeatedlyFailingWrite() throws Exception {
+        SQL.dropTable(MISSING_TABLE, Unit.DEFAULT);
+        try (@Nonnull WriteBehindQueue queue = new WriteBehindQueue(10, 50)) {
+            // The write to the missing table fails on every flush, while the write to the existing table succeeds when it is retried in isolation.
+            queue.enqueue(MISSING_TABLE, entry("dropped"), null, false);
+            queue.enqueue(NICKNAME_TABLE, entry("isolated"), null, false);
+            for (int i = 0; i < 100 && queue.size() > 0; i++) { Thread.sleep(50); }
+            
+            assertThat(queue.size()).as("the number of pending writes after the failing write was dropped").isEqualTo(0);
+            nickname.reset();
+            assertThat(nickname.get()).as("the persisted value").isEqualTo("isolated");
+        }
+    }
+    
+    @Test
+    public void testLoadAppliesPendingWrites() throws Exception {
+        nickname.set("pending");
+        nickname.reset();
+        assertThat(nickname.get()).as("the reloaded value").isEqualTo("pending");
+        WriteBehindQueue.instance.get().flush();
+    }
+    
+    @Test
+    public void testLoadSeesWritesFlushedWhileItWasInProgress() throws Exception {
+        try (@Nonnull WriteBehindQueue queue = new WriteBehindQueue(10, 60_000)) {
+            final long sequence = queue.beginLoad();
+            // The load reads the database here, before the following write is flushed.
+            queue.enqueue(NICKNAME_TABLE, entry("concurrent"), null, false);
+            queue.flush();
+            
+            final @Nonnull List<WriteBehindQueue.PendingWrite<PersistentValuePropertyEntry<Student, String>>> pendingWrites = queue.getPendingWrites(NICKNAME_TABLE, student, sequence);
+            queue.endLoad(sequence);
+            assertThat(pendingWrites).as("the writes that the load might have missed").hasSize(1);
+            assertThat(pendingWrites.get(0).getEntry().getValue()).as("the flushed value").isEqualTo("concurrent");
+            assertThat(getPendingWrites(queue, NICKNAME_TABLE)).as("the writes that a later load might miss").isEmpty();
+        }
+    }
+    
+}
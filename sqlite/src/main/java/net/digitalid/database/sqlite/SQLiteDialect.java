@@ -15,6 +15,7 @@
  */
 package net.digitalid.database.sqlite;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -39,7 +40,6 @@ import net.digitalid.utility.validation.annotations.type.Stateless;
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.SQLExpression;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanLiteral;
@@ -74,7 +74,8 @@ public abstract class SQLiteDialect extends SQLDialect {
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
-    protected void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLType type, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         if (type.getType() == CustomType.BINARY128 || type.getType() == CustomType.BINARY256 || type.getType() == CustomType.BINARY) {
             string.append("BLOB");
         } else {
@@ -83,7 +84,8 @@ public abstract class SQLiteDialect extends SQLDialect {
     }
     
     @Pure
-    protected void unparse(@Nonnull SQLColumnDeclaration columnDeclaration, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLColumnDeclaration columnDeclaration, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         unparse(columnDeclaration.getName(), unit, string);
         string.append(" ");
         unparse(columnDeclaration.getType(), unit, string);
@@ -111,30 +113,58 @@ public abstract class SQLiteDialect extends SQLDialect {
     }
     
     @Pure
-    protected void unparse(@Nonnull SQLBooleanLiteral booleanLiteral, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLBooleanLiteral booleanLiteral, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         string.append(booleanLiteral.getValue() ? "1" : "0");
     }
     
     @Pure
-    protected void unparse(@Nonnull SQLVariadicNumberOperator variadicNumberOperator, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+    @Override
+    public void unparse(@Nonnull SQLVariadicNumberOperator variadicNumberOperator, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
         if (variadicNumberOperator ==  SQLVariadicNumberOperator.GREATEST) { string.append("MAX"); }
         else { variadicNumberOperator.unparse(this, unit, string); }
     }
     
     @Pure
     @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLType) { unparse((SQLType) node, unit, string); }
-        else if (node instanceof SQLColumnDeclaration) { unparse((SQLColumnDeclaration) node, unit, string); }
-        else if (node instanceof SQLBooleanLiteral) { unparse((SQLBooleanLiteral) node, unit, string); }
-        else if (node instanceof SQLVariadicNumberOperator) { unparse((SQLVariadicNumberOperator) node, unit, string); }
-        else if (node instanceof SQLCreateSchemaStatement) { string.append("CREATE TABLE IF NOT EXISTS schema_dummy (id INTEGER)"); }
-        else if (node instanceof SQLQualifiedTable) { unparse(((SQLQualifiedTable) node).getTable(), unit, string); }
-        else if (node instanceof SQLCurrentTime) { string.append("CAST((JULIANDAY('NOW') - 2440587.5)*86400000 AS INTEGER)"); } // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
-        else { super.unparse(node, unit, string); }
+    public void unparse(@Nonnull SQLQualifiedTable qualifiedTable, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        unparse(qualifiedTable.getTable(), unit, string);
+    }
+    
+    @Pure
+    @Override
+    public void unparse(@Nonnull SQLCurrentTime currentTime, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("CAST((JULIANDAY('NOW') - 2440587.5)*86400000 AS INTEGER)"); // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
+    }
+    
+    @Pure
+    @Override
+    public void unparse(@Nonnull SQLCreateSchemaStatement createSchemaStatement, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("CREATE TABLE IF NOT EXISTS schema_dummy (id INTEGER)");
+    }
+    
+    @Pure
+    @Override
+    public void unparseLimit(@Nullable Integer limit, @Nullable Integer offset, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        if (limit == null && offset != null) { string.append(" LIMIT -1 OFFSET ").append(offset); } // A negative limit means no upper bound in SQLite.
+        else { super.unparseLimit(limit, offset, string); }
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public int getReadOnlyIsolationLevel() {
+        return Connection.TRANSACTION_SERIALIZABLE; // SQLite does not support Connection.TRANSACTION_READ_COMMITTED.
+    }
+    
+    @Pure
+    @Override
+    public boolean supportsReadOnlyTransactions() {
+        return false; // The SQLite driver only allows to set the read-only flag before the connection is established.
     }
     
-    /* -------------------------------------------------- TODO -------------------------------------------------- */
+------------------------------------------------ */
     
     @Pure
     @Deprecated
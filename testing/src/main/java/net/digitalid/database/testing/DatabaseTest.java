@@ -152,8 +152,7 @@ public class DatabaseTest extends UtilityTest {
     @Pure
     protected void assertTableExists(@Nonnull String tableName, @Nonnull String schema) throws DatabaseException {
         final @Nonnull String query = "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = '" + tableName.toLowerCase() + "' and table_schema = '" + schema.toLowerCase() + "'";
-        final @Nonnull ResultSet resultSet = Database.instance.get().executeQuery(query);
-        try {
+        try (@Nonnull ResultSet resultSet = Database.instance.get().executeQuery(query)) {
             resultSet.next();
             Assert.assertSame("Table does not exist (" + query + ")", 1, resultSet.getInt(1));
         } catch (@Nonnull SQLException exception) {
@@ -164,8 +163,7 @@ public class DatabaseTest extends UtilityTest {
     @Pure
     protected void assertTableDoesNotExist(@Nonnull String tableName, @Nonnull String schema) throws DatabaseException {
         final @Nonnull String query = "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = '" + tableName.toLowerCase() + "' and table_schema = '" + schema.toLowerCase() + "'";
-        final @Nonnull ResultSet resultSet = Database.instance.get().executeQuery(query);
-        try {
+        try (@Nonnull ResultSet resultSet = Database.instance.get().executeQuery(query)) {
             resultSet.next();
             Assert.assertSame("Table does exist (" + query + ")", 0, resultSet.getInt(1));
         } catch (SQLException e) {
@@ -207,8 +205,7 @@ public class DatabaseTest extends UtilityTest {
     @Pure
     protected static void assertRowCount(@Nonnull String tableName, @Nonnull String schema, long rowCount) throws DatabaseException {
         final @Nonnull String rowCountQuery = "SELECT COUNT(*) AS count FROM " + schema + "." + tableName.toLowerCase();
-        final @Nonnull ResultSet resultSet = Database.instance.get().executeQuery(rowCountQuery);
-        try {
+        try (@Nonnull ResultSet resultSet = Database.instance.get().executeQuery(rowCountQuery)) {
             resultSet.next();
             Assert.assertSame("Table '" + tableName + "' does not contain " + rowCount + " rows.", rowCount, resultSet.getLong(1));
         } catch (SQLException e) {
@@ -240,8 +237,7 @@ public class DatabaseTest extends UtilityTest {
                     columnsInfo += ", ";
                 }
             }
-            final @Nonnull ResultSet rowCountResult = Database.instance.get().executeQuery(rowCountQuery);
-            try {
+            try (@Nonnull ResultSet rowCountResult = Database.instance.get().executeQuery(rowCountQuery)) {
                 rowCountResult.next();
                 Assert.assertTrue("Table '" + tableName + "' does not contain column(s) " + columnsInfo, rowCountResult.getLong(1) >= 1L);
             } catch (SQLException e) {